@@ -0,0 +1,53 @@
+import benchmarks.GameHotPaths;
+
+/**
+ * Sets up a game in "test" mode (full kit, 100 gold) with no output, and exposes the
+ * operations the benchmarks measure.
+ */
+
+public class HotPathFixture implements GameHotPaths {
+    private final TreasureHunter game;
+    private final Hunter hunter;
+    private final Item boat = ItemCatalog.get("boat");
+
+    public HotPathFixture() {
+        game = new TreasureHunter(NullOutput.INSTANCE, new ScriptedInput(), 42);
+        game.startGame("bench", "test");
+        hunter = game.getHunter();
+    }
+
+    public boolean hasItemInKitHit() {
+        return hunter.hasItemInKit(boat);
+    }
+
+    public boolean hasItemInKitMiss() {
+        return hunter.hasItemInKit(ItemCatalog.SWORD);
+    }
+
+    public String hunterInfoString() {
+        return hunter.infoString();
+    }
+
+    public String hunterInventory() {
+        return hunter.getInventory();
+    }
+
+    public int costOfItem() {
+        return game.getCurrentTown().getShop().getCostOfItem(boat);
+    }
+
+    public Object newTerrain() {
+        return game.getCurrentTown().getNewTerrain();
+    }
+
+    public void lookForTroubleTurn() {
+        game.getCurrentTown().lookForTrouble();
+        if (hunter.getGold() < 100) {
+            hunter.changeGold(1000); // keep losing brawls from ending the game
+        }
+    }
+
+    public void menuFrame() {
+        game.drawMenu();
+    }
+}
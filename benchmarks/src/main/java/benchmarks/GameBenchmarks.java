@@ -0,0 +1,74 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Microbenchmarks for the code the game runs every turn.<p>
+ * Build with mvn -B package, then run with
+ * java -jar benchmarks/target/benchmarks.jar -prof gc
+ * and compare against benchmarks/baseline.txt.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameBenchmarks {
+    private GameHotPaths game;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        game = (GameHotPaths) Class.forName("HotPathFixture").getDeclaredConstructor().newInstance();
+    }
+
+    @Benchmark
+    public boolean hasItemInKitHit() {
+        return game.hasItemInKitHit();
+    }
+
+    @Benchmark
+    public boolean hasItemInKitMiss() {
+        return game.hasItemInKitMiss();
+    }
+
+    @Benchmark
+    public String hunterInfoString() {
+        return game.hunterInfoString();
+    }
+
+    @Benchmark
+    public String hunterInventory() {
+        return game.hunterInventory();
+    }
+
+    @Benchmark
+    public int costOfItem() {
+        return game.costOfItem();
+    }
+
+    @Benchmark
+    public Object newTerrain() {
+        return game.newTerrain();
+    }
+
+    @Benchmark
+    public void lookForTroubleTurn() {
+        game.lookForTroubleTurn();
+    }
+
+    @Benchmark
+    public void menuFrame() {
+        game.menuFrame();
+    }
+}
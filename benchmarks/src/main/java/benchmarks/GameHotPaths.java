@@ -0,0 +1,25 @@
+package benchmarks;
+
+/**
+ * The game's hot paths, as seen by the benchmarks.<p>
+ * The game classes live in the default package, which a named package can't import, and JMH
+ * refuses benchmarks in the default package. So the default-package HotPathFixture implements
+ * this interface and the benchmarks load it by name.
+ */
+public interface GameHotPaths {
+    boolean hasItemInKitHit();
+
+    boolean hasItemInKitMiss();
+
+    String hunterInfoString();
+
+    String hunterInventory();
+
+    int costOfItem();
+
+    Object newTerrain();
+
+    void lookForTroubleTurn();
+
+    void menuFrame();
+}
@@ -0,0 +1,55 @@
+/**
+ * The choices on the main menu, each with the letter the player types for it.<p>
+ * A Policy picks one of these instead of typing its letter, and TreasureHunter.processChoice(Decision)
+ * carries it out without looking at any text.
+ */
+
+public enum Action {
+    BUY("b"),
+    SELL("s"),
+    EXPLORE("e"),
+    MOVE("m"),
+    BACK("g"),
+    HUNT("h"),
+    TROUBLE("l"),
+    DIG("d"),
+    QUIT("x");
+
+    // values() makes a new array every call, so keep one copy
+    private static final Action[] ACTIONS = values();
+
+    private final String choice;
+
+    Action(String choice) {
+        this.choice = choice;
+    }
+
+    /**
+     * @return The letter the player types for this action, as processChoice() takes it.
+     */
+    public String getChoice() {
+        return choice;
+    }
+
+    /**
+     * @return This action's bit in a mask like GameView.getAvailableActions().
+     */
+    public int bit() {
+        return 1 << ordinal();
+    }
+
+    /**
+     * @param ordinal An action's ordinal().
+     * @return The action.
+     */
+    public static Action byOrdinal(int ordinal) {
+        return ACTIONS[ordinal];
+    }
+
+    /**
+     * @return How many actions there are.
+     */
+    public static int count() {
+        return ACTIONS.length;
+    }
+}
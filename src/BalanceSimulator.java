@@ -0,0 +1,221 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Plays huge numbers of headless games to check how the difficulty modes are balanced.<p>
+ * Every game runs the real TreasureHunter logic with a NullOutput and a ScriptedInput, driven by a
+ * SimulationPolicy, or by a Policy, which skips the text altogether. Games are spread over a fork-join pool
+ * using every core, and game i of a run always uses the same seed, so a run can be repeated exactly.<p>
+ * With -Dtreasurehunter.metrics=true the GameMetrics report is printed at the end.<p>
+ *
+ * Usage: java BalanceSimulator [gamesPerMode] [seed] [explorer|rules|greedy|random]
+ */
+
+public class BalanceSimulator {
+    private static final String[] MODES = {"e", "n", "h", "s"};
+    private static final String[] MODE_NAMES = {"Easy", "Normal", "Hard", "Samurai"};
+    private static final int MAX_TURNS = 1000; // a game that goes this long counts as a stalemate
+    private static final int GAMES_PER_TASK = 4096; // small enough to balance, big enough to be cheap
+
+    private final SimulationPolicy policy;
+    private final Policy bot; // plays instead of policy when it's set
+    private final int maxTurns;
+
+    public BalanceSimulator(SimulationPolicy policy, int maxTurns) {
+        this.policy = policy;
+        this.bot = null;
+        this.maxTurns = maxTurns;
+    }
+
+    public BalanceSimulator(Policy bot, int maxTurns) {
+        this.policy = null;
+        this.bot = bot;
+        this.maxTurns = maxTurns;
+    }
+
+    public static void main(String[] args) {
+        long games = args.length > 0 ? Long.parseLong(args[0]) : 1_000_000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 42;
+        String name = args.length > 2 ? args[2] : "explorer";
+        BalanceSimulator simulator;
+        if (name.equals("explorer")) {
+            simulator = new BalanceSimulator(SimulationPolicy.EXPLORER, MAX_TURNS);
+        } else if (Policy.named(name) != null) {
+            simulator = new BalanceSimulator(Policy.named(name), MAX_TURNS);
+        } else {
+            System.out.println("Unknown policy " + name + "; try explorer, rules, greedy or random");
+            return;
+        }
+
+        System.out.printf("%-8s %10s %8s %10s %8s %10s%n", "Mode", "Games", "Win %", "Avg turns", "Broke %", "Games/min");
+        for (int i = 0; i < MODES.length; i++) {
+            long start = System.nanoTime();
+            Results results = simulator.run(MODES[i], games, seed);
+            double minutes = (System.nanoTime() - start) / 60e9;
+            System.out.printf("%-8s %10d %8.2f %10.1f %8.2f %10.0f%n", MODE_NAMES[i], results.games,
+                    100.0 * results.winRate(), results.averageTurnsToWin(), 100.0 * results.bankruptcyRate(),
+                    results.games / minutes);
+        }
+        if (GameMetrics.ENABLED) {
+            System.out.print(GameMetrics.report());
+        }
+    }
+
+    /**
+     * Plays a batch of games in parallel.
+     *
+     * @param mode The mode letter typed at the start of the game ("e", "n", "h" or "s").
+     * @param games How many games to play.
+     * @param seed The seed for the whole batch.
+     * @return The combined results.
+     */
+    public Results run(String mode, long games, long seed) {
+        return ForkJoinPool.commonPool().invoke(new Batch(this, mode, seed, 0, games));
+    }
+
+    /**
+     * Plays one game to the end.
+     *
+     * @param mode The mode letter.
+     * @param seed The game's seed.
+     * @param input A ScriptedInput that can be reused between games on the same thread.
+     * @param results Where the outcome is counted.
+     */
+    public void playOne(String mode, long seed, ScriptedInput input, Results results) {
+        TreasureHunter game = new TreasureHunter(NullOutput.INSTANCE, input, seed);
+        game.startGame("sim", mode);
+        int turns = play(game, input);
+        results.games++;
+        if (isBroke(game)) {
+            results.bankrupt++;
+        } else if (game.getHunter().getIsFoundTreasure()) {
+            results.wins++;
+            results.turnsToWin += turns;
+        } else {
+            results.stalemates++;
+        }
+    }
+
+    /**
+     * Plays a started game until it is won or lost, or the turns run out.
+     *
+     * @param game The game.
+     * @param input The game's input; each turn's answers are put in it (a Policy doesn't need it).
+     * @return The number of turns played.
+     */
+    public int play(TreasureHunter game, ScriptedInput input) {
+        Hunter hunter = game.getHunter();
+        if (bot != null) {
+            GameView view = game.getView();
+            for (int turn = 1; turn <= maxTurns; turn++) {
+                game.processChoice(bot.decide(view));
+                if (isBroke(game) || hunter.getIsFoundTreasure()) {
+                    return turn;
+                }
+            }
+            return maxTurns;
+        }
+        for (int turn = 1; turn <= maxTurns; turn++) {
+            String[] answers = policy.nextTurn(game);
+            input.setAnswers(answers);
+            input.nextLine(); // the menu choice itself goes straight to processChoice
+            game.processChoice(answers[0]);
+            if (isBroke(game) || hunter.getIsFoundTreasure()) {
+                return turn;
+            }
+        }
+        return maxTurns;
+    }
+
+    /**
+     * @return true if the hunter in a game has gone broke, which loses it.
+     */
+    public static boolean isBroke(TreasureHunter game) {
+        return game.getCurrentTown().getHasLost() || game.getHunter().isGoldNegative();
+    }
+
+    /**
+     * Derives the seed for game number i of a batch, spreading neighboring numbers far apart.
+     */
+    static long gameSeed(long batchSeed, long i) {
+        long z = batchSeed + (i + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    // fork-join tasks are Serializable, so this is static and holds its simulator in a transient field
+    private static class Batch extends RecursiveTask<Results> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient BalanceSimulator simulator;
+        private final String mode;
+        private final long seed;
+        private final long from;
+        private final long to;
+
+        private Batch(BalanceSimulator simulator, String mode, long seed, long from, long to) {
+            this.simulator = simulator;
+            this.mode = mode;
+            this.seed = seed;
+            this.from = from;
+            this.to = to;
+        }
+
+        protected Results compute() {
+            if (to - from <= GAMES_PER_TASK) {
+                Results results = new Results();
+                ScriptedInput input = new ScriptedInput();
+                for (long i = from; i < to; i++) {
+                    simulator.playOne(mode, gameSeed(seed, i), input, results);
+                }
+                return results;
+            }
+            long middle = (from + to) >>> 1;
+            Batch left = new Batch(simulator, mode, seed, from, middle);
+            left.fork();
+            Results right = new Batch(simulator, mode, seed, middle, to).compute();
+            return right.add(left.join());
+        }
+    }
+
+    /**
+     * Counts of how a batch of games ended.
+     */
+    public static class Results {
+        private long games;
+        private long wins;
+        private long bankrupt;
+        private long stalemates;
+        private long turnsToWin;
+
+        public long getGames() {
+            return games;
+        }
+
+        public double winRate() {
+            return games == 0 ? 0 : (double) wins / games;
+        }
+
+        public double bankruptcyRate() {
+            return games == 0 ? 0 : (double) bankrupt / games;
+        }
+
+        public double stalemateRate() {
+            return games == 0 ? 0 : (double) stalemates / games;
+        }
+
+        public double averageTurnsToWin() {
+            return wins == 0 ? 0 : (double) turnsToWin / wins;
+        }
+
+        private Results add(Results other) {
+            games += other.games;
+            wins += other.wins;
+            bankrupt += other.bankrupt;
+            stalemates += other.stalemates;
+            turnsToWin += other.turnsToWin;
+            return this;
+        }
+    }
+}
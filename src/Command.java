@@ -0,0 +1,16 @@
+/**
+ * What happens when a menu choice is made; the entries of a game's CommandTable.<p>
+ * The game's own choices are commands, and a command added with TreasureHunter.addCommand() gets its
+ * own letter on the menu. A command may read more answers with TreasureHunter.readLine() when a
+ * person is playing, but a Policy's turn must not ask for anything.
+ */
+
+public interface Command {
+    /**
+     * Carries out the choice. The game counts the turn and publishes turnEnded() afterwards.
+     *
+     * @param game The game.
+     * @param decision The Policy's decision, or null if the choice was typed.
+     */
+    void carryOut(TreasureHunter game, Decision decision);
+}
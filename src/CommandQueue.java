@@ -0,0 +1,167 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An InputSource that hands the game lines from a queue.<p>
+ * Anything can put lines in the queue: a thread reading the keyboard, a script file, the Swing
+ * window's key listener, or a network connection. Whoever adds lines never waits for the game,
+ * and there is only ever one reader per stream, so two Scanners can't steal each other's input.<p>
+ * Each source calls openSource() when it starts and closeSource() when it runs out. Once every
+ * source has closed and the queue is empty, nextLine() returns null.
+ */
+
+public class CommandQueue implements InputSource {
+    private static final String END = new String("end of input"); // compared by identity
+
+    private final BlockingQueue<String> lines;
+    private final AtomicInteger openSources;
+    private final boolean skipPauses;
+    private volatile boolean closed; // set by close(), from any thread
+    private boolean ended; // only touched by the game's thread
+
+    /**
+     * @param skipPauses true for scripted input, so "Press enter to continue" doesn't use up a line.
+     */
+    public CommandQueue(boolean skipPauses) {
+        this.skipPauses = skipPauses;
+        lines = new LinkedBlockingQueue<>();
+        openSources = new AtomicInteger();
+    }
+
+    /**
+     * Makes a queue that a background thread fills from a stream (the keyboard, or a socket).
+     *
+     * @param in The stream to read lines from.
+     * @param skipPauses true if the stream is a script rather than a person.
+     * @return The new queue.
+     */
+    public static CommandQueue reading(InputStream in, boolean skipPauses) {
+        CommandQueue queue = new CommandQueue(skipPauses);
+        queue.feedFrom(in, "stdin");
+        return queue;
+    }
+
+    /**
+     * Makes a queue holding every line of a script file. Pauses are skipped.
+     *
+     * @param script The file to play.
+     * @return The new queue.
+     * @throws UncheckedIOException if the file can't be read.
+     */
+    public static CommandQueue fromScript(Path script) {
+        CommandQueue queue = new CommandQueue(true);
+        try {
+            queue.offerAll(Files.readAllLines(script, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read the script " + script, e);
+        }
+        return queue;
+    }
+
+    /**
+     * Adds one line for the game to read.
+     *
+     * @param line The line, without a line ending.
+     */
+    public void offer(String line) {
+        lines.add(line);
+    }
+
+    /**
+     * Adds a fixed list of lines as a source of its own, which ends when the list does.
+     *
+     * @param script The lines to add.
+     */
+    public void offerAll(List<String> script) {
+        openSource();
+        lines.addAll(script);
+        closeSource();
+    }
+
+    /**
+     * Starts a daemon thread that copies lines from a stream into the queue until the stream ends.
+     *
+     * @param in The stream to read.
+     * @param name A name for the reader thread.
+     */
+    public void feedFrom(InputStream in, String name) {
+        openSource();
+        Thread reader = new Thread(() -> {
+            try (BufferedReader lineReader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = lineReader.readLine()) != null) {
+                    offer(line);
+                }
+            } catch (IOException e) {
+                // a broken stream ends this source the same way running out does
+            } finally {
+                closeSource();
+            }
+        }, "input-" + name);
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    public void openSource() {
+        openSources.incrementAndGet();
+    }
+
+    public void closeSource() {
+        if (openSources.decrementAndGet() == 0) {
+            lines.add(END);
+        }
+    }
+
+    /**
+     * Ends the input early, even though sources are still open, for example when the player closes the window.
+     * Lines still waiting are dropped and the game reads null from then on, so it finishes the turn it is in
+     * and quits.
+     */
+    public void close() {
+        closed = true;
+        lines.clear();
+        lines.add(END);
+    }
+
+    /**
+     * @return Whether close() ended the input.
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public String nextLine() {
+        if (ended) {
+            return null;
+        }
+        try {
+            String line = lines.take();
+            if (line == END || closed) {
+                if (openSources.get() > 0 && !closed) {
+                    return nextLine(); // a new source opened after the others ended
+                }
+                ended = true;
+                return null;
+            }
+            return line;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            ended = true;
+            return null;
+        }
+    }
+
+    public boolean skipsPauses() {
+        return skipPauses;
+    }
+}
@@ -0,0 +1,85 @@
+/**
+ * The commands on a game's menu, one per letter from a to z.<p>
+ * A choice is turned into a slot number once, from its single letter, and the command is found by indexing
+ * the table, so a turn costs the same however many commands there are. Choices that aren't a single
+ * letter with a command go to the table's invalid command.<p>
+ * A table never changes once it's built: with() makes a new one, so the table holding the game's
+ * own commands is shared by every game, and adding a command to one game doesn't touch the others.
+ */
+
+public final class CommandTable {
+    private static final int LETTERS = 26;
+
+    private final Command[] commands;
+    private final Command invalid;
+
+    /**
+     * Makes a table with no commands yet.
+     *
+     * @param invalid What to do with a choice that has no command.
+     */
+    public CommandTable(Command invalid) {
+        this(new Command[LETTERS], invalid);
+    }
+
+    private CommandTable(Command[] commands, Command invalid) {
+        this.commands = commands;
+        this.invalid = invalid;
+    }
+
+    /**
+     * @param letter A letter from a to z.
+     * @param command What to do when it is chosen.
+     * @return A copy of this table with the command added.
+     * @throws IllegalArgumentException if the letter isn't from a to z or already has a command.
+     */
+    public CommandTable with(char letter, Command command) {
+        int slot = slotOf(letter);
+        if (slot < 0) {
+            throw new IllegalArgumentException("Commands go on the letters a to z, not '" + letter + "'");
+        }
+        if (commands[slot] != null) {
+            throw new IllegalArgumentException("There is already a command on '" + letter + "'");
+        }
+        Command[] copy = commands.clone();
+        copy[slot] = command;
+        return new CommandTable(copy, invalid);
+    }
+
+    /**
+     * @param action One of the game's own actions.
+     * @param command What to do when it is chosen.
+     * @return A copy of this table with the command on the action's letter.
+     */
+    public CommandTable with(Action action, Command command) {
+        return with(action.getChoice().charAt(0), command);
+    }
+
+    /**
+     * @param choice What the player typed, in lower case.
+     * @return The command for it, or the invalid command.
+     */
+    public Command get(String choice) {
+        if (choice.length() != 1) {
+            return invalid;
+        }
+        int slot = slotOf(choice.charAt(0));
+        if (slot < 0 || commands[slot] == null) {
+            return invalid;
+        }
+        return commands[slot];
+    }
+
+    /**
+     * @return Whether the letter has a command.
+     */
+    public boolean has(char letter) {
+        int slot = slotOf(letter);
+        return slot >= 0 && commands[slot] != null;
+    }
+
+    private static int slotOf(char letter) {
+        int slot = letter - 'a';
+        return slot >= 0 && slot < LETTERS ? slot : -1;
+    }
+}
@@ -0,0 +1,240 @@
+import java.io.PrintStream;
+
+/**
+ * A headless OutputSink that writes to a terminal using the ANSI codes in the Colors class.<p>
+ * Text is collected in a buffer and only written out when the game flushes (right before it waits
+ * for input), so a whole menu goes to the terminal in one write.<p>
+ * A Screen stays on the terminal between frames. The console remembers which row each region starts on,
+ * and when the same screen is shown again it moves the cursor to the regions that changed and rewrites
+ * only those, then erases whatever was printed below the screen. If the terminal may have scrolled since
+ * (more rows printed than LINES, or 24), or a region's height changed, it redraws from there down instead.
+ */
+
+public class ConsoleOutput implements OutputSink {
+    private static final String CLEAR_SCREEN = "\033[H\033[2J";
+    private static final String ERASE_LINE = "\033[2K";
+    private static final String ERASE_BELOW = "\033[J"; // from the cursor to the end of the screen
+    private static final int ROWS = sizeFromEnvironment("LINES", 24);
+    private static final int COLUMNS = sizeFromEnvironment("COLUMNS", 80);
+
+    private final PrintStream out;
+    private final StringBuilder buffer;
+    private String lastColor;
+
+    // the screen at the top of the terminal, if there is one
+    private Screen shownScreen;
+    private String[] shownTexts;
+    private int[] startRows;
+    private int[] heights;
+    private int endRow;
+    private int endColumn;
+    private int rowsBelow; // rows printed under the screen since, counting the player's typing
+    private int column; // where the last of that text ended, from 0
+    private boolean cleared; // the screen will be wiped at the next flush
+
+    public ConsoleOutput() {
+        this(System.out);
+    }
+
+    public ConsoleOutput(PrintStream out) {
+        this.out = out;
+        buffer = new StringBuilder(1024);
+        lastColor = Colors.RESET;
+    }
+
+    public void addTextToWindow(String text, TextColor color) {
+        setColor(color);
+        buffer.append(text);
+        if (shownScreen != null) {
+            countRowsBelow(text);
+        }
+    }
+
+    public void clear() {
+        buffer.setLength(0); // anything not yet shown would be wiped anyway
+        lastColor = Colors.RESET; // along with any color it set, so the terminal is back to where the last flush left it
+        buffer.append(CLEAR_SCREEN);
+        cleared = true;
+    }
+
+    public void showScreen(Screen screen) {
+        buffer.setLength(0);
+        lastColor = Colors.RESET;
+        cleared = false;
+        if (screen == shownScreen && endRow + rowsBelow < ROWS) {
+            updateScreen(screen);
+        } else {
+            buffer.append(CLEAR_SCREEN);
+            shownScreen = screen;
+            shownTexts = new String[screen.getRegionCount()];
+            startRows = new int[shownTexts.length];
+            heights = new int[shownTexts.length];
+            drawRegions(screen, 0, 1);
+        }
+        rowsBelow = 0;
+        column = endColumn - 1;
+    }
+
+    public void flush() {
+        if (cleared) {
+            shownScreen = null;
+            cleared = false;
+        }
+        if (shownScreen != null) {
+            rowsBelow++; // the player's answer will be echoed, and the cursor goes to the next line
+            column = 0;
+        }
+        if (buffer.length() == 0) {
+            return;
+        }
+        buffer.append(Colors.RESET);
+        lastColor = Colors.RESET;
+        out.print(buffer);
+        out.flush();
+        buffer.setLength(0);
+    }
+
+    /**
+     * Rewrites the regions of the screen on the terminal that have changed, then erases everything below it.
+     * A region whose height changed moves everything under it, so the rest of the screen is redrawn from there.
+     *
+     * @param screen The screen that is already on the terminal.
+     */
+    private void updateScreen(Screen screen) {
+        for (int i = 0; i < shownTexts.length; i++) {
+            String text = screen.getText(i);
+            if (text.equals(shownTexts[i])) {
+                continue;
+            }
+            if (rowsOf(text, 0, text.length()) != heights[i]) {
+                moveTo(startRows[i], 1);
+                buffer.append(ERASE_BELOW);
+                drawRegions(screen, i, startRows[i]);
+                return;
+            }
+            for (int row = 0; row < heights[i]; row++) {
+                moveTo(startRows[i] + row, 1);
+                buffer.append(ERASE_LINE);
+            }
+            moveTo(startRows[i], 1);
+            setColor(screen.getColor(i));
+            buffer.append(text);
+            shownTexts[i] = text;
+        }
+        moveTo(endRow, endColumn);
+        buffer.append(ERASE_BELOW);
+    }
+
+    /**
+     * Writes regions of a screen one after the other, starting with the cursor at the start of the first one.
+     *
+     * @param screen The screen.
+     * @param from The first region to write.
+     * @param row The row the cursor is on.
+     */
+    private void drawRegions(Screen screen, int from, int row) {
+        for (int i = from; i < shownTexts.length; i++) {
+            String text = screen.getText(i);
+            if (i > from) {
+                buffer.append('\n');
+                row += heights[i - 1];
+            }
+            setColor(screen.getColor(i));
+            buffer.append(text);
+            shownTexts[i] = text;
+            startRows[i] = row;
+            heights[i] = rowsOf(text, 0, text.length());
+        }
+        int last = shownTexts.length - 1;
+        String text = shownTexts[last];
+        int lineStart = text.lastIndexOf('\n') + 1;
+        int lastLineRows = rowsOf(text, lineStart, text.length());
+        endRow = startRows[last] + heights[last] - 1;
+        endColumn = text.length() - lineStart - (lastLineRows - 1) * COLUMNS + 1;
+    }
+
+    /**
+     * Keeps track of how far text printed under the screen has moved the cursor down.
+     *
+     * @param text The text printed.
+     */
+    private void countRowsBelow(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') {
+                rowsBelow++;
+                column = 0;
+            } else if (++column > COLUMNS) {
+                rowsBelow++;
+                column = 1;
+            }
+        }
+    }
+
+    private void setColor(TextColor color) {
+        String ansi = toAnsi(color);
+        if (!ansi.equals(lastColor)) {
+            buffer.append(ansi);
+            lastColor = ansi;
+        }
+    }
+
+    private void moveTo(int row, int column) {
+        buffer.append("\033[").append(row).append(';').append(column).append('H');
+    }
+
+    /**
+     * Counts the rows some text takes up on the terminal, including lines too long for it that wrap.
+     *
+     * @param text The text.
+     * @param from Where to start counting.
+     * @param to Where to stop.
+     * @return The number of rows, at least 1.
+     */
+    private static int rowsOf(String text, int from, int to) {
+        int rows = 0;
+        int lineStart = from;
+        for (int i = from; i <= to; i++) {
+            if (i == to || text.charAt(i) == '\n') {
+                rows += Math.max(1, (i - lineStart + COLUMNS - 1) / COLUMNS);
+                lineStart = i + 1;
+            }
+        }
+        return rows;
+    }
+
+    private static int sizeFromEnvironment(String name, int otherwise) {
+        try {
+            String value = System.getenv(name);
+            return value == null ? otherwise : Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            return otherwise;
+        }
+    }
+
+    /**
+     * Picks the closest ANSI color for a Swing color.
+     * Black text is shown in the terminal's default color so it stays readable on dark backgrounds.
+     *
+     * @param color The color the game asked for.
+     * @return One of the escape codes in the Colors class.
+     */
+    private static String toAnsi(TextColor color) {
+        if (color == null || color.equals(TextColor.BLACK)) {
+            return Colors.RESET;
+        } else if (color.equals(TextColor.RED)) {
+            return Colors.RED;
+        } else if (color.equals(TextColor.GREEN)) {
+            return Colors.GREEN;
+        } else if (color.equals(TextColor.BLUE)) {
+            return Colors.BLUE;
+        } else if (color.equals(TextColor.CYAN)) {
+            return Colors.CYAN;
+        } else if (color.equals(TextColor.MAGENTA)) {
+            return Colors.PURPLE;
+        } else if (color.equals(TextColor.GRAY) || color.equals(TextColor.WHITE)) {
+            return Colors.WHITE;
+        } else {
+            return Colors.YELLOW;
+        }
+    }
+}
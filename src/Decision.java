@@ -0,0 +1,75 @@
+/**
+ * What a Policy wants to do on its turn: a menu action and, for the shop, the item and whether to take
+ * the price it is quoted. A Policy never has to make these per turn: every decision there is comes from
+ * a table built once, so deciding allocates nothing.
+ */
+
+public final class Decision {
+    private static final Decision[] PLAIN = new Decision[Action.count()];
+    private static final Decision[] BUYS = new Decision[ItemCatalog.size()];
+    private static final Decision[] SELLS = new Decision[ItemCatalog.size()];
+
+    static {
+        for (int i = 0; i < PLAIN.length; i++) {
+            PLAIN[i] = new Decision(Action.byOrdinal(i), null);
+        }
+        for (int id = 0; id < BUYS.length; id++) {
+            BUYS[id] = new Decision(Action.BUY, ItemCatalog.byId(id));
+            SELLS[id] = new Decision(Action.SELL, ItemCatalog.byId(id));
+        }
+    }
+
+    private final Action action;
+    private final Item item; // null unless the action is BUY or SELL
+
+    private Decision(Action action, Item item) {
+        this.action = action;
+        this.item = item;
+    }
+
+    /**
+     * @param action Any action. BUY and SELL without an item leave the shop without trading.
+     * @return The decision to take that action.
+     */
+    public static Decision of(Action action) {
+        return PLAIN[action.ordinal()];
+    }
+
+    /**
+     * @param item The item to buy.
+     * @return The decision to buy it at whatever price the shop asks.
+     */
+    public static Decision buy(Item item) {
+        return BUYS[item.getId()];
+    }
+
+    /**
+     * @param item The item to sell.
+     * @return The decision to sell it for whatever the shop offers.
+     */
+    public static Decision sell(Item item) {
+        return SELLS[item.getId()];
+    }
+
+    public Action getAction() {
+        return action;
+    }
+
+    /**
+     * @return The item to buy or sell, or null.
+     */
+    public Item getItem() {
+        return item;
+    }
+
+    /**
+     * @return Whether to say yes to the price; a decision only names an item it wants to trade.
+     */
+    public boolean accepts() {
+        return item != null;
+    }
+
+    public String toString() {
+        return item == null ? action.name() : action.name() + " " + item.getName();
+    }
+}
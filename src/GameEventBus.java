@@ -0,0 +1,151 @@
+/**
+ * Passes every event a game publishes on to each of its subscribers, in the order they subscribed.<p>
+ * A game has one bus, which Hunter, Town and Shop publish to. Subscribing is rare (when the game is set up),
+ * so it copies the array, and publishing is just a loop over it, which costs almost nothing with no subscribers.
+ */
+
+public class GameEventBus implements GameEventListener {
+    private GameEventListener[] listeners = new GameEventListener[0];
+
+    /**
+     * @param listener Who to tell about every event from now on.
+     */
+    public void subscribe(GameEventListener listener) {
+        GameEventListener[] more = new GameEventListener[listeners.length + 1];
+        System.arraycopy(listeners, 0, more, 0, listeners.length);
+        more[listeners.length] = listener;
+        listeners = more;
+    }
+
+    public void gameStarted(String name, String mode, long seed) {
+        for (GameEventListener listener : listeners) {
+            listener.gameStarted(name, mode, seed);
+        }
+    }
+
+    public void townEntered(long town, String terrain) {
+        for (GameEventListener listener : listeners) {
+            listener.townEntered(town, terrain);
+        }
+    }
+
+    public void turnEnded(String choice, long townRandomSeed) {
+        for (GameEventListener listener : listeners) {
+            listener.turnEnded(choice, townRandomSeed);
+        }
+    }
+
+    public void goldChanged(int amount) {
+        for (GameEventListener listener : listeners) {
+            listener.goldChanged(amount);
+        }
+    }
+
+    public void itemBought(int itemId, int price) {
+        for (GameEventListener listener : listeners) {
+            listener.itemBought(itemId, price);
+        }
+    }
+
+    public void itemSold(int itemId, int price) {
+        for (GameEventListener listener : listeners) {
+            listener.itemSold(itemId, price);
+        }
+    }
+
+    public void itemLost(int itemId) {
+        for (GameEventListener listener : listeners) {
+            listener.itemLost(itemId);
+        }
+    }
+
+    public void treasureFound(int treasure) {
+        for (GameEventListener listener : listeners) {
+            listener.treasureFound(treasure);
+        }
+    }
+
+    public void townLeft(boolean crossed) {
+        for (GameEventListener listener : listeners) {
+            listener.townLeft(crossed);
+        }
+    }
+
+    public void dugForGold(int gold) {
+        for (GameEventListener listener : listeners) {
+            listener.dugForGold(gold);
+        }
+    }
+
+    public void brawled(int gold) {
+        for (GameEventListener listener : listeners) {
+            listener.brawled(gold);
+        }
+    }
+
+    public void shopOpened(boolean buying) {
+        for (GameEventListener listener : listeners) {
+            listener.shopOpened(buying);
+        }
+    }
+
+    public void priceQuoted(String item, int price, boolean buying) {
+        for (GameEventListener listener : listeners) {
+            listener.priceQuoted(item, price, buying);
+        }
+    }
+
+    public void notStocked(boolean buying) {
+        for (GameEventListener listener : listeners) {
+            listener.notStocked(buying);
+        }
+    }
+
+    public void purchaseMade(String item, boolean free) {
+        for (GameEventListener listener : listeners) {
+            listener.purchaseMade(item, free);
+        }
+    }
+
+    public void purchaseRefused() {
+        for (GameEventListener listener : listeners) {
+            listener.purchaseRefused();
+        }
+    }
+
+    public void saleFinished(boolean sold) {
+        for (GameEventListener listener : listeners) {
+            listener.saleFinished(sold);
+        }
+    }
+
+    public void alreadySearched() {
+        for (GameEventListener listener : listeners) {
+            listener.alreadySearched();
+        }
+    }
+
+    public void terrainExplored() {
+        for (GameEventListener listener : listeners) {
+            listener.terrainExplored();
+        }
+    }
+
+    public void invalidChoice() {
+        for (GameEventListener listener : listeners) {
+            listener.invalidChoice();
+        }
+    }
+
+    public void gameWon() {
+        for (GameEventListener listener : listeners) {
+            listener.gameWon();
+        }
+    }
+
+    public void gameQuit() {
+        for (GameEventListener listener : listeners) {
+            listener.gameQuit();
+        }
+    }
+}
@@ -0,0 +1,157 @@
+/**
+ * Hears about everything that happens in a game, as it happens.<p>
+ * The game logic (Hunter, Town, Shop and TreasureHunter) never writes text itself; it publishes these
+ * events to its GameEventBus, and whoever is interested subscribes. The first group of events changes
+ * the game's state: JournalWriter saves them to a file and JournalReplay folds them back into a game.
+ * The second group only says what happened, so TextRenderer can tell the player; when nobody is
+ * watching there is no renderer, and none of the text is ever built. Every method does nothing unless overridden.
+ */
+
+public interface GameEventListener {
+    /** Listens to nothing. */
+    GameEventListener NONE = new GameEventListener() {
+    };
+
+    /**
+     * @param name The hunter's name.
+     * @param mode The mode the player picked ("e", "n", "h", "s" or "test").
+     * @param seed The game's seed.
+     */
+    default void gameStarted(String name, String mode, long seed) {
+    }
+
+    /**
+     * @param town The town's number on the road (see WorldMap).
+     * @param terrain The name of the town's terrain.
+     */
+    default void townEntered(long town, String terrain) {
+    }
+
+    /**
+     * @param choice What the player chose from the menu.
+     * @param townRandomSeed Where the town's random numbers have got to, so a replay can carry on from there.
+     */
+    default void turnEnded(String choice, long townRandomSeed) {
+    }
+
+    /**
+     * @param amount How much gold the hunter won (or lost, if negative).
+     */
+    default void goldChanged(int amount) {
+    }
+
+    /**
+     * @param itemId The item bought.
+     * @param price The price the shop asked (the hunter pays nothing once they have the sword).
+     */
+    default void itemBought(int itemId, int price) {
+    }
+
+    /**
+     * @param itemId The item sold.
+     * @param price What the shop paid for it.
+     */
+    default void itemSold(int itemId, int price) {
+    }
+
+    /**
+     * @param itemId The item that broke.
+     */
+    default void itemLost(int itemId) {
+    }
+
+    /**
+     * @param treasure The ordinal of the Treasure found, whether or not the hunter kept it.
+     */
+    default void treasureFound(int treasure) {
+    }
+
+    /**
+     * @param crossed Whether the hunter had the item needed to cross the terrain.
+     */
+    default void townLeft(boolean crossed) {
+    }
+
+    /**
+     * @param gold The gold dug up, 0 for only dirt.
+     */
+    default void dugForGold(int gold) {
+    }
+
+    /**
+     * @param gold The gold won (or lost, if negative) in a brawl; 0 if there was no trouble to be found.
+     */
+    default void brawled(int gold) {
+    }
+
+    // the rest of the events don't change anything, so they aren't journaled
+
+    /**
+     * @param buying true to buy, false to sell.
+     */
+    default void shopOpened(boolean buying) {
+    }
+
+    /**
+     * @param item The item the player asked about, as typed.
+     * @param price What the shop will charge for it, or pay for it.
+     * @param buying true if the player is buying.
+     */
+    default void priceQuoted(String item, int price, boolean buying) {
+    }
+
+    /**
+     * @param buying true if the player tried to buy, false if they tried to sell.
+     */
+    default void notStocked(boolean buying) {
+    }
+
+    /**
+     * @param item The item the player bought, as typed.
+     * @param free true if the sword scared the shopkeeper into giving it away.
+     */
+    default void purchaseMade(String item, boolean free) {
+    }
+
+    /**
+     * The hunter couldn't afford the item or already had one.
+     */
+    default void purchaseRefused() {
+    }
+
+    /**
+     * @param sold Whether the shop bought the item.
+     */
+    default void saleFinished(boolean sold) {
+    }
+
+    /**
+     * The hunter has already searched this town for treasure.
+     */
+    default void alreadySearched() {
+    }
+
+    /**
+     * The player looked at the terrain around the town.
+     */
+    default void terrainExplored() {
+    }
+
+    /**
+     * The player chose something that isn't on the menu.
+     */
+    default void invalidChoice() {
+    }
+
+    /**
+     * The hunter has all three treasures.
+     */
+    default void gameWon() {
+    }
+
+    /**
+     * The player gave up.
+     */
+    default void gameQuit() {
+    }
+}
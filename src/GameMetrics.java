@@ -0,0 +1,242 @@
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Counts what games are doing and times where each turn goes, across every game in the JVM.<p>
+ * Each turn (one processChoice) is split into compute time, render time (time spent handing text to
+ * the OutputSink) and time waiting for the player, which is left out of both. There are also counts of
+ * the gold won and lost, and of the inserts the Swing window makes.<p>
+ * Metrics are off unless the JVM is started with -Dtreasurehunter.metrics=true. ENABLED is a constant,
+ * so when it is false the JIT removes every metrics call and the game runs exactly as fast as before.
+ * When they are on, the metrics are registered with JMX, and -Dtreasurehunter.metrics.dump=N prints a
+ * report to standard error every N seconds.
+ */
+
+public class GameMetrics implements GameMetricsMXBean {
+    public static final boolean ENABLED = Boolean.getBoolean("treasurehunter.metrics");
+
+    private static final String ACTION_LETTERS = "bsemghldx";
+    private static final String[] ACTION_NAMES = {"buy", "sell", "explore", "move", "back", "hunt", "look", "dig", "exit", "other"};
+
+    private static final LongAdder[] ACTION_COUNTS = new LongAdder[ACTION_NAMES.length];
+    private static final LatencyHistogram[] COMPUTE_TIMES = new LatencyHistogram[ACTION_NAMES.length];
+    private static final LatencyHistogram[] RENDER_TIMES = new LatencyHistogram[ACTION_NAMES.length];
+    private static final LatencyHistogram FLUSH_TIMES = new LatencyHistogram();
+    private static final LatencyHistogram INPUT_WAITS = new LatencyHistogram();
+    private static final LatencyHistogram SWING_RENDERS = new LatencyHistogram();
+    private static final LongAdder GOLD_WON = new LongAdder();
+    private static final LongAdder GOLD_LOST = new LongAdder();
+    private static final LongAdder WINDOW_INSERTS = new LongAdder();
+    private static final LongAdder WINDOW_CHARS = new LongAdder();
+
+    static {
+        for (int i = 0; i < ACTION_NAMES.length; i++) {
+            ACTION_COUNTS[i] = new LongAdder();
+            COMPUTE_TIMES[i] = new LatencyHistogram();
+            RENDER_TIMES[i] = new LatencyHistogram();
+        }
+        if (ENABLED) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(new GameMetrics(),
+                        new ObjectName("treasurehunter:type=GameMetrics"));
+            } catch (JMException e) {
+                System.err.println("Metrics are not available over JMX: " + e.getMessage());
+            }
+            long seconds = Long.getLong("treasurehunter.metrics.dump", 0);
+            if (seconds > 0) {
+                startDumping(seconds);
+            }
+        }
+    }
+
+    private GameMetrics() {
+    }
+
+    /**
+     * Counts one turn.
+     *
+     * @param choice What the player chose.
+     * @param computeNanos Time spent in the game's own logic.
+     * @param renderNanos Time spent handing text to the OutputSink.
+     */
+    public static void recordTurn(String choice, long computeNanos, long renderNanos) {
+        int action = actionIndex(choice);
+        ACTION_COUNTS[action].increment();
+        COMPUTE_TIMES[action].record(computeNanos);
+        RENDER_TIMES[action].record(renderNanos);
+    }
+
+    /**
+     * @param nanos How long one flush of the OutputSink took (each flush shows one frame).
+     */
+    public static void recordFlush(long nanos) {
+        FLUSH_TIMES.record(nanos);
+    }
+
+    /**
+     * @param nanos How long the game waited for one line of input.
+     */
+    public static void recordInputWait(long nanos) {
+        INPUT_WAITS.record(nanos);
+    }
+
+    /**
+     * @param amount A change to a hunter's gold, from Hunter.changeGold.
+     */
+    public static void recordGold(int amount) {
+        if (amount > 0) {
+            GOLD_WON.add(amount);
+        } else {
+            GOLD_LOST.add(-amount);
+        }
+    }
+
+    /**
+     * @param chars The length of one insert into the Swing window's document.
+     */
+    public static void recordWindowInsert(int chars) {
+        WINDOW_INSERTS.increment();
+        WINDOW_CHARS.add(chars);
+    }
+
+    /**
+     * @param nanos How long the Swing window took to apply one frame on the event dispatch thread.
+     */
+    public static void recordSwingRender(long nanos) {
+        SWING_RENDERS.record(nanos);
+    }
+
+    /**
+     * @return A table of everything counted so far.
+     */
+    public static String report() {
+        StringBuilder out = new StringBuilder(1024);
+        out.append(String.format("%-8s %9s %26s %26s%n", "action", "count", "compute us p50/p99/max", "render us p50/p99/max"));
+        for (int i = 0; i < ACTION_NAMES.length; i++) {
+            long count = ACTION_COUNTS[i].sum();
+            if (count > 0) {
+                out.append(String.format("%-8s %9d %26s %26s%n", ACTION_NAMES[i], count,
+                        summary(COMPUTE_TIMES[i]), summary(RENDER_TIMES[i])));
+            }
+        }
+        out.append(String.format("flushes %d, us p50/p99/max %s%n", FLUSH_TIMES.getCount(), summary(FLUSH_TIMES)));
+        out.append(String.format("input waits %d, ms p50/p99 %.1f/%.1f%n", INPUT_WAITS.getCount(),
+                INPUT_WAITS.getValueAtPercentile(50) / 1e6, INPUT_WAITS.getValueAtPercentile(99) / 1e6));
+        out.append(String.format("gold won %d, lost %d%n", GOLD_WON.sum(), GOLD_LOST.sum()));
+        if (SWING_RENDERS.getCount() > 0) {
+            out.append(String.format("window frames %d, us p50/p99/max %s, inserts %d (%d chars)%n",
+                    SWING_RENDERS.getCount(), summary(SWING_RENDERS), WINDOW_INSERTS.sum(), WINDOW_CHARS.sum()));
+        }
+        return out.toString();
+    }
+
+    /**
+     * Prints report() to standard error every so often, on a daemon thread.
+     *
+     * @param seconds How long to wait between reports.
+     */
+    public static void startDumping(long seconds) {
+        Thread dumper = new Thread(() -> {
+            while (true) {
+                try {
+                    Thread.sleep(seconds * 1000);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                System.err.print(report());
+            }
+        }, "metrics-dump");
+        dumper.setDaemon(true);
+        dumper.start();
+    }
+
+    private static int actionIndex(String choice) {
+        if (choice.length() == 1) {
+            int index = ACTION_LETTERS.indexOf(choice.charAt(0));
+            if (index >= 0) {
+                return index;
+            }
+        }
+        return ACTION_NAMES.length - 1;
+    }
+
+    private static String summary(LatencyHistogram histogram) {
+        return String.format("%.1f/%.1f/%.1f", histogram.getValueAtPercentile(50) / 1e3,
+                histogram.getValueAtPercentile(99) / 1e3, histogram.getValueAtPercentile(100) / 1e3);
+    }
+
+    private static Map<String, Double> percentiles(LatencyHistogram[] histograms, double percentile) {
+        Map<String, Double> values = new LinkedHashMap<>();
+        for (int i = 0; i < ACTION_NAMES.length; i++) {
+            values.put(ACTION_NAMES[i], histograms[i].getValueAtPercentile(percentile) / 1e3);
+        }
+        return values;
+    }
+
+    public Map<String, Long> getActionCounts() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (int i = 0; i < ACTION_NAMES.length; i++) {
+            counts.put(ACTION_NAMES[i], ACTION_COUNTS[i].sum());
+        }
+        return counts;
+    }
+
+    public Map<String, Double> getComputeMicrosP50() {
+        return percentiles(COMPUTE_TIMES, 50);
+    }
+
+    public Map<String, Double> getComputeMicrosP99() {
+        return percentiles(COMPUTE_TIMES, 99);
+    }
+
+    public Map<String, Double> getRenderMicrosP99() {
+        return percentiles(RENDER_TIMES, 99);
+    }
+
+    public double getFlushMicrosP99() {
+        return FLUSH_TIMES.getValueAtPercentile(99) / 1e3;
+    }
+
+    public double getInputWaitMillisP50() {
+        return INPUT_WAITS.getValueAtPercentile(50) / 1e6;
+    }
+
+    public long getGoldWon() {
+        return GOLD_WON.sum();
+    }
+
+    public long getGoldLost() {
+        return GOLD_LOST.sum();
+    }
+
+    public long getWindowInserts() {
+        return WINDOW_INSERTS.sum();
+    }
+
+    public long getWindowInsertedChars() {
+        return WINDOW_CHARS.sum();
+    }
+
+    public String getReport() {
+        return report();
+    }
+
+    public void reset() {
+        for (int i = 0; i < ACTION_NAMES.length; i++) {
+            ACTION_COUNTS[i].reset();
+            COMPUTE_TIMES[i].reset();
+            RENDER_TIMES[i].reset();
+        }
+        FLUSH_TIMES.reset();
+        INPUT_WAITS.reset();
+        SWING_RENDERS.reset();
+        GOLD_WON.reset();
+        GOLD_LOST.reset();
+        WINDOW_INSERTS.reset();
+        WINDOW_CHARS.reset();
+    }
+}
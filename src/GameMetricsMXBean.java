@@ -0,0 +1,38 @@
+import java.util.Map;
+
+/**
+ * What GameMetrics shows over JMX (for example in JConsole, under treasurehunter:type=GameMetrics).
+ * Times are in microseconds; the maps are keyed by action name.
+ */
+
+public interface GameMetricsMXBean {
+    Map<String, Long> getActionCounts();
+
+    Map<String, Double> getComputeMicrosP50();
+
+    Map<String, Double> getComputeMicrosP99();
+
+    Map<String, Double> getRenderMicrosP99();
+
+    double getFlushMicrosP99();
+
+    double getInputWaitMillisP50();
+
+    long getGoldWon();
+
+    long getGoldLost();
+
+    long getWindowInserts();
+
+    long getWindowInsertedChars();
+
+    /**
+     * @return The same text as the periodic dump.
+     */
+    String getReport();
+
+    /**
+     * Starts counting again from zero.
+     */
+    void reset();
+}
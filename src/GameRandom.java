@@ -0,0 +1,125 @@
+/**
+ * The game's source of random numbers.<p>
+ * This is the same SplitMix64 generator as java.util.SplittableRandom (a seeded GameRandom gives
+ * exactly the same numbers), but its state is two longs that can be read back and restored,
+ * which is what lets a saved game carry on with the same luck it would have had.
+ * A GameRandom is not thread safe; every game and every town has its own.
+ */
+
+public class GameRandom {
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private long seed;
+    private long gamma; // always odd
+
+    public GameRandom(long seed) {
+        this(seed, GOLDEN_GAMMA);
+    }
+
+    /**
+     * Recreates a generator from a saved state.
+     *
+     * @param seed The value of getSeed() when it was saved.
+     * @param gamma The value of getGamma() when it was saved.
+     */
+    public GameRandom(long seed, long gamma) {
+        this.seed = seed;
+        this.gamma = gamma;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public long getGamma() {
+        return gamma;
+    }
+
+    /**
+     * Makes a new, independent generator and advances this one.
+     *
+     * @return The new generator.
+     */
+    public GameRandom split() {
+        return new GameRandom(nextLong(), mixGamma(nextSeed()));
+    }
+
+    /**
+     * The same as split(), but re-seeds a generator that is no longer needed instead of making a new one.
+     *
+     * @param into The generator to re-seed; it ends up exactly like the one split() would have made.
+     */
+    public void split(GameRandom into) {
+        long newSeed = nextLong();
+        into.gamma = mixGamma(nextSeed());
+        into.seed = newSeed;
+    }
+
+    /**
+     * The same as split(into) after this generator had already split count times, but without changing
+     * this one. Each split moves a SplitMix generator the same fixed step, so this takes no longer for
+     * a large count than for a small one.
+     *
+     * @param count How many splits to skip (negative counts step back).
+     * @param into The generator to re-seed.
+     */
+    public void split(long count, GameRandom into) {
+        long at = seed + 2 * count * gamma;
+        into.seed = mix64(at + gamma);
+        into.gamma = mixGamma(at + 2 * gamma);
+    }
+
+    public long nextLong() {
+        return mix64(nextSeed());
+    }
+
+    public int nextInt() {
+        return mix32(nextSeed());
+    }
+
+    /**
+     * @param bound The upper bound (exclusive), must be positive.
+     * @return A number from 0 to bound - 1.
+     */
+    public int nextInt(int bound) {
+        int r = nextInt();
+        int m = bound - 1;
+        if ((bound & m) == 0) { // a power of two
+            return r & m;
+        }
+        for (int u = r >>> 1; u + m - (r = u % bound) < 0; u = nextInt() >>> 1) {
+            // reject the few values that would make the low numbers more likely
+        }
+        return r;
+    }
+
+    /**
+     * @return A number from 0 (inclusive) to 1 (exclusive).
+     */
+    public double nextDouble() {
+        return (nextLong() >>> 11) * 0x1.0p-53;
+    }
+
+    private long nextSeed() {
+        return seed += gamma;
+    }
+
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private static int mix32(long z) {
+        z = (z ^ (z >>> 33)) * 0x62a9d9ed799705f5L;
+        return (int) (((z ^ (z >>> 28)) * 0xcb24d0a5c88c35b3L) >>> 32);
+    }
+
+    private static long mixGamma(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        z = (z ^ (z >>> 33)) | 1L;
+        int n = Long.bitCount(z ^ (z >>> 1));
+        return (n < 24) ? z ^ 0xaaaaaaaaaaaaaaaaL : z;
+    }
+}
@@ -0,0 +1,331 @@
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hosts many independent games over TCP, one per connection.<p>
+ * The protocol is line based: the client sends one command per line (the same things a player
+ * types), and after each answer the server sends the game's text followed by a line holding only
+ * ProtocolOutput.END_OF_FRAME. The "Press enter to continue" pauses are skipped.
+ * Each session has its own TreasureHunter, Hunter and Town (the Shops are shared) and runs on its own virtual
+ * thread (on Java 21+), so an idle session costs little more than its game objects and buffers.<p>
+ * With a snapshot store, each session is first given a save code (or can type an old one to resume).
+ * If the client hangs up in the middle of a game, the game is saved under its code; saves are
+ * committed to disk together once a second.<p>
+ * With a journal, every session's events are journaled too (group committed once a second), and a
+ * code with no saved game is looked up in the journal, so games cut off by a server crash can be resumed.<p>
+ * With a leaderboard, every game that ends (rather than being saved for later) is submitted to it.<p>
+ * With a trace file, every new game's input is recorded in it when the session ends (see TraceReplay);
+ * resumed games aren't, since they didn't start from their seed.<p>
+ *
+ * Usage: java GameServer [port] [--store FILE] [--journal FILE] [--leaderboard FILE] [--trace FILE]
+ */
+
+public class GameServer {
+    public static final int DEFAULT_PORT = 4545;
+    private static final int READ_BUFFER_CHARS = 256; // commands are a few characters long
+    private static final int WRITE_BUFFER_BYTES = 1024;
+
+    public static final String SAVE_PROMPT = "Type a save code to resume a game, or press enter for a new one: ";
+
+    private final int port;
+    private final SnapshotStore store; // null if games aren't saved
+    private final JournalWriter journal; // null if games aren't journaled
+    private final Leaderboard leaderboard; // null if finished games aren't ranked
+    private final TraceWriter traces; // null if sessions aren't recorded
+    private final AtomicInteger activeSessions;
+    private final SplittableRandom seeds; // only used by the accepting thread
+    private volatile ServerSocket serverSocket;
+
+    /**
+     * @param port The TCP port to listen on.
+     * @param store Where to save unfinished games, or null to not save them.
+     * @param journal Where to journal every game's events, or null to not journal them.
+     * @param leaderboard Where to submit every finished game, or null to not rank them.
+     * @param traces Where to record every new game's input, or null to not record them.
+     */
+    public GameServer(int port, SnapshotStore store, JournalWriter journal, Leaderboard leaderboard, TraceWriter traces) {
+        this.port = port;
+        this.store = store;
+        this.journal = journal;
+        this.leaderboard = leaderboard;
+        this.traces = traces;
+        activeSessions = new AtomicInteger();
+        seeds = new SplittableRandom();
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = DEFAULT_PORT;
+        SnapshotStore store = null;
+        JournalWriter journal = null;
+        Leaderboard leaderboard = null;
+        TraceWriter traces = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--store") && i + 1 < args.length) {
+                store = SnapshotStore.open(Path.of(args[++i]));
+            } else if (args[i].equals("--journal") && i + 1 < args.length) {
+                journal = JournalWriter.open(Path.of(args[++i]));
+            } else if (args[i].equals("--leaderboard") && i + 1 < args.length) {
+                leaderboard = Leaderboard.open(Path.of(args[++i]));
+            } else if (args[i].equals("--trace") && i + 1 < args.length) {
+                traces = TraceWriter.open(Path.of(args[++i]));
+            } else {
+                port = Integer.parseInt(args[i]);
+            }
+        }
+        GameServer server = new GameServer(port, store, journal, leaderboard, traces);
+        System.out.println("Treasure Hunter server on port " + port
+                + (VirtualThreads.available() ? " (virtual threads)" : " (platform threads)"));
+        Thread status = new Thread(() -> {
+            Runtime runtime = Runtime.getRuntime();
+            while (true) {
+                try {
+                    Thread.sleep(10_000);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                long usedKb = (runtime.totalMemory() - runtime.freeMemory()) / 1024;
+                System.out.println(server.getActiveSessions() + " sessions, " + usedKb + " KB heap in use");
+            }
+        }, "server-status");
+        status.setDaemon(true);
+        status.start();
+        if (store != null || journal != null) {
+            Thread committer = new Thread(() -> {
+                while (true) {
+                    try {
+                        Thread.sleep(1000);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    server.commit(); // one fsync for everything saved in the last second
+                }
+            }, "snapshot-commit");
+            committer.setDaemon(true);
+            committer.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(server::commit));
+        }
+        if (leaderboard != null) {
+            Leaderboard board = leaderboard;
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    board.close(); // writes out any results still queued
+                } catch (IOException e) {
+                    System.out.println("Leaderboard failed: " + e.getMessage());
+                }
+            }));
+        }
+        if (traces != null) {
+            TraceWriter traceFile = traces;
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    traceFile.close();
+                } catch (IOException e) {
+                    System.out.println("Trace file failed: " + e.getMessage());
+                }
+            }));
+        }
+        server.serve();
+    }
+
+    /**
+     * Forces the saved games and the journal to disk.
+     */
+    public void commit() {
+        if (store != null) {
+            store.commit();
+        }
+        if (journal != null) {
+            try {
+                journal.commit();
+            } catch (IOException e) {
+                System.out.println("Journal failed: " + e.getMessage());
+            }
+        }
+    }
+
+    public int getActiveSessions() {
+        return activeSessions.get();
+    }
+
+    /**
+     * Accepts connections until stop() is called, starting a game for each one.
+     *
+     * @throws IOException if the port can't be opened.
+     */
+    public void serve() throws IOException {
+        ExecutorService sessions = VirtualThreads.newExecutor();
+        try (ServerSocket server = new ServerSocket(port, 4096)) {
+            serverSocket = server;
+            while (!server.isClosed()) {
+                Socket socket;
+                try {
+                    socket = server.accept();
+                } catch (IOException e) {
+                    if (server.isClosed()) {
+                        break; // stop() was called
+                    }
+                    throw e;
+                }
+                long seed = seeds.nextLong();
+                String code = Long.toHexString(seeds.nextLong() >>> 24);
+                sessions.execute(() -> runSession(socket, seed, code));
+            }
+        } finally {
+            sessions.shutdown(); // games in progress are left to finish
+        }
+    }
+
+    public void stop() throws IOException {
+        ServerSocket server = serverSocket;
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    /**
+     * Plays one game with a connected client, then hangs up.
+     */
+    private void runSession(Socket socket, long seed, String code) {
+        activeSessions.incrementAndGet();
+        try (Socket client = socket) {
+            client.setTcpNoDelay(true); // every frame is a reply someone is waiting for
+            BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(client.getInputStream(), StandardCharsets.UTF_8), READ_BUFFER_CHARS);
+            ProtocolOutput output = new ProtocolOutput(new BufferedOutputStream(client.getOutputStream(), WRITE_BUFFER_BYTES));
+            LineInput input = new LineInput(reader, true);
+            if (store == null && journal == null) {
+                TraceRecorder recorder = traces == null ? null : new TraceRecorder(input);
+                try (TreasureHunter game = new TreasureHunter(output, recorder == null ? input : recorder, seed)) {
+                    game.play();
+                    record(recorder, game);
+                    submit(game);
+                }
+            } else {
+                playSaved(output, input, seed, code);
+            }
+        } catch (IOException e) {
+            // the client went away; nothing to clean up beyond closing the socket
+        } finally {
+            activeSessions.decrementAndGet();
+        }
+    }
+
+    /**
+     * Plays a game that can be saved: offers to resume an old game, and saves this one if the client
+     * disappears before it is over.
+     */
+    private void playSaved(ProtocolOutput output, LineInput input, long seed, String code) throws IOException {
+        output.addTextToWindow("Your save code is " + code + "\n" + SAVE_PROMPT, TextColor.BLACK);
+        output.flush();
+        String answer = input.nextLine();
+        if (answer == null) {
+            return;
+        }
+        answer = answer.trim();
+        TreasureHunter game = null;
+        if (!answer.isEmpty()) {
+            byte[] snapshot = findSavedGame(answer);
+            if (snapshot == null) {
+                output.addTextToWindow("There is no saved game with that code, so here's a new one.\n", TextColor.RED);
+            } else {
+                game = GameSnapshot.load(snapshot, output, input);
+                code = answer;
+                output.addTextToWindow("Welcome back!\n", TextColor.GREEN);
+            }
+        }
+        boolean resumed = game != null;
+        TraceRecorder recorder = null;
+        if (!resumed) {
+            recorder = traces == null ? null : new TraceRecorder(input);
+            game = new TreasureHunter(output, recorder == null ? input : recorder, seed);
+        }
+        try {
+            if (journal != null) {
+                game.subscribe(journal.session(sessionNumber(code)));
+            }
+            if (resumed) {
+                game.resume();
+            } else {
+                game.play();
+            }
+            record(recorder, game);
+
+            if (store != null) {
+                if (input.hasEnded() && !game.isOver()) {
+                    store.put(code, GameSnapshot.save(game));
+                    return; // not finished, so it isn't ranked yet
+                }
+                store.remove(code);
+            }
+            submit(game);
+        } finally {
+            game.close(); // the session is over either way
+        }
+    }
+
+    /**
+     * Adds a new game's session to the trace file, if sessions are being recorded.
+     *
+     * @param recorder The game's recorder, or null if it wasn't recorded.
+     */
+    private void record(TraceRecorder recorder, TreasureHunter game) {
+        if (recorder != null) {
+            traces.add(recorder.finish(game));
+        }
+    }
+
+    /**
+     * Puts a game that has ended on the leaderboard, if there is one. This doesn't wait for the disk.
+     */
+    private void submit(TreasureHunter game) {
+        if (leaderboard != null && game.getHunter() != null) {
+            leaderboard.submit(RunResult.of(game));
+        }
+    }
+
+    /**
+     * Looks for a game to resume, first in the snapshot store and then in the journal.
+     *
+     * @param code The save code the player typed.
+     * @return A snapshot of the game, or null if there's no unfinished game with that code.
+     */
+    private byte[] findSavedGame(String code) throws IOException {
+        if (store != null) {
+            byte[] snapshot = store.get(code);
+            if (snapshot != null) {
+                return snapshot;
+            }
+        }
+        long session = sessionNumber(code);
+        if (journal == null || session < 0) {
+            return null;
+        }
+        try (TreasureHunter game = JournalReplay.recover(journal, session)) {
+            if (game == null || game.isOver()) {
+                return null;
+            }
+            return GameSnapshot.save(game);
+        }
+    }
+
+    /**
+     * @param code A save code, which is a hex number.
+     * @return The code's number, which is its game's session number in the journal, or -1 if it isn't a code.
+     */
+    private static long sessionNumber(String code) {
+        try {
+            return Long.parseLong(code, 16);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
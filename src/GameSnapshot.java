@@ -0,0 +1,68 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Turns a whole game into bytes and back.<p>
+ * The layout is a small hand-written binary format (not Java serialization):
+ * <pre>
+ * int   magic "THSV"       short version
+ * byte  mode flags         long  game seed        long, long  game random state
+ * hunter: UTF name, int gold, byte flags, kit slots, treasure slots (see Hunter.writeTo)
+ * long  town number
+ * town:   UTF terrain, byte flags, UTF news, long, long random state, int shop count (see Town.writeTo)
+ * towns left behind: boolean true, long town number, a WorldMap record, ... boolean false
+ * int   turns taken
+ * </pre>
+ * Items are saved by their position in items.txt, so new items must be added at the end of that file.
+ * A typical snapshot is around 100 bytes, plus 31 for each town the hunter has left.
+ * Only snapshots of this exact version are read; anything else is refused.
+ */
+
+public class GameSnapshot {
+    private static final int MAGIC = 0x54485356; // "THSV"
+    private static final short VERSION = 1;
+
+    private GameSnapshot() {
+    }
+
+    /**
+     * @param game A game that has started (the hunter is in a town).
+     * @return The snapshot.
+     */
+    public static byte[] save(TreasureHunter game) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            game.writeTo(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // a ByteArrayOutputStream never fails
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Rebuilds a game from a snapshot. Call resume() on it to carry on playing.
+     *
+     * @param snapshot Bytes made by save().
+     * @param window Where the game's text should go.
+     * @param input Where the player's answers should come from.
+     * @return The game.
+     * @throws IOException if the bytes aren't a snapshot this version can read.
+     */
+    public static TreasureHunter load(byte[] snapshot, OutputSink window, InputSource input) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(snapshot));
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a Treasure Hunter snapshot");
+        }
+        short version = in.readShort();
+        if (version != VERSION) {
+            throw new IOException("Unsupported snapshot version " + version);
+        }
+        return TreasureHunter.readFrom(in, window, input);
+    }
+}
@@ -0,0 +1,59 @@
+/**
+ * Changes to the numbers that decide how hard a mode is, for trying out a different balance in simulations
+ * (see ParameterSweep): how likely towns are to be tough, how much a shop pays back, the starting gold,
+ * and the item prices. Anything left unset keeps the mode's own value.<p>
+ * Snapshots and journals don't record a game's tuning, so it is only meant for games nobody saves.
+ */
+
+public final class GameTuning {
+    /**
+     * The game as it ships: every mode keeps its own numbers.
+     */
+    public static final GameTuning STANDARD = new GameTuning(-1, -1, -1, 1);
+
+    private final double toughness;
+    private final double markdown;
+    private final int startingGold;
+    private final double priceScale;
+
+    /**
+     * @param toughness The chance a new town is a tough one, or -1 to keep the mode's.
+     * @param markdown The part of an item's price a shop pays back, or -1 to keep the mode's.
+     * @param startingGold The gold the hunter starts with, or -1 to keep the mode's.
+     * @param priceScale What every item's price is multiplied by (1 keeps the catalog's prices).
+     */
+    public GameTuning(double toughness, double markdown, int startingGold, double priceScale) {
+        this.toughness = toughness;
+        this.markdown = markdown;
+        this.startingGold = startingGold;
+        this.priceScale = priceScale;
+    }
+
+    public double getToughness() {
+        return toughness;
+    }
+
+    public double getMarkdown() {
+        return markdown;
+    }
+
+    public int getStartingGold() {
+        return startingGold;
+    }
+
+    public double getPriceScale() {
+        return priceScale;
+    }
+
+    /**
+     * @return true if a game with this tuning needs a shop of its own instead of its mode's shared one.
+     */
+    public boolean changesShop() {
+        return markdown >= 0 || priceScale != 1;
+    }
+
+    public String toString() {
+        return "toughness " + toughness + ", markdown " + markdown + ", starting gold " + startingGold
+                + ", prices x" + priceScale;
+    }
+}
@@ -0,0 +1,172 @@
+/**
+ * What a Policy can see of a game: the hunter's gold, kit and treasures, the town they're in and
+ * what they could usefully do there.<p>
+ * There is one view per game, made the first time it's asked for, and it reads straight from the game
+ * as it is now, so looking at it never allocates or builds any text. Nothing on it changes the game;
+ * the only way to play is to hand a Decision to TreasureHunter.processChoice(Decision).
+ */
+
+public final class GameView {
+    private final TreasureHunter game;
+
+    GameView(TreasureHunter game) {
+        this.game = game;
+    }
+
+    public int getGold() {
+        return game.getHunter().getGold();
+    }
+
+    /**
+     * @return The kit as a bit mask, bit i for the item with id i (see ItemCatalog.byId()).
+     */
+    public long getKit() {
+        return game.getHunter().getKitMask();
+    }
+
+    public boolean hasItem(Item item) {
+        return game.getHunter().hasItemInKit(item);
+    }
+
+    public boolean hasSword() {
+        return game.getHunter().getHasSword();
+    }
+
+    /**
+     * @return How many of the three treasures the hunter has found.
+     */
+    public int getTreasureCount() {
+        return game.getHunter().getTreasureCount();
+    }
+
+    public boolean hasTreasure(Treasure treasure) {
+        return game.getHunter().hasItemInTreasure(treasure);
+    }
+
+    public Terrain getTerrain() {
+        return game.getCurrentTown().getTerrain();
+    }
+
+    /**
+     * @return Whether the hunter has the item the terrain around this town needs.
+     */
+    public boolean canLeave() {
+        return game.getCurrentTown().getTerrain().canCrossTerrain(game.getHunter());
+    }
+
+    public boolean isSearched() {
+        return game.getHunter().getIsSearched();
+    }
+
+    public boolean isDug() {
+        return game.getCurrentTown().getDug();
+    }
+
+    public boolean isTough() {
+        return game.getCurrentTown().getToughTown();
+    }
+
+    /**
+     * @return Whether the game is over, won or lost.
+     */
+    public boolean isOver() {
+        return game.isOver();
+    }
+
+    public boolean isSamuraiMode() {
+        return game.getIsSamuraiMode();
+    }
+
+    /**
+     * @return "easy", "normal", "hard" or "samurai".
+     */
+    public String getModeName() {
+        return game.getModeName();
+    }
+
+    /**
+     * @return The game's seed.
+     */
+    public long getSeed() {
+        return game.getSeed();
+    }
+
+    public long getTownNumber() {
+        return game.getTownNumber();
+    }
+
+    public int getTurns() {
+        return game.getTurns();
+    }
+
+    /**
+     * @return What this town's shop sells the item for, or 0 if it doesn't sell it.
+     */
+    public int getPrice(Item item) {
+        Shop shop = game.getCurrentTown().getShop();
+        return shop.sells(item) ? shop.getCostOfItem(item) : 0;
+    }
+
+    /**
+     * @return What this town's shop would pay for the item.
+     */
+    public int getSellPrice(Item item) {
+        return game.getCurrentTown().getShop().getBuyBackCost(item);
+    }
+
+    /**
+     * @return Whether the hunter could buy the item here now: the shop sells it, they don't have it,
+     * and they can pay (or have the sword, which makes everything free).
+     */
+    public boolean canBuy(Item item) {
+        Hunter hunter = game.getHunter();
+        Shop shop = game.getCurrentTown().getShop();
+        if (!shop.sells(item) || hunter.hasItemInKit(item)) {
+            return false;
+        }
+        int price = shop.getCostOfItem(item);
+        if (price == 0) {
+            return item == ItemCatalog.SWORD;
+        }
+        return hunter.getHasSword() || hunter.getGold() >= price;
+    }
+
+    /**
+     * Works out which actions would do something: buying needs something the hunter can buy, selling
+     * something to sell, moving on or going back the item the terrain needs, hunting a town not searched
+     * yet and digging a shovel and a town not dug yet. Exploring, looking for trouble and quitting can
+     * always be done.
+     *
+     * @return A mask of Action.bit() for every action that would do something.
+     */
+    public int getAvailableActions() {
+        int actions = Action.EXPLORE.bit() | Action.TROUBLE.bit() | Action.QUIT.bit();
+        long kit = getKit();
+        for (int id = 0; id < ItemCatalog.size(); id++) {
+            Item item = ItemCatalog.byId(id);
+            if (canBuy(item)) {
+                actions |= Action.BUY.bit();
+            }
+            if ((kit & (1L << id)) != 0 && getSellPrice(item) > 0) {
+                actions |= Action.SELL.bit();
+            }
+        }
+        if (canLeave()) {
+            actions |= Action.MOVE.bit() | Action.BACK.bit();
+        }
+        if (!isSearched()) {
+            actions |= Action.HUNT.bit();
+        }
+        if (!isDug() && hasItem(ItemCatalog.SHOVEL)) {
+            actions |= Action.DIG.bit();
+        }
+        return actions;
+    }
+
+    /**
+     * @return Whether the action would do something (see getAvailableActions()).
+     */
+    public boolean canTake(Action action) {
+        return (getAvailableActions() & action.bit()) != 0;
+    }
+}
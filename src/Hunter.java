@@ -1,4 +1,6 @@
-import java.awt.*;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 
 /**
  * Hunter Class<br /><br />
@@ -7,17 +9,26 @@ import java.awt.*;
  */
 
 public class Hunter {
+    // values() makes a new array every call, so keep one copy
+    private static final Treasure[] TREASURES = Treasure.values();
+
     //instance variables
     private String hunterName;
-    private String[] kit;
-    private String[] treasureCollection;
+    private Inventory kit; // holds Item ids
+    private Inventory treasureCollection; // holds Treasure ordinals
     private int gold;
     private boolean goldNegative;
     private boolean isSearched;
     private boolean foundTreasure;
     private boolean samuraiMode;
     private boolean hasSword;
-    private OutputWindow window;
+    private GameEventListener events = GameEventListener.NONE;
+
+    // status text is only rebuilt after the gold, kit or treasures change; null means "rebuild"
+    private final StringBuilder scratch = new StringBuilder(64);
+    private String inventoryText;
+    private String infoText;
+    private String treasureText;
 
     /**
      * The base constructor of a Hunter assigns the name to the hunter and an empty kit.
@@ -25,37 +36,56 @@ public class Hunter {
      * @param hunterName The hunter's name.
      * @param startingGold The gold the hunter starts with.
      */
-    public Hunter(String hunterName, int startingGold, OutputWindow window) {
-        this.window = window;
+    public Hunter(String hunterName, int startingGold) {
         this.hunterName = hunterName;
-        kit = new String[7]; // only 7 possible items can be stored in kit
-        treasureCollection = new String[3]; // 3 possible items
+        kit = new Inventory(ItemCatalog.countSoldIn(false)); // one slot for every item in the shops
+        treasureCollection = new Inventory(3); // 3 possible items
         gold = startingGold;
         if (gold == 100) {
-            addItem("water");
-            addItem("rope");
-            addItem("machete");
-            addItem("shovel");
-            addItem("boots");
-            addItem("horse");
-            addItem("boat");
+            for (int id = 0; id < ItemCatalog.size(); id++) {
+                Item item = ItemCatalog.byId(id);
+                if (item.isSoldIn(false)) {
+                    addItem(item);
+                }
+            }
         }
     }
-    public Hunter(String hunterName, int startingGold, boolean startingMode, OutputWindow window) {
-        this.window = window;
+    public Hunter(String hunterName, int startingGold, boolean startingMode) {
         this.hunterName = hunterName;
-        kit = new String[8]; // only 8 possible items can be stored in kit
-        treasureCollection = new String[3]; // 3 possible items
+        kit = new Inventory(ItemCatalog.countSoldIn(true)); // samurai shops also sell the sword
+        treasureCollection = new Inventory(3); // 3 possible items
         gold = startingGold;
         samuraiMode = startingMode;
     }
 
 
+    /**
+     * @param events Where to publish changes to the hunter's gold, kit and treasures.
+     */
+    void setEventListener(GameEventListener events) {
+        this.events = events;
+    }
+
     //Accessors
+    /**
+     * Changes the gold a new hunter starts with, for a tuned game (see GameTuning).
+     * Unlike the constructor, 100 gold doesn't come with a full kit.
+     *
+     * @param startingGold The gold to start with.
+     */
+    void setStartingGold(int startingGold) {
+        gold = startingGold;
+        infoText = null;
+    }
+
     public String getHunterName() {
         return hunterName;
     }
 
+    public int getGold() {
+        return gold;
+    }
+
     public boolean isGoldNegative() {
         return goldNegative;
     }
@@ -83,34 +113,44 @@ public class Hunter {
      * @param modifier Amount to modify gold by.
      */
     public void changeGold(int modifier) {
+        if (modifier == 0) {
+            return;
+        }
         gold += modifier;
+        infoText = null;
         if (gold < 0) {
             goldNegative = true;
         }
+        if (GameMetrics.ENABLED) {
+            GameMetrics.recordGold(modifier);
+        }
+        events.goldChanged(modifier);
     }
 
     /**
      * Buys an item from a shop.
      *
-     * @param item The item the hunter is buying.
+     * @param bought The item the hunter is buying.
      * @param costOfItem The cost of the item.
      * @return true if the item is successfully bought.
      */
-    public boolean buyItem(String item, int costOfItem) {
-        if (costOfItem == 0 & !item.equalsIgnoreCase("sword") || (gold < costOfItem && !hasSword) || hasItemInKit(item)) {
+    public boolean buyItem(Item bought, int costOfItem) {
+        if (costOfItem == 0 & bought != ItemCatalog.SWORD || (gold < costOfItem && !hasSword) || hasItemInKit(bought)) {
             return false;
         }
-        if (samuraiMode && item.equalsIgnoreCase("sword")) {
+        events.itemBought(bought.getId(), costOfItem);
+        if (samuraiMode && bought == ItemCatalog.SWORD) {
             hasSword = true;
-            addItem(item);
+            addItem(bought);
             return true;
         }
         if (hasSword) {
-            addItem(item);
+            addItem(bought);
             return true;
         }
         gold -= costOfItem;
-        addItem(item);
+        infoText = null;
+        addItem(bought);
         return true;
     }
 
@@ -118,218 +158,267 @@ public class Hunter {
      * The Hunter is selling an item to a shop for gold.<p>
      * This method checks to make sure that the seller has the item and that the seller is getting more than 0 gold.
      *
-     * @param item The item being sold.
+     * @param sold The item being sold.
      * @param buyBackPrice the amount of gold earned from selling the item
      * @return true if the item was successfully sold.
      */
-    public boolean sellItem(String item, int buyBackPrice) {
-        if (buyBackPrice <= 0 || !hasItemInKit(item)) {
+    public boolean sellItem(Item sold, int buyBackPrice) {
+        if (buyBackPrice <= 0 || !hasItemInKit(sold)) {
             return false;
         }
         gold += buyBackPrice;
-        removeItemFromKit(item);
+        infoText = null;
+        events.itemSold(sold.getId(), buyBackPrice);
+        dropItem(sold);
         return true;
     }
 
     /**
-     * Removes an item from the kit by setting the index of the item to null.
+     * Removes an item from the kit, freeing up its slot. This is how items break.
      *
      * @param item The item to be removed.
      */
-    public void removeItemFromKit(String item) {
-        int itmIdx = findItemInKit(item);
+    public void removeItemFromKit(Item item) {
+        if (dropItem(item)) {
+            events.itemLost(item.getId());
+        }
+    }
 
-        // if item is found
-        if (itmIdx >= 0) {
-            kit[itmIdx] = null;
+    private boolean dropItem(Item item) {
+        if (kit.remove(item.getId())) {
+            kitChanged();
+            return true;
         }
+        return false;
     }
 
     /**
      * Checks to make sure that the item is not already in the kit.
-     * If not, it assigns the item to an index in the kit with a null value ("empty" position).
+     * If not, it puts the item in the first empty slot of the kit.
      *
      * @param item The item to be added to the kit.
      * @return true if the item is not in the kit and has been added.
      */
-    private boolean addItem(String item) {
-        if (!hasItemInKit(item)) {
-            int idx = emptyPositionInKit();
-            kit[idx] = item;
+    private boolean addItem(Item item) {
+        if (kit.add(item.getId())) {
+            kitChanged();
             return true;
         }
         return false;
     }
 
+    private void kitChanged() {
+        inventoryText = null;
+        infoText = null;
+    }
 
     /**
-     * Checks if the kit Array has the specified item.
+     * Checks if the kit has the specified item.
      *
      * @param item The search item
      * @return true if the item is found.
      */
-    public boolean hasItemInKit(String item) {
-        for (String tmpItem : kit) {
-            if (item.equals(tmpItem)) {
-                // early return
-                return true;
-            }
-        }
-        return false;
+    public boolean hasItemInKit(Item item) {
+        return kit.contains(item.getId());
     }
 
-    public boolean hasItemInTreasure(String item) {
-        for (String tmpItem : treasureCollection) {
-            if (item.equals(tmpItem)) {
-                // early return
-                return true;
-            }
-        }
-        return false;
+    /**
+     * @return The kit as a bit mask, bit i for the item with id i.
+     */
+    public long getKitMask() {
+        return kit.mask();
+    }
+
+    /**
+     * @return How many different treasures the hunter has collected.
+     */
+    public int getTreasureCount() {
+        return treasureCollection.size();
     }
 
-     /**
+    public boolean hasItemInTreasure(Treasure treasure) {
+        return treasureCollection.contains(treasure.ordinal());
+    }
+
+    /**
      * Returns a printable representation of the inventory, which
-     * is a list of the items in kit, with a space between each item.
+     * is a list of the items in kit, with a space after each item.
      *
      * @return The printable String representation of the inventory.
      */
     public String getInventory() {
-        String printableKit = "";
-        String space = " ";
+        if (inventoryText == null) {
+            scratch.setLength(0);
+            appendInventory(scratch);
+            inventoryText = scratch.toString();
+        }
+        return inventoryText;
+    }
 
-        for (String item : kit) {
-            if (item != null) {
-                printableKit += item + space;
+    /**
+     * Writes the items in the kit, in slot order, each followed by a space.
+     *
+     * @param out Where to write the list.
+     */
+    public void appendInventory(StringBuilder out) {
+        for (int slot = 0; slot < kit.capacity(); slot++) {
+            int id = kit.idInSlot(slot);
+            if (id >= 0) {
+                out.append(ItemCatalog.byId(id).getName()).append(' ');
             }
         }
-        return printableKit;
     }
+
     public String getTreasureInventory() {
-        String printableTreasureList = "";
-        String space = " ";
+        scratch.setLength(0);
+        appendTreasureInventory(scratch);
+        return scratch.toString();
+    }
 
-        for (String item: treasureCollection) {
-            if (item != null) {
-                printableTreasureList += item + space;
+    /**
+     * Writes the treasures found so far, each followed by a space.
+     *
+     * @param out Where to write the list.
+     */
+    public void appendTreasureInventory(StringBuilder out) {
+        for (int slot = 0; slot < treasureCollection.capacity(); slot++) {
+            int id = treasureCollection.idInSlot(slot);
+            if (id >= 0) {
+                out.append(TREASURES[id].getName()).append(' ');
             }
         }
-        return printableTreasureList;
     }
 
     /**
      * @return A string representation of the hunter.
      */
     public String infoString() {
-        String str = hunterName + " has " + gold + " gold";
-        if (!kitIsEmpty()) {
-            str += " and " + getInventory();
+        if (infoText == null) {
+            scratch.setLength(0);
+            appendInfo(scratch);
+            infoText = scratch.toString();
         }
-        return str;
+        return infoText;
     }
-    public String infoTreasureList() {
-        String message = "";
-        if (treasureIsEmpty()) {
-            message += "Treasures found: none";
-        } else {
-            message += "Treasures found: " + getTreasureInventory();
+
+    /**
+     * Writes the hunter's name, gold and kit.
+     *
+     * @param out Where to write the description.
+     */
+    public void appendInfo(StringBuilder out) {
+        out.append(hunterName).append(" has ").append(gold).append(" gold");
+        if (!kit.isEmpty()) {
+            out.append(" and ");
+            appendInventory(out);
         }
-        return message;
     }
 
-    public String chooseTreasure() {
-        String[] gemList = {"Crown", "Trophy", "Gem", "Dust"};
-        return gemList[(int) (Math.random() * (4))];
+    /**
+     * @return The list of treasures found, for the status display.
+     */
+    public String infoTreasureList() {
+        if (treasureText == null) {
+            scratch.setLength(0);
+            appendTreasureList(scratch);
+            treasureText = scratch.toString();
+        }
+        return treasureText;
     }
 
-    public void addTreasure() {
-        String chosenGem = chooseTreasure();
-        isSearched = true;
-        if (!hasItemInTreasure(chosenGem)) {
-            window.addTextToWindow("\nYou found a " + chosenGem + "!", Color.magenta);
-            if (!chosenGem.equalsIgnoreCase("Dust")) {
-                int idx = emptyPositionTreasure();
-                treasureCollection[idx] = chosenGem;
-            }
-        } else if (hasItemInTreasure(chosenGem)){
-            window.addTextToWindow("\nYou already have " + chosenGem + " in your collection so you don't collect it.", Color.red);
-        }
-        if (itemsInTreasureList() == 3) {
-            foundTreasure = true;
+    /**
+     * Writes the list of treasures found, or "none".
+     *
+     * @param out Where to write the list.
+     */
+    public void appendTreasureList(StringBuilder out) {
+        out.append("Treasures found: ");
+        if (treasureCollection.isEmpty()) {
+            out.append("none");
+        } else {
+            appendTreasureInventory(out);
         }
     }
 
-
     /**
-     * Searches kit Array for the index of the specified value.
+     * Saves everything about the hunter for a snapshot (see GameSnapshot).
      *
-     * @param item String to look for.
-     * @return The index of the item, or -1 if not found.
+     * @param out Where to write.
+     * @throws IOException if writing fails.
      */
-    private int findItemInKit(String item) {
-        for (int i = 0; i < kit.length; i++) {
-            String tmpItem = kit[i];
-
-            if (item.equals(tmpItem)) {
-                return i;
-            }
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeUTF(hunterName);
+        out.writeInt(gold);
+        int flags = 0;
+        if (goldNegative) {
+            flags |= 1;
+        }
+        if (isSearched) {
+            flags |= 2;
         }
-        return -1;
+        if (foundTreasure) {
+            flags |= 4;
+        }
+        if (samuraiMode) {
+            flags |= 8;
+        }
+        if (hasSword) {
+            flags |= 16;
+        }
+        out.writeByte(flags);
+        kit.writeTo(out);
+        treasureCollection.writeTo(out);
     }
 
     /**
-     * Check if the kit is empty - meaning all elements are null.
+     * Loads a hunter saved by writeTo().
      *
-     * @return true if kit is completely empty.
+     * @param in Where to read.
+     * @return The hunter.
+     * @throws IOException if reading fails.
      */
-    private boolean kitIsEmpty() {
-        for (String string : kit) {
-            if (string != null) {
-                return false;
-            }
-        }
-        return true;
+    public static Hunter readFrom(DataInput in) throws IOException {
+        String name = in.readUTF();
+        int gold = in.readInt();
+        int flags = in.readUnsignedByte();
+        Hunter hunter = new Hunter(name, gold, (flags & 8) != 0);
+        hunter.goldNegative = (flags & 1) != 0;
+        hunter.isSearched = (flags & 2) != 0;
+        hunter.foundTreasure = (flags & 4) != 0;
+        hunter.hasSword = (flags & 16) != 0;
+        hunter.kit = Inventory.readFrom(in);
+        hunter.treasureCollection = Inventory.readFrom(in);
+        return hunter;
     }
-    private int itemsInTreasureList() {
-        int count = 0;
-        for (String string : treasureCollection) {
-            if (string != null) {
-                count++;
-            }
-        }
-        return count;
+
+    public Treasure chooseTreasure(GameRandom rng) {
+        return TREASURES[rng.nextInt(TREASURES.length)];
     }
 
-    private boolean treasureIsEmpty() {
-        for (String string : treasureCollection) {
-            if (string != null) {
-                return false;
-            }
-        }
-        return true;
+    /**
+     * Searches the current town for a treasure.
+     *
+     * @param rng The town's source of random numbers.
+     */
+    public void addTreasure(GameRandom rng) {
+        Treasure chosenGem = chooseTreasure(rng);
+        events.treasureFound(chosenGem.ordinal());
+        collectTreasure(chosenGem);
     }
 
     /**
-     * Finds the first index where there is a null value.
+     * Keeps a treasure the hunter found, unless it's dust or one they already have.
      *
-     * @return index of empty index, or -1 if not found.
+     * @param chosenGem The treasure found.
      */
-    private int emptyPositionInKit() {
-        for (int i = 0; i < kit.length; i++) {
-            if (kit[i] == null) {
-                return i;
-            }
+    void collectTreasure(Treasure chosenGem) {
+        isSearched = true;
+        if (!hasItemInTreasure(chosenGem) && chosenGem != Treasure.DUST) {
+            treasureCollection.add(chosenGem.ordinal());
+            treasureText = null;
         }
-        return -1;
-    }
-    private int emptyPositionTreasure() {
-        for (int i = 0; i < treasureCollection.length; i++) {
-            if (treasureCollection[i] == null) {
-                return i;
-            }
+        if (treasureCollection.size() == 3) {
+            foundTreasure = true;
         }
-        return -1;
     }
-
-
 }
\ No newline at end of file
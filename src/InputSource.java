@@ -0,0 +1,23 @@
+/**
+ * An InputSource is where the game gets the player's typed lines from.<p>
+ * Normally that is the keyboard, but a script or a simulation can answer the game's questions too.
+ */
+
+public interface InputSource {
+    /**
+     * Waits for and returns the next line of input.
+     *
+     * @return The line without its line ending, or null once there will never be any more input.
+     */
+    String nextLine();
+
+    /**
+     * A person has to press enter at every "Press enter to continue" pause, but scripted input
+     * can skip the pauses so they don't use up lines.
+     *
+     * @return true if the game should carry straight on at a pause.
+     */
+    default boolean skipsPauses() {
+        return false;
+    }
+}
@@ -0,0 +1,138 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A fixed number of slots holding things identified by a small number (an item id or an enum ordinal).<p>
+ * Whether something is held is tracked in a bit mask, so checking, adding and removing never
+ * search the slots. The slots themselves are only kept so the inventory prints in the order
+ * things were put into it, with a freed slot being reused first, like the old String[] kit.
+ */
+
+public class Inventory {
+    private static final int MAX_IDS = 64;
+
+    private final int[] slots; // id in each slot, in print order
+    private final byte[] slotOf; // slot of each id, or -1 if not held
+    private final int fullSlots; // bit mask with a 1 for every slot that exists
+    private long held; // bit i is set if id i is in the inventory
+    private int usedSlots; // bit i is set if slot i is taken
+
+    /**
+     * Creates an empty inventory.
+     *
+     * @param capacity The number of slots (at most 32).
+     */
+    public Inventory(int capacity) {
+        if (capacity < 1 || capacity > 32) {
+            throw new IllegalArgumentException("An inventory has between 1 and 32 slots, not " + capacity);
+        }
+        slots = new int[capacity];
+        slotOf = new byte[MAX_IDS];
+        Arrays.fill(slotOf, (byte) -1);
+        fullSlots = capacity == 32 ? -1 : (1 << capacity) - 1;
+    }
+
+    public boolean contains(int id) {
+        return (held & (1L << id)) != 0;
+    }
+
+    /**
+     * Puts something in the first free slot.
+     *
+     * @param id What to add.
+     * @return true if it was added, false if it was already there or every slot is full.
+     */
+    public boolean add(int id) {
+        if (contains(id) || usedSlots == fullSlots) {
+            return false;
+        }
+        int slot = Integer.numberOfTrailingZeros(~usedSlots);
+        slots[slot] = id;
+        slotOf[id] = (byte) slot;
+        usedSlots |= 1 << slot;
+        held |= 1L << id;
+        return true;
+    }
+
+    /**
+     * Takes something out, freeing its slot.
+     *
+     * @param id What to remove.
+     * @return true if it was there.
+     */
+    public boolean remove(int id) {
+        if (!contains(id)) {
+            return false;
+        }
+        usedSlots &= ~(1 << slotOf[id]);
+        slotOf[id] = -1;
+        held &= ~(1L << id);
+        return true;
+    }
+
+    public boolean isEmpty() {
+        return held == 0;
+    }
+
+    public int size() {
+        return Long.bitCount(held);
+    }
+
+    public int capacity() {
+        return slots.length;
+    }
+
+    /**
+     * @return The bit mask of everything held, bit i for id i.
+     */
+    public long mask() {
+        return held;
+    }
+
+    /**
+     * @param slot A slot number from 0 to capacity() - 1.
+     * @return The id in that slot, or -1 if the slot is empty.
+     */
+    public int idInSlot(int slot) {
+        return (usedSlots & (1 << slot)) != 0 ? slots[slot] : -1;
+    }
+
+    /**
+     * Saves the inventory: the number of slots, then the id in each slot (-1 for empty), one byte each.
+     *
+     * @param out Where to write.
+     * @throws IOException if writing fails.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeByte(slots.length);
+        for (int slot = 0; slot < slots.length; slot++) {
+            out.writeByte(idInSlot(slot));
+        }
+    }
+
+    /**
+     * Loads an inventory saved by writeTo(), with everything back in the same slots.
+     *
+     * @param in Where to read.
+     * @return The inventory.
+     * @throws IOException if reading fails or the data doesn't make sense.
+     */
+    public static Inventory readFrom(DataInput in) throws IOException {
+        Inventory inventory = new Inventory(in.readUnsignedByte());
+        for (int slot = 0; slot < inventory.slots.length; slot++) {
+            int id = in.readByte();
+            if (id >= MAX_IDS || id >= 0 && inventory.contains(id)) {
+                throw new IOException("Bad inventory slot " + slot + ": " + id);
+            }
+            if (id >= 0) {
+                inventory.slots[slot] = id;
+                inventory.slotOf[id] = (byte) slot;
+                inventory.usedSlots |= 1 << slot;
+                inventory.held |= 1L << id;
+            }
+        }
+        return inventory;
+    }
+}
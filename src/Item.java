@@ -0,0 +1,72 @@
+/**
+ * One kind of item a hunter can buy and carry in the kit.<p>
+ * Items are not created by the game code; they come from the item catalog (items.txt),
+ * see ItemCatalog.
+ */
+
+public final class Item {
+    private final int id;
+    private final String name;
+    private final String displayName;
+    private final int cost;
+    private final String crosses;
+    private final boolean samuraiOnly;
+
+    /**
+     * @param id The item's position in the catalog, used as its bit in an Inventory.
+     * @param name The lower case name the player types.
+     * @param cost The price in a shop.
+     * @param crosses The terrain this item gets a hunter across, or null.
+     * @param samuraiOnly true if only samurai mode shops sell it.
+     */
+    Item(int id, String name, int cost, String crosses, boolean samuraiOnly) {
+        this.id = id;
+        this.name = name;
+        this.displayName = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        this.cost = cost;
+        this.crosses = crosses;
+        this.samuraiOnly = samuraiOnly;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * @return The item's name the way the player types it (lower case).
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return The name with a capital letter, for the shop's price list.
+     */
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    public int getCost() {
+        return cost;
+    }
+
+    public String getCrosses() {
+        return crosses;
+    }
+
+    public boolean isSamuraiOnly() {
+        return samuraiOnly;
+    }
+
+    /**
+     * @param samuraiMode Whether the game is in samurai mode.
+     * @return true if shops sell this item in that mode.
+     */
+    public boolean isSoldIn(boolean samuraiMode) {
+        return samuraiMode || !samuraiOnly;
+    }
+
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,124 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The list of every item in the game, loaded once from the items.txt resource.<p>
+ * Each line of the file is: name, cost, the terrain the item crosses (or -), and which shops sell it
+ * (all, or samurai). Adding an item to the file is all it takes to put it in the shops.
+ * Lookups by name go through a HashMap, so pricing an item never loops over the list.
+ */
+
+public class ItemCatalog {
+    private static final String RESOURCE = "/items.txt";
+    private static final int MAX_ITEMS = 64; // an Inventory can track 64 different things
+
+    private static final Item[] ITEMS;
+    private static final Map<String, Item> BY_NAME = new HashMap<>();
+
+    // the items the game's rules treat specially
+    public static final Item SHOVEL; // needed to dig for gold
+    public static final Item SWORD; // samurai mode
+
+    static {
+        List<Item> items = load();
+        ITEMS = items.toArray(new Item[0]);
+        for (Item item : ITEMS) {
+            BY_NAME.put(item.getName(), item);
+        }
+        SHOVEL = require("shovel");
+        SWORD = require("sword");
+    }
+
+    private ItemCatalog() {
+    }
+
+    /**
+     * Looks up an item by the name the player typed.
+     *
+     * @param name The lower case item name.
+     * @return The item, or null if there is no such item.
+     */
+    public static Item get(String name) {
+        return BY_NAME.get(name);
+    }
+
+    /**
+     * @param id An item id from 0 to size() - 1.
+     * @return The item with that id.
+     */
+    public static Item byId(int id) {
+        return ITEMS[id];
+    }
+
+    public static int size() {
+        return ITEMS.length;
+    }
+
+    /**
+     * @param samuraiMode Whether the game is in samurai mode.
+     * @return How many different items the shops sell in that mode, which is also how big the kit is.
+     */
+    public static int countSoldIn(boolean samuraiMode) {
+        int count = 0;
+        for (Item item : ITEMS) {
+            if (item.isSoldIn(samuraiMode)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Looks up an item the game's rules depend on.
+     *
+     * @param name The lower case item name.
+     * @return The item.
+     * @throws IllegalStateException if the catalog doesn't have it.
+     */
+    private static Item require(String name) {
+        Item item = get(name);
+        if (item == null) {
+            throw new IllegalStateException("The item catalog " + RESOURCE + " is missing " + name);
+        }
+        return item;
+    }
+
+    private static List<Item> load() {
+        InputStream in = ItemCatalog.class.getResourceAsStream(RESOURCE);
+        if (in == null) {
+            throw new IllegalStateException("Could not find the item catalog " + RESOURCE);
+        }
+        List<Item> items = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split("\\s+");
+                if (fields.length != 4) {
+                    throw new IllegalStateException(RESOURCE + " line " + lineNumber + ": expected name, cost, terrain and shops");
+                }
+                if (items.size() == MAX_ITEMS) {
+                    throw new IllegalStateException(RESOURCE + " has more than " + MAX_ITEMS + " items");
+                }
+                String crosses = fields[2].equals("-") ? null : fields[2];
+                boolean samuraiOnly = fields[3].equalsIgnoreCase("samurai");
+                items.add(new Item(items.size(), fields[0].toLowerCase(), Integer.parseInt(fields[1]), crosses, samuraiOnly));
+            }
+        } catch (IOException | NumberFormatException e) {
+            throw new IllegalStateException("Could not read the item catalog " + RESOURCE, e);
+        }
+        return items;
+    }
+}
@@ -0,0 +1,239 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * Reads back a journal written by JournalWriter.<p>
+ * The file is memory mapped a window at a time and the records are decoded straight into calls on a
+ * GameEventListener, so replaying even a very long game only takes a few milliseconds, and a journal can
+ * grow past what one mapping can hold. Reading stops at the first record that is cut off or damaged,
+ * which is where a crash would have left the file.<p>
+ *
+ * Usage: java JournalReader FILE [SESSION] lists the games in a journal, or shows one of them
+ * (the session is the hex save code the server gave the player).
+ */
+
+public class JournalReader {
+    private static final int WINDOW = 256 * 1024 * 1024; // how much of the file is mapped at once
+
+    private JournalReader() {
+    }
+
+    /**
+     * Something to do with each record in a journal.
+     */
+    private interface RecordHandler {
+        /**
+         * @param offset Where the record starts in the file.
+         * @param session The record's session.
+         * @param type The record's type (see JournalWriter).
+         * @param fields The journal, positioned at the record's fields.
+         */
+        void handle(long offset, long session, byte type, ByteBuffer fields);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("Usage: java JournalReader FILE [SESSION]");
+            return;
+        }
+        Path file = Path.of(args[0]);
+        if (args.length == 1) {
+            Map<Long, Integer> counts = new TreeMap<>();
+            read(file, (offset, session, type, fields) -> counts.merge(session, 1, Integer::sum));
+            for (Map.Entry<Long, Integer> entry : counts.entrySet()) {
+                System.out.println(Long.toHexString(entry.getKey()) + ": " + entry.getValue() + " events");
+            }
+            return;
+        }
+        JournalReplay replay = new JournalReplay();
+        long start = System.nanoTime();
+        int events = replay(file, Long.parseUnsignedLong(args[1], 16), replay);
+        long micros = (System.nanoTime() - start) / 1000;
+        TreasureHunter game = replay.getGame();
+        System.out.println(events + " events, " + replay.getTurns() + " turns, replayed in " + micros + " us");
+        if (game != null) {
+            System.out.println(game.getHunter().infoString());
+            System.out.println(game.getHunter().infoTreasureList());
+            System.out.println(game.getCurrentTown().infoString());
+        }
+    }
+
+    /**
+     * Sends one game's events, in order, to a listener.
+     *
+     * @param file The journal.
+     * @param session The game's session number.
+     * @param listener Where to send the events.
+     * @return The number of events sent.
+     * @throws IOException if the file can't be read or isn't a journal.
+     */
+    public static int replay(Path file, long session, GameEventListener listener) throws IOException {
+        return replay(file, session, listener, JournalWriter.FILE_HEADER, Long.MAX_VALUE);
+    }
+
+    /**
+     * Sends one game's events, in order, to a listener, looking only at the part of the file that holds them
+     * (see JournalWriter.span).
+     *
+     * @param file The journal.
+     * @param session The game's session number.
+     * @param listener Where to send the events.
+     * @param first Where the game's first record starts.
+     * @param last Where its last record starts.
+     * @return The number of events sent.
+     * @throws IOException if the file can't be read or isn't a journal.
+     */
+    static int replay(Path file, long session, GameEventListener listener, long first, long last) throws IOException {
+        int[] count = new int[1];
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            checkHeader(channel, file);
+            scan(channel, first, last, (offset, recordSession, type, fields) -> {
+                if (recordSession == session) {
+                    dispatch(type, fields, listener);
+                    count[0]++;
+                }
+            });
+        }
+        return count[0];
+    }
+
+    /**
+     * Finds where the last whole record ends, so JournalWriter can carry on from there, and where each
+     * session's records are.
+     *
+     * @param channel The open journal.
+     * @param file The journal's name, for error messages.
+     * @param spans Filled in with each session's first and last record offsets.
+     * @return The length of the good part of the file.
+     * @throws IOException if the file can't be read or isn't a journal.
+     */
+    static long validLength(FileChannel channel, Path file, Map<Long, long[]> spans) throws IOException {
+        checkHeader(channel, file);
+        return scan(channel, JournalWriter.FILE_HEADER, Long.MAX_VALUE,
+                (offset, session, type, fields) -> spans.computeIfAbsent(session, s -> new long[] {offset, offset})[1] = offset);
+    }
+
+    private static void read(Path file, RecordHandler handler) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            checkHeader(channel, file);
+            scan(channel, JournalWriter.FILE_HEADER, Long.MAX_VALUE, handler);
+        }
+    }
+
+    private static void checkHeader(FileChannel channel, Path file) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(JournalWriter.FILE_HEADER);
+        channel.read(header, 0);
+        if (header.hasRemaining() || header.getInt(0) != JournalWriter.MAGIC || header.getInt(4) != JournalWriter.VERSION) {
+            throw new IOException(file + " is not a journal this version can read");
+        }
+    }
+
+    /**
+     * Checks each record from a point in the file and hands it to the handler, stopping at the first bad one.
+     * The file is mapped a window at a time; a record that runs off the end of a window is read again at the
+     * start of the next one, which always holds it since records are far smaller than a window.
+     *
+     * @param from Where the first record starts.
+     * @param last Where to stop: no record starting after this is read.
+     * @return Where the good records end.
+     */
+    private static long scan(FileChannel channel, long from, long last, RecordHandler handler) throws IOException {
+        CRC32 crc = new CRC32();
+        long size = channel.size();
+        long position = from;
+        while (position < size && position <= last) {
+            long length = Math.min(WINDOW, size - position);
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            int scanned = scanWindow(window, position, last, crc, handler);
+            position += scanned;
+            if (scanned == 0 || position + JournalWriter.RECORD_HEADER > size || length < WINDOW) {
+                break; // a bad record, or the end of the file
+            }
+        }
+        return position;
+    }
+
+    /**
+     * Checks the records in one window of the file.
+     *
+     * @param base Where the window starts in the file.
+     * @return How far into the window the good records go.
+     */
+    private static int scanWindow(ByteBuffer map, long base, long last, CRC32 crc, RecordHandler handler) {
+        int position = 0;
+        int limit = map.capacity();
+        while (position + JournalWriter.RECORD_HEADER <= limit && base + position <= last) {
+            int bodyLength = map.getInt(position);
+            int body = position + JournalWriter.RECORD_HEADER;
+            if (bodyLength < 9 || (long) body + bodyLength > limit) {
+                break;
+            }
+            crc.reset();
+            crc.update(map.slice(body, bodyLength));
+            if (map.getInt(position + 4) != (int) crc.getValue()) {
+                break;
+            }
+            map.position(body + 9);
+            handler.handle(base + position, map.getLong(body), map.get(body + 8), map);
+            position = body + bodyLength;
+        }
+        return position;
+    }
+
+    /**
+     * Decodes one record's fields and calls the matching listener method. Unknown types are skipped.
+     */
+    private static void dispatch(byte type, ByteBuffer fields, GameEventListener listener) {
+        switch (type) {
+            case JournalWriter.GAME_STARTED:
+                listener.gameStarted(getString(fields), getString(fields), fields.getLong());
+                break;
+            case JournalWriter.TOWN_ENTERED:
+                listener.townEntered(fields.getLong(), getString(fields));
+                break;
+            case JournalWriter.TURN_ENDED:
+                listener.turnEnded(getString(fields), fields.getLong());
+                break;
+            case JournalWriter.GOLD_CHANGED:
+                listener.goldChanged(fields.getInt());
+                break;
+            case JournalWriter.ITEM_BOUGHT:
+                listener.itemBought(fields.getShort(), fields.getInt());
+                break;
+            case JournalWriter.ITEM_SOLD:
+                listener.itemSold(fields.getShort(), fields.getInt());
+                break;
+            case JournalWriter.ITEM_LOST:
+                listener.itemLost(fields.getShort());
+                break;
+            case JournalWriter.TREASURE_FOUND:
+                listener.treasureFound(fields.get());
+                break;
+            case JournalWriter.TOWN_LEFT:
+                listener.townLeft(fields.get() != 0);
+                break;
+            case JournalWriter.DUG_FOR_GOLD:
+                listener.dugForGold(fields.getInt());
+                break;
+            case JournalWriter.BRAWLED:
+                listener.brawled(fields.getInt());
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static String getString(ByteBuffer fields) {
+        byte[] bytes = new byte[fields.getShort() & 0xffff];
+        fields.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
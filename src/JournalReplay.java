@@ -0,0 +1,149 @@
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Rebuilds a game from its journaled events, without any output.<p>
+ * The game is set up from its seed, and then each event is applied with the same Hunter and Town
+ * methods that made it, so gold, kit, treasures and towns come out exactly as they were. Towns are
+ * rebuilt from the game's seed, and the turn events say where each town's random numbers had got to,
+ * so the recovered game carries on with the same luck. Nothing is rolled again and no text is drawn.<p>
+ * Give the result to GameSnapshot to play it again in a window or over the network.
+ */
+
+public class JournalReplay implements GameEventListener {
+    private static final Treasure[] TREASURES = Treasure.values();
+
+    private TreasureHunter game; // null until the game's start is replayed
+    private int turns;
+
+    /**
+     * Replays one game from a journal.
+     *
+     * @param file The journal.
+     * @param session The game's session number.
+     * @return The game as it was after its last journaled event, or null if the journal has no start for it.
+     * @throws IOException if the journal can't be read or doesn't match the game its seed makes.
+     */
+    public static TreasureHunter recover(Path file, long session) throws IOException {
+        return recover(file, session, JournalWriter.FILE_HEADER, Long.MAX_VALUE);
+    }
+
+    /**
+     * Replays one game from a journal that is still being written, reading only the part of the file
+     * between the game's first and last records.
+     *
+     * @param journal The journal.
+     * @param session The game's session number.
+     * @return The game as it was after its last journaled event, or null if the journal has nothing for it.
+     * @throws IOException if the journal can't be read or doesn't match the game its seed makes.
+     */
+    public static TreasureHunter recover(JournalWriter journal, long session) throws IOException {
+        long[] span = journal.span(session);
+        if (span == null) {
+            return null;
+        }
+        return recover(journal.getFile(), session, span[0], span[1]);
+    }
+
+    private static TreasureHunter recover(Path file, long session, long first, long last) throws IOException {
+        JournalReplay replay = new JournalReplay();
+        try {
+            JournalReader.replay(file, session, replay, first, last);
+        } catch (IllegalStateException e) {
+            throw new IOException("Can't replay session " + Long.toHexString(session) + ": " + e.getMessage());
+        }
+        return replay.getGame();
+    }
+
+    public TreasureHunter getGame() {
+        return game;
+    }
+
+    public int getTurns() {
+        return turns;
+    }
+
+    public void gameStarted(String name, String mode, long seed) {
+        game = new TreasureHunter(NullOutput.INSTANCE, new ScriptedInput(), seed);
+        game.setUp(name, mode);
+        turns = 0;
+    }
+
+    public void townEntered(long town, String terrain) {
+        if (game == null) {
+            return;
+        }
+        game.enterTown(town);
+        if (!game.getCurrentTown().getTerrain().getTerrainName().equals(terrain)) {
+            throw new IllegalStateException("expected a town by the " + terrain + " but the seed made "
+                    + game.getCurrentTown().getTerrain().getTerrainName());
+        }
+    }
+
+    public void turnEnded(String choice, long townRandomSeed) {
+        if (game != null) {
+            game.getCurrentTown().setRandomSeed(townRandomSeed);
+            turns++;
+            game.setTurns(turns);
+        }
+    }
+
+    public void goldChanged(int amount) {
+        if (game != null) {
+            game.getHunter().changeGold(amount);
+        }
+    }
+
+    public void itemBought(int itemId, int price) {
+        if (game == null) {
+            return;
+        }
+        Hunter hunter = game.getHunter();
+        if (hunter.buyItem(ItemCatalog.byId(itemId), price) && hunter.getHasSword()) {
+            // Shop.buyItem counts the first thing bought with the sword out
+            Town town = game.getCurrentTown();
+            if (town.getSwordPurchases() < 1) {
+                town.setSwordPurchases(town.getSwordPurchases() + 1);
+            }
+        }
+    }
+
+    public void itemSold(int itemId, int price) {
+        if (game != null) {
+            game.getHunter().sellItem(ItemCatalog.byId(itemId), price);
+        }
+    }
+
+    public void itemLost(int itemId) {
+        if (game != null) {
+            game.getHunter().removeItemFromKit(ItemCatalog.byId(itemId));
+        }
+    }
+
+    public void treasureFound(int treasure) {
+        if (game != null) {
+            game.getHunter().collectTreasure(TREASURES[treasure]);
+        }
+    }
+
+    public void townLeft(boolean crossed) {
+        // the broken item (if any) was its own event, but the roll moved the town's random numbers on
+        // before the world map kept them
+        if (game != null && crossed) {
+            game.getCurrentTown().rollItemBreak();
+        }
+    }
+
+    public void dugForGold(int gold) {
+        if (game != null) {
+            game.getCurrentTown().setDug(true);
+        }
+    }
+
+    public void brawled(int gold) {
+        // the gold itself was its own event; losing a brawl while broke is what ends the game
+        if (game != null && gold < 0 && game.getHunter().isGoldNegative()) {
+            game.getCurrentTown().setHasLost(true);
+        }
+    }
+}
@@ -0,0 +1,302 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Appends game events to a journal file, for any number of games at once.<p>
+ * Each game gets a GameEventListener from session(), and every event it hears becomes one small
+ * length-prefixed record. Records collect in a buffer that is written out when it fills, and commit()
+ * writes what's left and forces it all to disk with one fsync (a group commit), so a server can journal
+ * every session and sync once a second. A record cut off by a crash is dropped when the file is next opened.
+ * The writer remembers where each session's records start and end (see span()), so one game can be read
+ * back without going through the whole file.<p>
+ * File layout: int magic "THJL", int version, then records of
+ * int bodyLength, int crc, then a body of long session, byte type, and the event's fields.
+ * Strings are a short length and UTF-8 bytes. JournalReader reads the file back.
+ */
+
+public class JournalWriter implements Closeable {
+    static final int MAGIC = 0x54484a4c; // "THJL"
+    static final int VERSION = 1;
+    static final int FILE_HEADER = 8;
+    static final int RECORD_HEADER = 8;
+
+    // record types, one per GameEventListener method
+    static final byte GAME_STARTED = 1;
+    static final byte TOWN_ENTERED = 2;
+    static final byte TURN_ENDED = 3;
+    static final byte GOLD_CHANGED = 4;
+    static final byte ITEM_BOUGHT = 5;
+    static final byte ITEM_SOLD = 6;
+    static final byte ITEM_LOST = 7;
+    static final byte TREASURE_FOUND = 8;
+    static final byte TOWN_LEFT = 9;
+    static final byte DUG_FOR_GOLD = 10;
+    static final byte BRAWLED = 11;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_STRING_CHARS = 256; // a UTF-8 char is at most 3 bytes, so a string fits in 770
+    private static final int MAX_RECORD = RECORD_HEADER + 9 + 2 * (2 + 3 * MAX_STRING_CHARS) + 16;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final CRC32 crc;
+    private final Map<Long, long[]> spans; // each session's first and last record offsets
+    private long bufferStart; // where the buffer's first byte goes in the file
+    private int recordStart;
+    private IOException failure; // the first write that failed; the journal stops there
+
+    private JournalWriter(Path file, FileChannel channel) {
+        this.file = file;
+        this.channel = channel;
+        buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        crc = new CRC32();
+        spans = new HashMap<>();
+    }
+
+    /**
+     * Opens a journal to add to, creating the file if it doesn't exist.
+     *
+     * @param file The journal's file.
+     * @return The open journal.
+     * @throws IOException if the file can't be opened or isn't a journal.
+     */
+    public static JournalWriter open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        JournalWriter journal = new JournalWriter(file, channel);
+        try {
+            if (channel.size() == 0) {
+                journal.buffer.putInt(MAGIC);
+                journal.buffer.putInt(VERSION);
+                journal.commit();
+            } else {
+                // drop anything after the last whole record, so new records aren't hidden behind it
+                long end = JournalReader.validLength(channel, file, journal.spans);
+                channel.truncate(end);
+                channel.position(end);
+                journal.bufferStart = end;
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return journal;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * @param session A number that is different for every game written to this journal (the server uses the save code).
+     * @return A listener that journals one game's events.
+     */
+    public GameEventListener session(long session) {
+        return new Session(session);
+    }
+
+    /**
+     * Writes everything journaled so far to the file (like flush()) and says where one session's records are.
+     *
+     * @param session The session.
+     * @return The offsets in the file of the session's first and last records, or null if it has none.
+     */
+    public synchronized long[] span(long session) {
+        drain();
+        long[] span = spans.get(session);
+        return span == null ? null : span.clone();
+    }
+
+    /**
+     * Writes everything journaled so far to the file, so JournalReader can see it, without waiting for the disk.
+     */
+    public synchronized void flush() {
+        drain();
+    }
+
+    /**
+     * Writes everything journaled so far to the file and forces it to disk.
+     *
+     * @throws IOException if an earlier write or this one failed.
+     */
+    public synchronized void commit() throws IOException {
+        drain();
+        if (failure != null) {
+            throw failure;
+        }
+        channel.force(false);
+    }
+
+    public synchronized void close() throws IOException {
+        try {
+            commit();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Starts a record in the buffer, making room first if needed. The caller puts the fields and calls end().
+     */
+    private void begin(long session, byte type) {
+        if (buffer.remaining() < MAX_RECORD) {
+            drain();
+        }
+        recordStart = buffer.position();
+        long offset = bufferStart + recordStart;
+        spans.computeIfAbsent(session, s -> new long[] {offset, offset})[1] = offset;
+        buffer.position(recordStart + RECORD_HEADER);
+        buffer.putLong(session);
+        buffer.put(type);
+    }
+
+    /**
+     * Fills in the length and checksum of the record begin() started.
+     */
+    private void end() {
+        int bodyLength = buffer.position() - recordStart - RECORD_HEADER;
+        crc.reset();
+        crc.update(buffer.slice(recordStart + RECORD_HEADER, bodyLength));
+        buffer.putInt(recordStart, bodyLength);
+        buffer.putInt(recordStart + 4, (int) crc.getValue());
+    }
+
+    private void putString(String text) {
+        if (text.length() > MAX_STRING_CHARS) {
+            text = text.substring(0, MAX_STRING_CHARS);
+        }
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    /**
+     * Writes the buffer to the file (without forcing it to disk). Once a write fails, records are
+     * thrown away, since the game shouldn't stop because its journal did; commit() reports the failure.
+     */
+    private void drain() {
+        buffer.flip();
+        try {
+            while (failure == null && buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            failure = e;
+        }
+        bufferStart += buffer.limit();
+        buffer.clear();
+    }
+
+    /**
+     * One game's view of the journal; every record it writes is tagged with the game's session number.
+     */
+    private class Session implements GameEventListener {
+        private final long session;
+
+        Session(long session) {
+            this.session = session;
+        }
+
+        public void gameStarted(String name, String mode, long seed) {
+            synchronized (JournalWriter.this) {
+                begin(session, GAME_STARTED);
+                putString(name);
+                putString(mode);
+                buffer.putLong(seed);
+                end();
+            }
+        }
+
+        public void townEntered(long town, String terrain) {
+            synchronized (JournalWriter.this) {
+                begin(session, TOWN_ENTERED);
+                buffer.putLong(town);
+                putString(terrain);
+                end();
+            }
+        }
+
+        public void turnEnded(String choice, long townRandomSeed) {
+            synchronized (JournalWriter.this) {
+                begin(session, TURN_ENDED);
+                putString(choice);
+                buffer.putLong(townRandomSeed);
+                end();
+            }
+        }
+
+        public void goldChanged(int amount) {
+            synchronized (JournalWriter.this) {
+                begin(session, GOLD_CHANGED);
+                buffer.putInt(amount);
+                end();
+            }
+        }
+
+        public void itemBought(int itemId, int price) {
+            synchronized (JournalWriter.this) {
+                begin(session, ITEM_BOUGHT);
+                buffer.putShort((short) itemId);
+                buffer.putInt(price);
+                end();
+            }
+        }
+
+        public void itemSold(int itemId, int price) {
+            synchronized (JournalWriter.this) {
+                begin(session, ITEM_SOLD);
+                buffer.putShort((short) itemId);
+                buffer.putInt(price);
+                end();
+            }
+        }
+
+        public void itemLost(int itemId) {
+            synchronized (JournalWriter.this) {
+                begin(session, ITEM_LOST);
+                buffer.putShort((short) itemId);
+                end();
+            }
+        }
+
+        public void treasureFound(int treasure) {
+            synchronized (JournalWriter.this) {
+                begin(session, TREASURE_FOUND);
+                buffer.put((byte) treasure);
+                end();
+            }
+        }
+
+        public void townLeft(boolean crossed) {
+            synchronized (JournalWriter.this) {
+                begin(session, TOWN_LEFT);
+                buffer.put((byte) (crossed ? 1 : 0));
+                end();
+            }
+        }
+
+        public void dugForGold(int gold) {
+            synchronized (JournalWriter.this) {
+                begin(session, DUG_FOR_GOLD);
+                buffer.putInt(gold);
+                end();
+            }
+        }
+
+        public void brawled(int gold) {
+            synchronized (JournalWriter.this) {
+                begin(session, BRAWLED);
+                buffer.putInt(gold);
+                end();
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts how long things took, in nanoseconds, in the style of HdrHistogram.<p>
+ * Values are grouped into buckets whose width grows with the value: each power of two is split
+ * into 32 equal buckets, so any value is known to within about 3% whether it is 200 ns or 2 s.
+ * That keeps the whole histogram to a fixed array of counts, so recording a value never allocates,
+ * and many threads can record into the same histogram at once.
+ */
+
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_MAGNITUDE = 40; // covers up to 2^45 ns (about 9 hours); anything longer goes in the last bucket
+
+    private final AtomicLongArray counts;
+
+    public LatencyHistogram() {
+        counts = new AtomicLongArray((MAX_MAGNITUDE + 1) * SUB_BUCKETS);
+    }
+
+    /**
+     * @param nanos How long something took.
+     */
+    public void record(long nanos) {
+        counts.incrementAndGet(bucketOf(Math.max(0, nanos)));
+    }
+
+    public long getCount() {
+        long total = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    /**
+     * @param percentile From 0 to 100.
+     * @return The value that percentile of the recorded values are at or below (to within a bucket), or 0 if none were recorded.
+     */
+    public long getValueAtPercentile(double percentile) {
+        long total = getCount();
+        if (total == 0) {
+            return 0;
+        }
+        long wanted = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= wanted) {
+                return highestValueIn(i);
+            }
+        }
+        return highestValueIn(counts.length() - 1);
+    }
+
+    /**
+     * @return The average of the recorded values, using the middle of each bucket.
+     */
+    public double getMean() {
+        long total = 0;
+        double sum = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            long count = counts.get(i);
+            if (count > 0) {
+                total += count;
+                sum += count * ((lowestValueIn(i) + highestValueIn(i)) / 2.0);
+            }
+        }
+        return total == 0 ? 0 : sum / total;
+    }
+
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+    }
+
+    /**
+     * Values below SUB_BUCKETS get a bucket each; above that, the top SUB_BUCKET_BITS + 1 bits of the
+     * value pick the bucket within its power of two.
+     */
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS + 1; // 1 for 32..63
+        if (magnitude > MAX_MAGNITUDE) {
+            return (MAX_MAGNITUDE + 1) * SUB_BUCKETS - 1;
+        }
+        int subBucket = (int) (value >>> (magnitude - 1)) - SUB_BUCKETS; // 0..31
+        return magnitude * SUB_BUCKETS + subBucket;
+    }
+
+    private static long lowestValueIn(int bucket) {
+        int magnitude = bucket / SUB_BUCKETS;
+        long subBucket = bucket % SUB_BUCKETS;
+        if (magnitude == 0) {
+            return subBucket;
+        }
+        return (SUB_BUCKETS + subBucket) << (magnitude - 1);
+    }
+
+    private static long highestValueIn(int bucket) {
+        int magnitude = bucket / SUB_BUCKETS;
+        if (magnitude == 0) {
+            return bucket;
+        }
+        return lowestValueIn(bucket) + (1L << (magnitude - 1)) - 1;
+    }
+}
@@ -0,0 +1,407 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * The best finished games in each mode, kept in memory and in a log file.<p>
+ * Each mode's ranking is a ConcurrentSkipListSet ordered by RunResult.BEST_FIRST and cut to the best
+ * size() results, so any number of game threads can add results at once, each in O(log n), and a rank
+ * never needs more than size() steps. submit() only updates the ranking and queues the result: a writer
+ * thread appends queued results to the log in batches and forces each batch to disk with one fsync,
+ * so a game never waits for the disk. Every finished game is appended, and once the log holds well more
+ * records than the rankings do, the writer rewrites it with just the ranked results (and swaps the new
+ * file in whole), so the file stays about as small as the rankings. A record cut off by a crash is
+ * dropped when the file is next opened.<p>
+ * File layout: int magic "THLB", int version, then records of int bodyLength, int crc, then a body of
+ * long id, long finishedAt, long seed, byte outcome, int gold, int turns, and the mode and name as
+ * strings (a short length and UTF-8 bytes).<p>
+ *
+ * Usage: java Leaderboard FILE [MODE] [COUNT] shows the best games in each mode, or in one.
+ */
+
+public class Leaderboard implements Closeable {
+    static final int MAGIC = 0x54484c42; // "THLB"
+    static final int VERSION = 1;
+    static final int FILE_HEADER = 8;
+    static final int RECORD_HEADER = 8;
+    public static final int DEFAULT_SIZE = 100;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_STRING_CHARS = 256;
+    private static final int MAX_RECORD = RECORD_HEADER + 33 + 2 * (2 + 3 * MAX_STRING_CHARS);
+    private static final int COMPACT_SLACK = 1024; // extra records the log may hold before it is compacted
+    private static final RunResult STOP = new RunResult(-1, "", "", RunResult.Outcome.QUIT, 0, 0, 0, 0);
+
+    private final Path file;
+    private final int size;
+    private final Map<String, Ranking> rankings = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong();
+    private final LinkedBlockingQueue<RunResult> pending = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    // only the writer thread touches these once open() has returned
+    private FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final CRC32 crc = new CRC32();
+    private long logRecords;
+    private volatile IOException failure; // the first write that failed; results are only kept in memory after it
+
+    private Leaderboard(Path file, int size) {
+        this.file = file;
+        this.size = size;
+        writer = new Thread(this::writeQueued, "leaderboard-writer");
+        writer.setDaemon(true);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("Usage: java Leaderboard FILE [MODE] [COUNT]");
+            return;
+        }
+        int count = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        try (Leaderboard board = open(Path.of(args[0]))) {
+            for (String mode : new String[]{"easy", "normal", "hard", "samurai"}) {
+                if (args.length > 1 && !args[1].equalsIgnoreCase(mode)) {
+                    continue;
+                }
+                List<RunResult> top = board.top(mode, count);
+                if (top.isEmpty()) {
+                    continue;
+                }
+                System.out.println(mode.toUpperCase());
+                System.out.printf("%4s  %-16s %-6s %6s %6s  %s%n", "Rank", "Name", "Ended", "Gold", "Turns", "Seed");
+                for (int i = 0; i < top.size(); i++) {
+                    RunResult result = top.get(i);
+                    System.out.printf("%4d  %-16s %-6s %6d %6d  %s%n", i + 1, result.getName(),
+                            result.getOutcome().name().toLowerCase(), result.getGold(), result.getTurns(),
+                            Long.toHexString(result.getSeed()));
+                }
+                System.out.println();
+            }
+        }
+    }
+
+    /**
+     * Opens a leaderboard that keeps DEFAULT_SIZE results per mode, creating the file if it doesn't exist.
+     *
+     * @param file The leaderboard's log file.
+     * @return The open leaderboard.
+     * @throws IOException if the file can't be opened or isn't a leaderboard.
+     */
+    public static Leaderboard open(Path file) throws IOException {
+        return open(file, DEFAULT_SIZE);
+    }
+
+    /**
+     * Opens a leaderboard, creating the file if it doesn't exist.
+     *
+     * @param file The leaderboard's log file.
+     * @param size How many results to keep for each mode.
+     * @return The open leaderboard.
+     * @throws IOException if the file can't be opened or isn't a leaderboard.
+     */
+    public static Leaderboard open(Path file, int size) throws IOException {
+        Leaderboard board = new Leaderboard(file, size);
+        board.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (board.channel.size() == 0) {
+                board.buffer.putInt(MAGIC);
+                board.buffer.putInt(VERSION);
+                board.drain();
+                board.channel.force(false);
+            } else {
+                long end = board.load();
+                board.channel.truncate(end); // drop a record cut off by a crash, so new ones aren't hidden behind it
+                board.channel.position(end);
+            }
+        } catch (IOException e) {
+            board.channel.close();
+            throw e;
+        }
+        board.writer.start();
+        return board;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * @return How many results are kept for each mode.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Adds a finished game to its mode's ranking and queues it to be written to the log. Nothing here waits
+     * for the disk, so it can be called from a game's own thread.
+     *
+     * @param result How the game ended (its id is replaced with a new one).
+     * @return The result as it was recorded, with its id, for rankOf().
+     */
+    public RunResult submit(RunResult result) {
+        RunResult recorded = result.withId(nextId.getAndIncrement());
+        rank(recorded);
+        pending.offer(recorded);
+        return recorded;
+    }
+
+    /**
+     * @param result A result returned by submit().
+     * @return Its place in its mode's ranking, from 1, or 0 if it isn't in the best size().
+     */
+    public int rankOf(RunResult result) {
+        Ranking ranking = rankings.get(result.getMode());
+        if (ranking == null || !ranking.results.contains(result)) {
+            return 0;
+        }
+        return ranking.results.headSet(result).size() + 1;
+    }
+
+    /**
+     * @param mode The mode's name.
+     * @param count How many results to return at most.
+     * @return The best results in that mode, best first.
+     */
+    public List<RunResult> top(String mode, int count) {
+        List<RunResult> top = new ArrayList<>();
+        Ranking ranking = rankings.get(mode);
+        if (ranking != null) {
+            Iterator<RunResult> results = ranking.results.iterator();
+            while (top.size() < count && results.hasNext()) {
+                top.add(results.next());
+            }
+        }
+        return top;
+    }
+
+    /**
+     * Writes every queued result to the log, then stops the writer and closes the file.
+     *
+     * @throws IOException if a write failed since the leaderboard was opened.
+     */
+    public void close() throws IOException {
+        pending.offer(STOP);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Adds a result to its mode's ranking and drops the worst result if that makes the ranking too long.
+     */
+    private void rank(RunResult result) {
+        Ranking ranking = rankings.computeIfAbsent(result.getMode(), mode -> new Ranking());
+        if (ranking.results.add(result) && ranking.count.incrementAndGet() > size) {
+            if (ranking.results.pollLast() != null) {
+                ranking.count.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * The writer thread: appends what's queued in batches, one fsync per batch, until close() is called.
+     */
+    private void writeQueued() {
+        List<RunResult> batch = new ArrayList<>();
+        boolean stopping = false;
+        while (!stopping) {
+            try {
+                batch.add(pending.take());
+            } catch (InterruptedException e) {
+                stopping = true;
+            }
+            pending.drainTo(batch);
+            for (RunResult result : batch) {
+                if (result == STOP) {
+                    stopping = true;
+                } else {
+                    append(result);
+                }
+            }
+            batch.clear();
+            drain();
+            try {
+                if (failure == null) {
+                    channel.force(false);
+                    if (logRecords > 2L * rankedCount() + COMPACT_SLACK) {
+                        compact();
+                    }
+                }
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+    }
+
+    /**
+     * Replaces the log with one that only holds the ranked results. The new log is written next to
+     * the old one and moved over it, so a crash leaves one or the other.
+     */
+    private void compact() throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".compact");
+        FileChannel old = channel;
+        channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        logRecords = 0;
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        for (Ranking ranking : rankings.values()) {
+            for (RunResult result : ranking.results) {
+                append(result);
+            }
+        }
+        drain();
+        if (failure != null) {
+            channel.close();
+            channel = old;
+            throw failure;
+        }
+        channel.force(false);
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        old.close();
+    }
+
+    private long rankedCount() {
+        long count = 0;
+        for (Ranking ranking : rankings.values()) {
+            count += ranking.count.get();
+        }
+        return count;
+    }
+
+    private void append(RunResult result) {
+        if (buffer.remaining() < MAX_RECORD) {
+            drain();
+        }
+        int start = buffer.position();
+        buffer.position(start + RECORD_HEADER);
+        buffer.putLong(result.getId());
+        buffer.putLong(result.getFinishedAt());
+        buffer.putLong(result.getSeed());
+        buffer.put((byte) result.getOutcome().ordinal());
+        buffer.putInt(result.getGold());
+        buffer.putInt(result.getTurns());
+        putString(result.getMode());
+        putString(result.getName());
+        int bodyLength = buffer.position() - start - RECORD_HEADER;
+        crc.reset();
+        crc.update(buffer.slice(start + RECORD_HEADER, bodyLength));
+        buffer.putInt(start, bodyLength);
+        buffer.putInt(start + 4, (int) crc.getValue());
+        logRecords++;
+    }
+
+    private void putString(String text) {
+        if (text.length() > MAX_STRING_CHARS) {
+            text = text.substring(0, MAX_STRING_CHARS);
+        }
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    /**
+     * Writes the buffer to the file (without forcing it to disk). Once a write fails, results are
+     * only kept in memory, since games shouldn't stop because the leaderboard did; close() reports the failure.
+     */
+    private void drain() {
+        buffer.flip();
+        try {
+            while (failure == null && buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            failure = e;
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Reads the log into the rankings.
+     *
+     * @return Where the last whole record ends.
+     */
+    private long load() throws IOException {
+        long fileSize = channel.size();
+        if (fileSize > Integer.MAX_VALUE) {
+            throw new IOException(file + " is too big to read");
+        }
+        MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+        if (fileSize < FILE_HEADER || map.getInt(0) != MAGIC || map.getInt(4) != VERSION) {
+            throw new IOException(file + " is not a leaderboard this version can read");
+        }
+        RunResult.Outcome[] outcomes = RunResult.Outcome.values();
+        CRC32 check = new CRC32();
+        int position = FILE_HEADER;
+        int limit = map.capacity();
+        long lastId = -1;
+        while (position + RECORD_HEADER <= limit) {
+            int bodyLength = map.getInt(position);
+            int body = position + RECORD_HEADER;
+            if (bodyLength < 37 || (long) body + bodyLength > limit) {
+                break;
+            }
+            check.reset();
+            check.update(map.slice(body, bodyLength));
+            if (map.getInt(position + 4) != (int) check.getValue()) {
+                break;
+            }
+            map.position(body);
+            long id = map.getLong();
+            long finishedAt = map.getLong();
+            long seed = map.getLong();
+            int outcome = map.get();
+            int gold = map.getInt();
+            int turns = map.getInt();
+            String mode = getString(map);
+            String name = getString(map);
+            if (outcome >= 0 && outcome < outcomes.length) {
+                rank(new RunResult(id, name, mode, outcomes[outcome], gold, turns, seed, finishedAt));
+            }
+            lastId = Math.max(lastId, id);
+            logRecords++;
+            position = body + bodyLength;
+        }
+        nextId.set(lastId + 1);
+        return position;
+    }
+
+    private static String getString(ByteBuffer fields) {
+        byte[] bytes = new byte[fields.getShort() & 0xffff];
+        fields.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * One mode's results, best first. The count is kept alongside because a skip list takes
+     * as long to count as to walk.
+     */
+    private static class Ranking {
+        final ConcurrentSkipListSet<RunResult> results = new ConcurrentSkipListSet<>(RunResult.BEST_FIRST);
+        final AtomicInteger count = new AtomicInteger();
+    }
+}
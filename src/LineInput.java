@@ -0,0 +1,47 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+
+/**
+ * An InputSource that reads lines straight from a reader on the game's own thread.<p>
+ * Used for network sessions, where every session already has its own (cheap) thread, so there is
+ * no need for a separate reader thread and queue like CommandQueue uses.
+ */
+
+public class LineInput implements InputSource {
+    private final BufferedReader reader;
+    private final boolean skipPauses;
+    private boolean ended;
+
+    /**
+     * @param reader Where the lines come from.
+     * @param skipPauses true if "Press enter to continue" shouldn't wait for a line.
+     */
+    public LineInput(BufferedReader reader, boolean skipPauses) {
+        this.reader = reader;
+        this.skipPauses = skipPauses;
+    }
+
+    public String nextLine() {
+        String line;
+        try {
+            line = reader.readLine();
+        } catch (IOException e) {
+            line = null; // the connection broke, which ends the game like running out of input
+        }
+        if (line == null) {
+            ended = true;
+        }
+        return line;
+    }
+
+    /**
+     * @return true if the input ran out (the other end hung up) rather than the player choosing to stop.
+     */
+    public boolean hasEnded() {
+        return ended;
+    }
+
+    public boolean skipsPauses() {
+        return skipPauses;
+    }
+}
@@ -0,0 +1,187 @@
+import java.io.BufferedReader;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drives a GameServer with many concurrent sessions and reports throughput and latency.<p>
+ * Every session connects, names its hunter, picks easy mode and then sends a fixed cycle of moves,
+ * timing each one from the moment it is sent until the end-of-frame line comes back.
+ * With --idle SECONDS the sessions just connect and sit there, to measure what idle sessions cost
+ * the server.<p>
+ *
+ * Usage: java LoadTestClient [host] [port] [sessions] [commandsPerSession] [--idle SECONDS]
+ */
+
+public class LoadTestClient {
+    private static final String[] MOVES = {"e", "d", "e", "h", "e", "q"}; // q is invalid, but cheap and harmless
+
+    public static void main(String[] args) throws Exception {
+        String host = "localhost";
+        int port = GameServer.DEFAULT_PORT;
+        int sessions = 100;
+        int commands = 1000;
+        int idleSeconds = -1;
+        int position = 0;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--idle") && i + 1 < args.length) {
+                idleSeconds = Integer.parseInt(args[++i]);
+            } else if (position == 0) {
+                host = args[i];
+                position++;
+            } else if (position == 1) {
+                port = Integer.parseInt(args[i]);
+                position++;
+            } else if (position == 2) {
+                sessions = Integer.parseInt(args[i]);
+                position++;
+            } else {
+                commands = Integer.parseInt(args[i]);
+            }
+        }
+        new LoadTestClient(host, port).run(sessions, idleSeconds < 0 ? commands : 0, Math.max(idleSeconds, 0));
+    }
+
+    private final String host;
+    private final int port;
+
+    public LoadTestClient(String host, int port) {
+        this.host = host;
+        this.port = port;
+    }
+
+    /**
+     * Runs the load test and prints the results.
+     *
+     * @param sessions How many sessions to open at once.
+     * @param commands How many timed moves each session sends.
+     * @param idleSeconds How long each session waits, connected, before it starts sending moves.
+     */
+    public void run(int sessions, int commands, int idleSeconds) throws InterruptedException {
+        long[][] latencies = new long[sessions][];
+        AtomicLong failures = new AtomicLong();
+        CountDownLatch connected = new CountDownLatch(sessions);
+        CountDownLatch done = new CountDownLatch(sessions);
+        ExecutorService threads = VirtualThreads.newExecutor();
+        long start = System.nanoTime();
+        for (int s = 0; s < sessions; s++) {
+            int session = s;
+            threads.execute(() -> {
+                try {
+                    latencies[session] = playSession(session, commands, idleSeconds, connected);
+                } catch (IOException e) {
+                    failures.incrementAndGet();
+                    latencies[session] = new long[0];
+                    connected.countDown();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        connected.await();
+        System.out.printf("%d sessions connected in %.2f s (%d failed)%n", sessions,
+                (System.nanoTime() - start) / 1e9, failures.get());
+        done.await();
+        double seconds = (System.nanoTime() - start) / 1e9 - idleSeconds;
+        threads.shutdown();
+        threads.awaitTermination(1, TimeUnit.MINUTES);
+
+        long[] all = Arrays.stream(latencies).flatMapToLong(Arrays::stream).toArray();
+        Arrays.sort(all);
+        if (all.length == 0) {
+            return;
+        }
+        System.out.printf("%d commands in %.2f s = %.0f commands/s%n", all.length, seconds, all.length / seconds);
+        System.out.printf("latency p50 %.3f ms, p99 %.3f ms, max %.3f ms%n",
+                percentile(all, 0.50) / 1e6, percentile(all, 0.99) / 1e6, all[all.length - 1] / 1e6);
+    }
+
+    /**
+     * Plays one session and returns how long each timed move took, in nanoseconds.
+     */
+    private long[] playSession(int session, int commands, int idleSeconds, CountDownLatch connected) throws IOException {
+        try (Socket socket = new Socket(host, port)) {
+            socket.setTcpNoDelay(true);
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+            if (expectFrame(in).contains(GameServer.SAVE_PROMPT)) {
+                send(out, ""); // the server saves games; start a new one
+                expectFrame(in);
+            }
+            send(out, "load" + session);
+            expectFrame(in); // mode prompt
+            send(out, "e");
+            expectFrame(in); // first menu
+            connected.countDown();
+            if (idleSeconds > 0) {
+                try {
+                    Thread.sleep(idleSeconds * 1000L);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            long[] latencies = new long[commands];
+            int sent = 0;
+            while (sent < commands) {
+                long before = System.nanoTime();
+                send(out, MOVES[sent % MOVES.length]);
+                if (readFrame(in) == null) {
+                    break; // the game ended (a win), so the server hung up
+                }
+                latencies[sent++] = System.nanoTime() - before;
+            }
+            return Arrays.copyOf(latencies, sent);
+        }
+    }
+
+    private static void send(Writer out, String line) throws IOException {
+        out.write(line);
+        out.write('\n');
+        out.flush();
+    }
+
+    /**
+     * Reads up to and including the next end-of-frame line.
+     *
+     * @return The frame's text, or null if the server closed the connection first.
+     */
+    private static String readFrame(BufferedReader in) throws IOException {
+        StringBuilder frame = new StringBuilder();
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (line.equals(ProtocolOutput.END_OF_FRAME)) {
+                return frame.toString();
+            }
+            frame.append(line).append('\n');
+        }
+        return null;
+    }
+
+    /**
+     * Reads a frame the session can't carry on without.
+     *
+     * @return The frame's text.
+     * @throws EOFException if the server closed the connection first, which fails the session.
+     */
+    private static String expectFrame(BufferedReader in) throws IOException {
+        String frame = readFrame(in);
+        if (frame == null) {
+            throw new EOFException("The server hung up");
+        }
+        return frame;
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+}
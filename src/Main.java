@@ -1,42 +1,57 @@
-import java.awt.Color;
+import java.awt.GraphicsEnvironment;
 import java.util.Scanner;
 
 public class Main {
     public static void main(String[] args) {
-        OutputWindow window = new OutputWindow(); // only want one OutputWindow object
+        OutputSink window = openOutput(args); // only want one output object
         Scanner scan = new Scanner(System.in);
 
-        window.addTextToWindow("Enter next player's name ", Color.cyan);
-        String name = scan.nextLine();
+        window.addTextToWindow("Enter next player's name ", TextColor.CYAN);
+        String name = readLine(window, scan);
         Player player = new Player(name, window); // pass window to Player as parameter
         player.welcome();
-        Color orange = new Color(240, 80, 20); // RGB!
+        TextColor orange = new TextColor(240, 80, 20); // RGB!
         window.addTextToWindow("\n\nPress enter to continue...", orange);
-        scan.nextLine();
+        readLine(window, scan);
 
         String choice = "";
         while (!choice.equals("q")) {
             window.clear();
-            window.addTextToWindow("MAIN MENU ", Color.black);
-            window.addTextToWindow("\n(a)ttack", Color.black);
-            window.addTextToWindow("\n(d)odge", Color.black);
-            window.addTextToWindow("\n(q)uit", Color.black);
-            window.addTextToWindow("\n\nEnter your move: ", Color.black);
-            choice = scan.nextLine();
+            window.addTextToWindow("MAIN MENU ", TextColor.BLACK);
+            window.addTextToWindow("\n(a)ttack", TextColor.BLACK);
+            window.addTextToWindow("\n(d)odge", TextColor.BLACK);
+            window.addTextToWindow("\n(q)uit", TextColor.BLACK);
+            window.addTextToWindow("\n\nEnter your move: ", TextColor.BLACK);
+            choice = readLine(window, scan);
             if (choice.equals("a")) {
                 window.clear();
-                window.addTextToWindow("YOU ATTACK FOR 10!", Color.red);
-                window.addTextToWindow("\n\nPress enter to continue...", Color.black);
-                scan.nextLine();
+                window.addTextToWindow("YOU ATTACK FOR 10!", TextColor.RED);
+                window.addTextToWindow("\n\nPress enter to continue...", TextColor.BLACK);
+                readLine(window, scan);
             } else if (choice.equals("d")) {
                 window.clear();
-                window.addTextToWindow("YOU DODGE THE ATTACK!\nTHE DRAGON IS ENRAGED!", Color.orange);
-                window.addTextToWindow("\n\nPress enter to continue...", Color.black);
-                scan.nextLine();
+                window.addTextToWindow("YOU DODGE THE ATTACK!\nTHE DRAGON IS ENRAGED!", TextColor.ORANGE);
+                window.addTextToWindow("\n\nPress enter to continue...", TextColor.BLACK);
+                readLine(window, scan);
             }
         }
 
         window.clear();
-        window.addTextToWindow("Goodbye! Close window to exit.", Color.black);
+        window.addTextToWindow("Goodbye! Close window to exit.", TextColor.BLACK);
+        window.flush();
+    }
+
+    // like TreasureHunterRunner, only open a window (and load Swing) when there is a screen and no --headless
+    private static OutputSink openOutput(String[] args) {
+        if (args.length > 0 && args[0].equals("--headless") || GraphicsEnvironment.isHeadless()) {
+            return new ConsoleOutput();
+        }
+        return new OutputWindow();
+    }
+
+    // the window only draws when flushed, so show the text before waiting on the player
+    private static String readLine(OutputSink window, Scanner scan) {
+        window.flush();
+        return scan.nextLine();
     }
 }
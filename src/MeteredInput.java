@@ -0,0 +1,33 @@
+/**
+ * An InputSource that times how long the game waits on another one, for GameMetrics.<p>
+ * Time spent waiting for the player isn't the game's fault, so it is taken out of the turn times.
+ */
+
+public class MeteredInput implements InputSource {
+    private final InputSource in;
+    private long nanos;
+
+    public MeteredInput(InputSource in) {
+        this.in = in;
+    }
+
+    /**
+     * @return The total time spent waiting for lines so far.
+     */
+    public long getNanos() {
+        return nanos;
+    }
+
+    public String nextLine() {
+        long start = System.nanoTime();
+        String line = in.nextLine();
+        long took = System.nanoTime() - start;
+        nanos += took;
+        GameMetrics.recordInputWait(took);
+        return line;
+    }
+
+    public boolean skipsPauses() {
+        return in.skipsPauses();
+    }
+}
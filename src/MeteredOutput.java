@@ -0,0 +1,47 @@
+/**
+ * An OutputSink that times another one, for GameMetrics.<p>
+ * It adds up the time spent in every call, so a turn's render time can be taken out of its total,
+ * and records how long each flush (each frame) took. One game uses it from one thread.
+ */
+
+public class MeteredOutput implements OutputSink {
+    private final OutputSink out;
+    private long nanos;
+
+    public MeteredOutput(OutputSink out) {
+        this.out = out;
+    }
+
+    /**
+     * @return The total time spent in the wrapped sink so far.
+     */
+    public long getNanos() {
+        return nanos;
+    }
+
+    public void addTextToWindow(String text, TextColor color) {
+        long start = System.nanoTime();
+        out.addTextToWindow(text, color);
+        nanos += System.nanoTime() - start;
+    }
+
+    public void clear() {
+        long start = System.nanoTime();
+        out.clear();
+        nanos += System.nanoTime() - start;
+    }
+
+    public void showScreen(Screen screen) {
+        long start = System.nanoTime();
+        out.showScreen(screen);
+        nanos += System.nanoTime() - start;
+    }
+
+    public void flush() {
+        long start = System.nanoTime();
+        out.flush();
+        long took = System.nanoTime() - start;
+        nanos += took;
+        GameMetrics.recordFlush(took);
+    }
+}
@@ -0,0 +1,14 @@
+/**
+ * An OutputSink that ignores everything it is given.
+ * Used when the game is being played by a simulation and nobody reads the text.
+ */
+
+public class NullOutput implements OutputSink {
+    public static final NullOutput INSTANCE = new NullOutput();
+
+    public void addTextToWindow(String text, TextColor color) {
+    }
+
+    public void clear() {
+    }
+}
@@ -0,0 +1,38 @@
+/**
+ * An OutputSink is anywhere the game can send its text.<p>
+ * The Swing OutputWindow is one sink, but the game can also print to a terminal
+ * or throw its text away entirely when nobody is watching (simulations).
+ */
+
+public interface OutputSink {
+    /**
+     * Adds text to the end of the output.
+     *
+     * @param text The text to add.
+     * @param color The color the text should be shown in.
+     */
+    void addTextToWindow(String text, TextColor color);
+
+    /**
+     * Empties the output so the next frame starts on a blank screen.
+     */
+    void clear();
+
+    /**
+     * Replaces everything in the output with a screen, as if clear() was called and then each region added.
+     * Sinks that remember what they last showed redraw only the regions that changed since the last time
+     * they showed the same screen. Text added afterwards goes below the screen.
+     *
+     * @param screen The screen to show.
+     */
+    default void showScreen(Screen screen) {
+        clear();
+        screen.addTo(this);
+    }
+
+    /**
+     * Pushes any buffered text out to the player. Called right before the game waits for input.
+     */
+    default void flush() {
+    }
+}
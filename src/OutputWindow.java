@@ -1,38 +1,320 @@
 import java.awt.Color;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import javax.swing.JFrame;
 import javax.swing.JTextPane;
+import javax.swing.SwingUtilities;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.DefaultStyledDocument;
 import javax.swing.text.Style;
 import javax.swing.text.StyleConstants;
+import javax.swing.text.StyleContext;
 import javax.swing.text.StyledDocument;
 
-public class OutputWindow {
+/**
+ * The Swing OutputSink.<p>
+ * Text added by the game is collected into a frame of colored segments. Nothing touches Swing until
+ * flush() is called, which hands the whole frame to the event dispatch thread (EDT) as one task.
+ * A clear() followed by a redraw becomes a single document swap instead of dozens of inserts.<p>
+ * A Screen is kept in the document between frames: the window remembers where each region starts, and
+ * showing the same screen again replaces only the regions whose text changed (and removes whatever was
+ * added below it), so the pane doesn't flicker or lay out the whole menu again every turn.
+ */
+
+public class OutputWindow implements OutputSink {
+    private static final int FONT_SIZE = 25;
 
-    private StyledDocument doc;
-    private Style style;
     private JTextPane textPane;
+    private volatile Runnable closing; // what X-ing out the window does instead of exiting (see onClose)
+    private boolean closeRequested; // only used on the EDT
+    private final StyleContext styles; // shared by every document the pane shows
+    private final Map<TextColor, Style> styleByColor; // only used on the EDT
+
+    // the frame being built by the game thread, guarded by "this"
+    private List<Segment> pending;
+    private boolean clearPending;
+    private Screen screenPending;
+    private String[] screenTextsPending;
+
+    // the screen at the top of the document, only used on the EDT
+    private Screen shownScreen;
+    private String[] shownTexts;
+    private int[] regionStarts;
+    private int screenEnd;
 
     public OutputWindow() {
+        styles = new StyleContext();
+        styleByColor = new HashMap<>();
+        pending = new ArrayList<>();
+        try {
+            SwingUtilities.invokeAndWait(this::buildFrame); // Swing components belong on the EDT
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not open the output window", e);
+        }
+    }
+
+    private void buildFrame() {
         JFrame frame = new JFrame("Test");
-        frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE); // causes program to end when window is X'd out
+        // X-ing out the window ends the program, unless the game has asked to wind down first (see onClose)
+        frame.setDefaultCloseOperation(JFrame.DO_NOTHING_ON_CLOSE);
+        frame.addWindowListener(new WindowAdapter() {
+            public void windowClosing(WindowEvent e) {
+                closeRequested = true;
+                Runnable action = closing;
+                if (action == null) {
+                    System.exit(0);
+                } else {
+                    action.run();
+                }
+            }
+        });
         frame.setSize(500, 400); // window size
         frame.setLocation(300, 50); // where on screen window appears
-        textPane = new JTextPane(); // panel that can handle custom text
+        textPane = new JTextPane(new DefaultStyledDocument(styles)); // panel that can handle custom text
         textPane.setEditable(false); // prevents user from typing into window
-        doc = textPane.getStyledDocument(); // call getter method for panel's style doc
-        style = doc.addStyle("my style", null); // add a custom style to the doc
-        StyleConstants.setFontSize(style, 25); // apply font size to custom style
         frame.add(textPane); // add the panel to the frame
         frame.setVisible(true); // display the frame on screen
     }
 
-    public void addTextToWindow(String text, Color color) {
-        StyleConstants.setForeground(style, color); // apply color to custom style
+    public synchronized void addTextToWindow(String text, TextColor color) {
+        int last = pending.size() - 1;
+        if (last >= 0 && pending.get(last).color.equals(color)) {
+            pending.get(last).text.append(text); // same color as before, so it can share one insert
+        } else {
+            pending.add(new Segment(text, color));
+        }
+    }
+
+    public synchronized void clear() {
+        pending.clear(); // whatever was waiting would be wiped before anyone saw it
+        clearPending = true;
+        screenPending = null;
+        screenTextsPending = null;
+    }
+
+    public synchronized void showScreen(Screen screen) {
+        pending.clear();
+        clearPending = false;
+        screenPending = screen;
+        screenTextsPending = screen.copyTexts(); // the game changes the screen again before the EDT gets to it
+    }
+
+    public void flush() {
+        List<Segment> frame;
+        boolean wipe;
+        Screen screen;
+        String[] texts;
+        synchronized (this) {
+            if (pending.isEmpty() && !clearPending && screenPending == null) {
+                return;
+            }
+            frame = pending;
+            wipe = clearPending;
+            screen = screenPending;
+            texts = screenTextsPending;
+            pending = new ArrayList<>();
+            clearPending = false;
+            screenPending = null;
+            screenTextsPending = null;
+        }
+        SwingUtilities.invokeLater(() -> render(frame, wipe, screen, texts));
+    }
+
+    /**
+     * Applies one frame to the text pane. Runs on the EDT.<p>
+     * If the frame starts with a clear, or with a screen the document isn't already showing, the text goes
+     * into a brand new document that is swapped in at the end, so the pane is only laid out once.
+     * If it starts with the screen already at the top of the document, only the changed regions are replaced.
+     *
+     * @param frame The segments to show after the screen (if any), in order.
+     * @param wipe true if the old text should be thrown away first.
+     * @param screen The screen the frame starts with, or null.
+     * @param texts The text of each of the screen's regions.
+     */
+    private void render(List<Segment> frame, boolean wipe, Screen screen, String[] texts) {
+        long start = System.nanoTime();
+        StyledDocument doc;
+        boolean swap = wipe;
+        if (screen != null && screen == shownScreen) {
+            doc = textPane.getStyledDocument();
+            updateScreen(doc, texts);
+        } else if (screen != null) {
+            doc = new DefaultStyledDocument(styles);
+            drawScreen(doc, screen, texts);
+            swap = true;
+        } else if (wipe) {
+            doc = new DefaultStyledDocument(styles);
+            shownScreen = null;
+        } else {
+            doc = textPane.getStyledDocument();
+        }
+        try {
+            for (Segment segment : frame) {
+                doc.insertString(doc.getLength(), segment.text.toString(), styleFor(segment.color));
+                if (GameMetrics.ENABLED) {
+                    GameMetrics.recordWindowInsert(segment.text.length());
+                }
+            }
+        } catch (BadLocationException e) {
+            // always inserting at the end, so this can't happen
+        }
+        if (swap) {
+            textPane.setDocument(doc);
+        }
+        if (GameMetrics.ENABLED) {
+            GameMetrics.recordSwingRender(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Writes a whole screen into an empty document and remembers where its regions are. Runs on the EDT.
+     *
+     * @param doc The new document.
+     * @param screen The screen.
+     * @param texts The text of each region.
+     */
+    private void drawScreen(StyledDocument doc, Screen screen, String[] texts) {
+        regionStarts = new int[texts.length];
+        try {
+            for (int i = 0; i < texts.length; i++) {
+                Style style = styleFor(screen.getColor(i));
+                if (i > 0) {
+                    doc.insertString(doc.getLength(), "\n", style);
+                }
+                regionStarts[i] = doc.getLength();
+                doc.insertString(doc.getLength(), texts[i], style);
+                if (GameMetrics.ENABLED) {
+                    GameMetrics.recordWindowInsert(texts[i].length());
+                }
+            }
+        } catch (BadLocationException e) {
+            // always inserting at the end, so this can't happen
+        }
+        screenEnd = doc.getLength();
+        shownScreen = screen;
+        shownTexts = texts;
+    }
+
+    /**
+     * Brings the screen at the top of the document up to date, replacing only the regions that changed,
+     * and removes everything that was added below it. Runs on the EDT.
+     *
+     * @param doc The pane's document.
+     * @param texts The new text of each region.
+     */
+    private void updateScreen(StyledDocument doc, String[] texts) {
+        int shift = 0; // how far the regions below the last change have moved
         try {
-            doc.insertString(doc.getLength(), text, style); } // insert text at end the panel
-        catch (Exception e) { }
+            for (int i = 0; i < texts.length; i++) {
+                regionStarts[i] += shift;
+                String old = shownTexts[i];
+                if (!texts[i].equals(old)) {
+                    doc.remove(regionStarts[i], old.length());
+                    doc.insertString(regionStarts[i], texts[i], styleFor(shownScreen.getColor(i)));
+                    shift += texts[i].length() - old.length();
+                    shownTexts[i] = texts[i];
+                    if (GameMetrics.ENABLED) {
+                        GameMetrics.recordWindowInsert(texts[i].length());
+                    }
+                }
+            }
+            screenEnd += shift;
+            doc.remove(screenEnd, doc.getLength() - screenEnd);
+        } catch (BadLocationException e) {
+            // the offsets are kept in step with every change, so this can't happen
+        }
+    }
+
+    /**
+     * Finds the style for a color, building it the first time the color is used.
+     *
+     * @param color The text color.
+     * @return A style with that foreground and the window's font size.
+     */
+    private Style styleFor(TextColor color) {
+        Style style = styleByColor.get(color);
+        if (style == null) {
+            style = styles.addStyle(null, null);
+            StyleConstants.setFontSize(style, FONT_SIZE);
+            StyleConstants.setForeground(style, new Color(color.getRgb()));
+            styleByColor.put(color, style);
+        }
+        return style;
     }
 
-    public void clear() {
-        textPane.setText("");  // set panel's text to empty string to "reset it"
+    /**
+     * Makes X-ing out the window run an action instead of ending the program, so the game can stop and be
+     * saved first; call exitOnClose() once it has. The action runs on the EDT, so it must not touch the
+     * game or wait for it.
+     *
+     * @param action What to do, such as closing the game's input.
+     */
+    public void onClose(Runnable action) {
+        closing = action;
+    }
+
+    /**
+     * Goes back to ending the program when the window is X'd out, and ends it now if it already was.
+     */
+    public void exitOnClose() {
+        SwingUtilities.invokeLater(() -> {
+            closing = null;
+            if (closeRequested) {
+                System.exit(0);
+            }
+        });
+    }
+
+    /**
+     * Lets the player type into the window. Each line typed (ending with enter) is added to the queue,
+     * and the typed characters are echoed into the window as they go.
+     *
+     * @param queue Where the typed lines go.
+     */
+    public void sendKeysTo(CommandQueue queue) {
+        queue.openSource(); // the window never stops being a source of lines
+        SwingUtilities.invokeLater(() -> textPane.addKeyListener(new KeyAdapter() {
+            private final StringBuilder typed = new StringBuilder();
+
+            public void keyTyped(KeyEvent e) {
+                char c = e.getKeyChar();
+                StyledDocument doc = textPane.getStyledDocument();
+                try {
+                    if (c == '\n') {
+                        queue.offer(typed.toString());
+                        typed.setLength(0);
+                    } else if (c == '\b') {
+                        if (typed.length() > 0) {
+                            typed.setLength(typed.length() - 1);
+                            doc.remove(doc.getLength() - 1, 1);
+                        }
+                    } else if (c != KeyEvent.CHAR_UNDEFINED && !Character.isISOControl(c)) {
+                        typed.append(c);
+                        doc.insertString(doc.getLength(), String.valueOf(c), styleFor(TextColor.BLACK));
+                        if (GameMetrics.ENABLED) {
+                            GameMetrics.recordWindowInsert(1);
+                        }
+                    }
+                } catch (BadLocationException ex) {
+                    // only ever editing the end of the document
+                }
+            }
+        }));
+    }
+
+    private static class Segment {
+        private final StringBuilder text;
+        private final TextColor color;
+
+        private Segment(String text, TextColor color) {
+            this.text = new StringBuilder(text);
+            this.color = color;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,155 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Plays a mode over a grid of tunings (see GameTuning) to see how each number changes the balance:
+ * town toughness, the shop's markdown, the starting gold, and a scale on every item price.<p>
+ * Each point on the grid plays the same number of headless games with the EXPLORER policy, and game i
+ * uses the same seed at every point as it does in BalanceSimulator, so two points differ by their
+ * numbers and not by their luck. The games are cut into blocks of up to BLOCK_GAMES from one point,
+ * and the blocks of every point are spread over the fork-join pool together. Each finished block is
+ * written to a SweepWriter file straight away, so nothing is held in memory; use SweepReader to look
+ * at the results.<p>
+ *
+ * Usage: java ParameterSweep FILE [--mode n] [--games 10000] [--seed 42] [--toughness 0.1,0.4,0.75]
+ * [--markdown 0.25,0.5,1] [--gold 20,40,100] [--prices 0.5,1,1.5]
+ */
+
+public class ParameterSweep {
+    private static final int MAX_TURNS = 1000; // the same as BalanceSimulator's
+    private static final int BLOCK_GAMES = 8192;
+
+    private final String mode;
+    private final GameTuning[] points;
+    private final int gamesPerPoint;
+    private final long seed;
+    private final BalanceSimulator simulator;
+
+    /**
+     * @param mode The mode letter to play ("e", "n", "h" or "s").
+     * @param points The tunings to try.
+     * @param gamesPerPoint How many games to play with each tuning.
+     * @param seed Where the games' seeds start.
+     */
+    public ParameterSweep(String mode, GameTuning[] points, int gamesPerPoint, long seed) {
+        this.mode = mode;
+        this.points = points.clone();
+        this.gamesPerPoint = gamesPerPoint;
+        this.seed = seed;
+        simulator = new BalanceSimulator(SimulationPolicy.EXPLORER, MAX_TURNS);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("Usage: java ParameterSweep FILE [--mode n] [--games 10000] [--seed 42]"
+                    + " [--toughness 0.1,0.4,0.75] [--markdown 0.25,0.5,1] [--gold 20,40,100] [--prices 0.5,1,1.5]");
+            return;
+        }
+        Path file = Path.of(args[0]);
+        String mode = "n";
+        int games = 10_000;
+        long seed = 42;
+        double[] toughness = {0.1, 0.4, 0.75};
+        double[] markdown = {0.25, 0.5, 1};
+        double[] gold = {20, 40, 100};
+        double[] prices = {0.5, 1, 1.5};
+        for (int i = 1; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--mode":
+                    mode = value;
+                    break;
+                case "--games":
+                    games = Integer.parseInt(value);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(value);
+                    break;
+                case "--toughness":
+                    toughness = parseList(value);
+                    break;
+                case "--markdown":
+                    markdown = parseList(value);
+                    break;
+                case "--gold":
+                    gold = parseList(value);
+                    break;
+                case "--prices":
+                    prices = parseList(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        List<GameTuning> grid = new ArrayList<>();
+        for (double t : toughness) {
+            for (double m : markdown) {
+                for (double g : gold) {
+                    for (double p : prices) {
+                        grid.add(new GameTuning(t, m, (int) g, p));
+                    }
+                }
+            }
+        }
+        ParameterSweep sweep = new ParameterSweep(mode, grid.toArray(new GameTuning[0]), games, seed);
+        long start = System.nanoTime();
+        long rows;
+        try (SweepWriter writer = SweepWriter.create(file, mode, sweep.points)) {
+            sweep.run(writer);
+            rows = writer.getRows();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d points x %d games = %d games in %.1f s (%.0f games/s), %.1f MB written to %s%n",
+                grid.size(), games, rows, seconds, rows / seconds, Files.size(file) / 1e6, file);
+        System.out.println("See the results with: java SweepReader " + file + " toughness markdown");
+    }
+
+    /**
+     * Plays every game of the sweep and writes them all to a file.
+     *
+     * @param writer Where the games go.
+     */
+    public void run(SweepWriter writer) {
+        int blocksPerPoint = (gamesPerPoint + BLOCK_GAMES - 1) / BLOCK_GAMES;
+        IntStream.range(0, points.length * blocksPerPoint).parallel().forEach(task -> {
+            int point = task / blocksPerPoint;
+            int from = (task % blocksPerPoint) * BLOCK_GAMES;
+            int to = Math.min(gamesPerPoint, from + BLOCK_GAMES);
+            SweepWriter.Block block = new SweepWriter.Block(to - from);
+            ScriptedInput input = new ScriptedInput();
+            for (int game = from; game < to; game++) {
+                playOne(point, game, input, block);
+            }
+            writer.write(block);
+        });
+    }
+
+    private void playOne(int point, int number, ScriptedInput input, SweepWriter.Block block) {
+        TreasureHunter game = new TreasureHunter(NullOutput.INSTANCE, input, BalanceSimulator.gameSeed(seed, number));
+        game.setTuning(points[point]);
+        game.startGame("sim", mode);
+        int turns = simulator.play(game, input);
+        Hunter hunter = game.getHunter();
+        byte outcome = SweepWriter.STALEMATE;
+        if (BalanceSimulator.isBroke(game)) {
+            outcome = SweepWriter.BROKE;
+        } else if (hunter.getIsFoundTreasure()) {
+            outcome = SweepWriter.WON;
+        }
+        block.add(point, number, outcome, turns, hunter.getGold());
+    }
+
+    private static double[] parseList(String list) {
+        String[] parts = list.split(",");
+        double[] values = new double[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            values[i] = Double.parseDouble(parts[i].trim());
+        }
+        return values;
+    }
+}
@@ -1,16 +1,14 @@
-import java.awt.Color;
-
 public class Player {
     private String name;
-    private OutputWindow window;
+    private OutputSink window;
 
-    public Player(String name, OutputWindow window) {
+    public Player(String name, OutputSink window) {
         this.name = name;
         this.window = window;
     }
 
     public void welcome() {
         window.clear();
-        window.addTextToWindow("Welcome " + name, Color.blue);
+        window.addTextToWindow("Welcome " + name, TextColor.BLUE);
     }
 }
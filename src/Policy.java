@@ -0,0 +1,139 @@
+/**
+ * A Policy plays the game in place of a person, in the same JVM as the game.<p>
+ * Each turn it looks at the game's GameView and returns a Decision, which the game carries out
+ * directly (see TreasureHunter.processChoice(Decision)): nothing is typed, read or parsed, so a
+ * policy plays as fast as the game's own logic runs. Unlike a SimulationPolicy, which answers with
+ * the text a player would type, the shop's item and answer come with the decision.<p>
+ * The reference policies keep no state of their own, so one can play any number of games on any
+ * number of threads at once.
+ */
+
+public interface Policy {
+    /**
+     * Picks the next move.
+     *
+     * @param game What the policy can see of the game.
+     * @return What to do. Should not be null.
+     */
+    Decision decide(GameView game);
+
+    /**
+     * Plays the way most people do: search every town, buy whatever is needed to move on, and dig or
+     * brawl for gold when it runs short. It makes the same moves as SimulationPolicy.EXPLORER.
+     */
+    Policy RULES = game -> {
+        if (!game.isSearched()) {
+            return Decision.of(Action.HUNT);
+        }
+        if (game.canLeave()) {
+            return Decision.of(Action.MOVE);
+        }
+        if (game.isSamuraiMode() && !game.hasSword()) {
+            return Decision.buy(ItemCatalog.SWORD); // the sword makes everything else free
+        }
+        Item needed = game.getTerrain().getNeededKitItem();
+        if (game.hasSword() || game.getGold() >= game.getPrice(needed)) {
+            return Decision.buy(needed);
+        }
+        if (!game.isDug()) {
+            if (game.hasItem(ItemCatalog.SHOVEL)) {
+                return Decision.of(Action.DIG);
+            }
+            if (game.getGold() >= game.getPrice(ItemCatalog.SHOVEL)) {
+                return Decision.buy(ItemCatalog.SHOVEL);
+            }
+        }
+        return Decision.of(Action.TROUBLE);
+    };
+
+    /**
+     * Takes everything a town gives away before moving on: it searches, digs if it has a shovel and
+     * picks up anything free, and only ever spends gold on the item it needs to leave.
+     */
+    Policy GREEDY = game -> {
+        if (!game.isSearched()) {
+            return Decision.of(Action.HUNT);
+        }
+        if (!game.isDug() && game.hasItem(ItemCatalog.SHOVEL)) {
+            return Decision.of(Action.DIG);
+        }
+        for (int id = 0; id < ItemCatalog.size(); id++) {
+            Item item = ItemCatalog.byId(id);
+            if (game.getPrice(item) == 0 && game.canBuy(item)) {
+                return Decision.buy(item);
+            }
+        }
+        if (game.canLeave()) {
+            return Decision.of(Action.MOVE);
+        }
+        Item needed = game.getTerrain().getNeededKitItem();
+        if (game.canBuy(needed)) {
+            return Decision.buy(needed);
+        }
+        return Decision.of(Action.TROUBLE);
+    };
+
+    /**
+     * Picks at random from the actions that would do something, never quitting; see random(long).
+     */
+    Policy RANDOM = random(0);
+
+    /**
+     * Makes a policy that picks at random from the actions that would do something (see
+     * GameView.getAvailableActions()), except quitting, and buys or sells a random item it can.<p>
+     * Its choices come from mixing the game's seed with the turn number rather than from a generator
+     * of its own, so it keeps no state, and a game played with it again makes the same moves.
+     *
+     * @param salt Mixed into every choice, so different salts play the same game differently.
+     * @return The policy.
+     */
+    static Policy random(long salt) {
+        return game -> {
+            long bits = BalanceSimulator.gameSeed(game.getSeed() ^ salt, game.getTurns());
+            int actions = game.getAvailableActions() & ~Action.QUIT.bit();
+            Action action = Action.byOrdinal(nthBit(actions, (int) ((bits >>> 32) % Integer.bitCount(actions))));
+            if (action != Action.BUY && action != Action.SELL) {
+                return Decision.of(action);
+            }
+            long items = 0;
+            long kit = game.getKit();
+            for (int id = 0; id < ItemCatalog.size(); id++) {
+                Item item = ItemCatalog.byId(id);
+                boolean can = action == Action.BUY ? game.canBuy(item)
+                        : (kit & (1L << id)) != 0 && game.getSellPrice(item) > 0;
+                if (can) {
+                    items |= 1L << id;
+                }
+            }
+            Item item = ItemCatalog.byId(nthBit(items, (int) ((bits & 0xffffffffL) % Long.bitCount(items))));
+            return action == Action.BUY ? Decision.buy(item) : Decision.sell(item);
+        };
+    }
+
+    /**
+     * @param name "rules", "greedy" or "random".
+     * @return The reference policy with that name, or null if there isn't one.
+     */
+    static Policy named(String name) {
+        switch (name) {
+            case "rules":
+                return RULES;
+            case "greedy":
+                return GREEDY;
+            case "random":
+                return RANDOM;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * @return The position of the set bit that has n set bits below it.
+     */
+    private static int nthBit(long mask, int n) {
+        for (int i = 0; i < n; i++) {
+            mask &= mask - 1;
+        }
+        return Long.numberOfTrailingZeros(mask);
+    }
+}
@@ -0,0 +1,51 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The OutputSink for a network session.<p>
+ * The game's text is sent as plain lines without colors. Each time the game waits for input the
+ * text so far is sent, followed by a line holding only END_OF_FRAME, so a client knows the game
+ * has finished answering and is ready for the next command.
+ */
+
+public class ProtocolOutput implements OutputSink {
+    public static final String END_OF_FRAME = ".";
+
+    private final OutputStream out;
+    private final StringBuilder buffer;
+    private boolean broken;
+
+    public ProtocolOutput(OutputStream out) {
+        this.out = out;
+        buffer = new StringBuilder(256); // kept small, a server holds thousands of these
+    }
+
+    public void addTextToWindow(String text, TextColor color) {
+        buffer.append(text);
+    }
+
+    public void clear() {
+        if (buffer.length() > 0 && buffer.charAt(buffer.length() - 1) != '\n') {
+            buffer.append('\n');
+        }
+    }
+
+    public void flush() {
+        if (broken) {
+            buffer.setLength(0);
+            return;
+        }
+        if (buffer.length() > 0 && buffer.charAt(buffer.length() - 1) != '\n') {
+            buffer.append('\n');
+        }
+        buffer.append(END_OF_FRAME).append('\n');
+        try {
+            out.write(buffer.toString().getBytes(StandardCharsets.UTF_8));
+            out.flush();
+        } catch (IOException e) {
+            broken = true; // the client is gone; its next read will end the game
+        }
+        buffer.setLength(0);
+    }
+}
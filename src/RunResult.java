@@ -0,0 +1,132 @@
+import java.util.Comparator;
+
+/**
+ * How one finished game ended, for the Leaderboard: who played it, in which mode, whether they found
+ * all three treasures, went broke or quit, and the gold and turns they ended with.
+ */
+
+public final class RunResult {
+    /**
+     * How a game ended.
+     */
+    public enum Outcome {
+        WON, BROKE, QUIT
+    }
+
+    /**
+     * Best first: winners before everyone else, the fastest winners first (then the richest),
+     * and everyone else by the gold they kept (then the fewest turns). Ties go to whoever finished first.
+     */
+    public static final Comparator<RunResult> BEST_FIRST = (a, b) -> {
+        boolean aWon = a.outcome == Outcome.WON;
+        if (aWon != (b.outcome == Outcome.WON)) {
+            return aWon ? -1 : 1;
+        }
+        int order;
+        if (aWon) {
+            order = Integer.compare(a.turns, b.turns);
+            if (order == 0) {
+                order = Integer.compare(b.gold, a.gold);
+            }
+        } else {
+            order = Integer.compare(b.gold, a.gold);
+            if (order == 0) {
+                order = Integer.compare(a.turns, b.turns);
+            }
+        }
+        if (order == 0) {
+            order = Long.compare(a.id, b.id);
+        }
+        return order;
+    };
+
+    private final long id;
+    private final String name;
+    private final String mode;
+    private final Outcome outcome;
+    private final int gold;
+    private final int turns;
+    private final long seed;
+    private final long finishedAt;
+
+    /**
+     * @param id A number no other result on the same leaderboard has; lower numbers finished earlier.
+     * @param name The hunter's name.
+     * @param mode The mode's name ("easy", "normal", "hard" or "samurai").
+     * @param outcome How the game ended.
+     * @param gold The hunter's gold at the end.
+     * @param turns The turns the game took.
+     * @param seed The game's seed, so the run can be played again.
+     * @param finishedAt When the game ended, in milliseconds since 1970.
+     */
+    public RunResult(long id, String name, String mode, Outcome outcome, int gold, int turns, long seed, long finishedAt) {
+        this.id = id;
+        this.name = name;
+        this.mode = mode;
+        this.outcome = outcome;
+        this.gold = gold;
+        this.turns = turns;
+        this.seed = seed;
+        this.finishedAt = finishedAt;
+    }
+
+    /**
+     * @param game A game that has started.
+     * @return How it stands now; the id is left at 0 for Leaderboard.submit() to fill in.
+     */
+    public static RunResult of(TreasureHunter game) {
+        Hunter hunter = game.getHunter();
+        Outcome outcome = Outcome.QUIT;
+        if (hunter.getIsFoundTreasure()) {
+            outcome = Outcome.WON;
+        } else if (game.getCurrentTown() != null && game.getCurrentTown().getHasLost()) {
+            outcome = Outcome.BROKE;
+        }
+        return new RunResult(0, hunter.getHunterName(), game.getModeName(), outcome, hunter.getGold(),
+                game.getTurns(), game.getSeed(), System.currentTimeMillis());
+    }
+
+    /**
+     * @param id The id to give it.
+     * @return The same result with a different id.
+     */
+    public RunResult withId(long id) {
+        return new RunResult(id, name, mode, outcome, gold, turns, seed, finishedAt);
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getMode() {
+        return mode;
+    }
+
+    public Outcome getOutcome() {
+        return outcome;
+    }
+
+    public int getGold() {
+        return gold;
+    }
+
+    public int getTurns() {
+        return turns;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public long getFinishedAt() {
+        return finishedAt;
+    }
+
+    public String toString() {
+        return name + " (" + mode + ") " + outcome.name().toLowerCase() + " with " + gold + " gold in " + turns + " turns";
+    }
+}
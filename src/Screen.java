@@ -0,0 +1,66 @@
+/**
+ * A screen made of fixed regions stacked top to bottom, like the main menu's news, status, treasures,
+ * town and choices.<p>
+ * The game sets the text of every region each frame and hands the screen to OutputSink.showScreen().
+ * A sink that remembers what it last showed (OutputWindow, ConsoleOutput) then redraws only the regions
+ * whose text changed, instead of clearing and redrawing everything. Hunter and Town cache their status
+ * text, so an unchanged region is usually the very same String and costs nothing to compare.<p>
+ * Each region has one color and starts on a new line.
+ */
+
+public class Screen {
+    private final TextColor[] colors;
+    private final String[] texts;
+
+    /**
+     * @param colors The color of each region, top to bottom.
+     */
+    public Screen(TextColor... colors) {
+        this.colors = colors.clone();
+        texts = new String[colors.length];
+        for (int i = 0; i < texts.length; i++) {
+            texts[i] = "";
+        }
+    }
+
+    public int getRegionCount() {
+        return texts.length;
+    }
+
+    public TextColor getColor(int region) {
+        return colors[region];
+    }
+
+    public String getText(int region) {
+        return texts[region];
+    }
+
+    /**
+     * @param region Which region, counting from 0 at the top.
+     * @param text What the region should show. It can run over several lines.
+     */
+    public void setText(int region, String text) {
+        texts[region] = text;
+    }
+
+    /**
+     * @return A copy of every region's text, for a sink that draws the screen later on another thread.
+     */
+    public String[] copyTexts() {
+        return texts.clone();
+    }
+
+    /**
+     * Adds the whole screen to a sink as ordinary text, for sinks that can't change what they have shown.
+     *
+     * @param sink Where to add it.
+     */
+    public void addTo(OutputSink sink) {
+        for (int i = 0; i < texts.length; i++) {
+            if (i > 0) {
+                sink.addTextToWindow("\n", colors[i]);
+            }
+            sink.addTextToWindow(texts[i], colors[i]);
+        }
+    }
+}
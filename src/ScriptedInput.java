@@ -0,0 +1,38 @@
+/**
+ * An InputSource for simulations.<p>
+ * Before each turn the simulator loads the answers to the questions that turn may ask
+ * (which item, yes or no). Pauses are skipped, and once the answers run out every
+ * further question gets an empty line.
+ */
+
+public class ScriptedInput implements InputSource {
+    private static final String[] NO_ANSWERS = new String[0];
+
+    private String[] answers;
+    private int next;
+
+    public ScriptedInput() {
+        answers = NO_ANSWERS;
+    }
+
+    /**
+     * Replaces any answers left over from the last turn.
+     *
+     * @param answers The lines to give out, in order.
+     */
+    public void setAnswers(String[] answers) {
+        this.answers = answers;
+        next = 0;
+    }
+
+    public String nextLine() {
+        if (next < answers.length) {
+            return answers[next++];
+        }
+        return "";
+    }
+
+    public boolean skipsPauses() {
+        return true;
+    }
+}
@@ -1,108 +1,154 @@
-import java.awt.*;
-import java.util.Scanner;
-
 /**
  * The Shop class controls the cost of the items in the Treasure Hunt game. <p>
  * The Shop class also acts as a go between for the Hunter's buyItem() method. <p>
+ * A shop's prices only depend on the game's mode, so there is one Shop per mode, shared by every town
+ * in every game; everything about a visit (the customer and the town) is passed in, and what happens
+ * is published as events for the game's TextRenderer to describe. A game with a GameTuning that changes
+ * the shop gets one of its own instead.<p>
  * This code has been adapted from Ivan Turner's original program -- thank you Mr. Turner!
  */
 
 public class Shop {
     // constants
-    private static final int WATER_COST = 2;
-    private static final int ROPE_COST = 4;
-    private static final int MACHETE_COST = 6;
-    private static final int SHOVEL_COST = 8;
-    private static final int BOOTS_COST = 10;
-    private static final int HORSE_COST = 12;
-    private static final int BOAT_COST = 20;
-    private static final int SWORD_COST = 0;
-    private final String[] itemsList;
-    private Hunter hunter;
-    private int count;
-
-    // static variables
-    private static final Scanner SCANNER = new Scanner(System.in);
+    private static final String PRICE_LIST = buildPriceList(false, 1);
+    private static final String SAMURAI_PRICE_LIST = buildPriceList(true, 1);
+    private static final Shop EASY = new Shop(1, false, 1);
+    private static final Shop NORMAL = new Shop(0.5, false, 1);
+    private static final Shop HARD = new Shop(0.25, false, 1); // in hard mode, you get less money back when you sell items
+    private static final Shop SAMURAI = new Shop(0.5, true, 1);
 
     // instance variables
-    private double markdown;
-    private Hunter customer;
-    private TreasureHunter treasureHunter;
-    private OutputWindow window;
+    private final double markdown;
+    private final boolean samuraiMode;
+    private final double priceScale;
+    private String priceList; // built the first time a tuned shop is asked for it
 
     /**
-     * The Shop constructor takes in a markdown value and leaves customer null until one enters the shop.
-     *
      * @param markdown Percentage of markdown for selling items in decimal format.
+     * @param samuraiMode Whether the shop sells the sword.
+     * @param priceScale What the catalog's prices are multiplied by.
      */
-    public Shop(double markdown, TreasureHunter th, Hunter hunter, OutputWindow window) {
-        this.window = window;
-        treasureHunter = th;
-        this.hunter = hunter;
+    private Shop(double markdown, boolean samuraiMode, double priceScale) {
         this.markdown = markdown;
-        customer = null; // customer is set in the enter method
-        if (treasureHunter.getIsSamuraiMode()) {
-            itemsList = new String[]{"water", "rope", "machete", "shovel", "boots", "horse", "boat", "sword"};
-        } else {
-            itemsList = new String[]{"water", "rope", "machete", "shovel", "boots", "horse", "boat"};
+        this.samuraiMode = samuraiMode;
+        this.priceScale = priceScale;
+        if (priceScale == 1) {
+            priceList = samuraiMode ? SAMURAI_PRICE_LIST : PRICE_LIST;
+        }
+    }
+
+    /**
+     * @param mode "easy", "normal", "hard" or "samurai" (see TreasureHunter.getModeName()).
+     * @return The shop for that mode.
+     */
+    public static Shop forMode(String mode) {
+        switch (mode) {
+            case "easy":
+                return EASY;
+            case "hard":
+                return HARD;
+            case "samurai":
+                return SAMURAI;
+            default:
+                return NORMAL;
         }
+    }
 
+    /**
+     * @param mode "easy", "normal", "hard" or "samurai" (see TreasureHunter.getModeName()).
+     * @param tuning The game's tuning.
+     * @return The mode's shared shop, or a new one if the tuning changes the markdown or the prices.
+     */
+    public static Shop forMode(String mode, GameTuning tuning) {
+        Shop shop = forMode(mode);
+        if (!tuning.changesShop()) {
+            return shop;
+        }
+        double markdown = tuning.getMarkdown() >= 0 ? tuning.getMarkdown() : shop.markdown;
+        return new Shop(markdown, shop.samuraiMode, tuning.getPriceScale());
     }
 
     /**
      * Method for entering the shop.
      *
-     * @param hunter the Hunter entering the shop
+     * @param customer the Hunter entering the shop
      * @param buyOrSell String that determines if hunter is "B"uying or "S"elling
+     * @param town the town the shop is in, which asks the questions and keeps count of what the sword got
      * @return a String to be used for printing in the latest news
      */
 
-    public String enter(Hunter hunter, String buyOrSell) {
-        customer = hunter;
-        if (buyOrSell.equals("b")) {
-            window.addTextToWindow("\nWelcome to the shop! We have the finest wares in town.", Color.black);
-            window.addTextToWindow("\nCurrently we have the following items: ", Color.black);
-            window.addTextToWindow("\n" + inventory(), Color.black);
-            window.addTextToWindow("\nWhat're you lookin' to buy?: ", Color.black);
-            String item = SCANNER.nextLine().toLowerCase();
-            int cost = checkMarketPrice(item, true);
-            if (treasureHunter.getIsSamuraiMode() & validItem(item)) {
-                if (hunter.getHasSword()) {
-                    buyItem(item);
+    public String enter(Hunter customer, String buyOrSell, Town town) {
+        boolean buying = buyOrSell.equals("b");
+        town.getGame().getEvents().shopOpened(buying);
+        String item = town.getGame().readLine().toLowerCase();
+        return serve(customer, buying, ItemCatalog.get(item), null, town); // the name is looked up once, here
+    }
+
+    /**
+     * Enters the shop for a Policy, which has already picked the item and answered the price.
+     * Nothing is read from the game's input, and everything that happens is the same as if the answers had been typed.
+     *
+     * @param customer the Hunter entering the shop
+     * @param decision a BUY or SELL decision
+     * @param town the town the shop is in
+     * @return a String to be used for printing in the latest news
+     */
+    public String enter(Hunter customer, Decision decision, Town town) {
+        boolean buying = decision.getAction() == Action.BUY;
+        town.getGame().getEvents().shopOpened(buying);
+        return serve(customer, buying, decision.getItem(), decision, town);
+    }
+
+    /**
+     * Quotes a price for the item asked for and trades it if the customer agrees.
+     *
+     * @param item The item asked for, or null if there's no such item.
+     * @param decision The Policy's decision, or null to read the customer's answer from the game's input.
+     */
+    private String serve(Hunter customer, boolean buying, Item item, Decision decision, Town town) {
+        GameEventListener events = town.getGame().getEvents();
+        if (item == null) {
+            events.notStocked(buying);
+        } else if (buying) {
+            int cost = getCostOfItem(item);
+            if (samuraiMode & sells(item)) {
+                if (customer.getHasSword()) {
+                    buyItem(customer, item, town);
                 } else {
-                    window.addTextToWindow("\nIt'll cost you " + cost + " gold. Buy it (y/n)?: ", Color.black);
-                    String option = SCANNER.nextLine().toLowerCase();
-                    if (option.equals("y")) {
-                        buyItem(item);
+                    events.priceQuoted(item.getName(), cost, true);
+                    if (agrees(town, decision)) {
+                        buyItem(customer, item, town);
                     }
                 }
-            } else if (cost == 0 && !validItem(item)) {
-                window.addTextToWindow("\nWe ain't got none of those.", Color.red);
+            } else if (cost == 0 && !sells(item)) {
+                events.notStocked(true);
             } else {
-                window.addTextToWindow("\nIt'll cost you " + cost + " gold. Buy it (y/n)?: ", Color.black);
-                String option = SCANNER.nextLine().toLowerCase();
-                if (option.equals("y")) {
-                    buyItem(item);
+                events.priceQuoted(item.getName(), cost, true);
+                if (agrees(town, decision)) {
+                    buyItem(customer, item, town);
                 }
             }
         } else {
-            window.addTextToWindow("What're you lookin' to sell? ", Color.black);
-            window.addTextToWindow("\nYou currently have the following items: " + customer.getInventory(), Color.black);
-            String item = SCANNER.nextLine().toLowerCase();
-            int cost = checkMarketPrice(item, false);
+            int cost = getBuyBackCost(item);
             if (cost == 0) {
-                window.addTextToWindow("\nWe don't want none of those.", Color.red);
+                events.notStocked(false);
             } else {
-                window.addTextToWindow("\nIt'll get you " + cost + " gold. Sell it (y/n)?: ", Color.green);
-                String option = SCANNER.nextLine().toLowerCase();
-                if (option.equals("y")) {
-                    sellItem(item);
+                events.priceQuoted(item.getName(), cost, false);
+                if (agrees(town, decision)) {
+                    sellItem(customer, item, town);
                 }
             }
         }
         return "You left the shop";
     }
 
+    private static boolean agrees(Town town, Decision decision) {
+        if (decision != null) {
+            return decision.accepts();
+        }
+        return town.getGame().readLine().toLowerCase().equals("y");
+    }
+
     /**
      * A method that returns a string showing the items available in the shop
      * (all shops sell the same items).
@@ -110,105 +156,97 @@ public class Shop {
      * @return the string representing the shop's items available for purchase and their prices.
      */
     public String inventory() {
-        String str = "Water: " + WATER_COST + " gold\n";
-        str += "Rope: " + ROPE_COST + " gold\n";
-        str += "Machete: " + MACHETE_COST + " gold\n";
-        str += "Shovel: " + SHOVEL_COST + " gold\n";
-        str += "Boots: " + BOOTS_COST + " gold\n";
-        str += "Horse: " + HORSE_COST + " gold\n";
-        str += "Boat: " + BOAT_COST + " gold\n";
-        if (treasureHunter.getIsSamuraiMode()) {
-            str += "Sword: " + SWORD_COST + " gold\n";
+        if (priceList == null) {
+            priceList = buildPriceList(samuraiMode, priceScale);
         }
-        return str;
+        return priceList;
+    }
+
+    /**
+     * Builds the shop's price list from the item catalog. The prices never change, so this only runs once per mode.
+     *
+     * @param samuraiMode Whether the sword is for sale.
+     * @param priceScale What the catalog's prices are multiplied by.
+     * @return One line per item with its price.
+     */
+    private static String buildPriceList(boolean samuraiMode, double priceScale) {
+        StringBuilder str = new StringBuilder(128);
+        for (int id = 0; id < ItemCatalog.size(); id++) {
+            Item item = ItemCatalog.byId(id);
+            if (item.isSoldIn(samuraiMode)) {
+                str.append(item.getDisplayName()).append(": ").append(price(item, priceScale)).append(" gold\n");
+            }
+        }
+        return str.toString();
+    }
+
+    /**
+     * @return The item's catalog price times the scale. Something that costs anything never becomes free,
+     * since Hunter.buyItem won't take a free item (other than the sword).
+     */
+    private static int price(Item item, double priceScale) {
+        if (priceScale == 1) {
+            return item.getCost();
+        }
+        int cost = (int) Math.round(item.getCost() * priceScale);
+        if (cost == 0 && item.getCost() > 0) {
+            return 1;
+        }
+        return cost;
     }
 
     /**
      * A method that lets the customer (a Hunter) buy an item.
      *
+     * @param customer The hunter buying.
      * @param item The item being bought.
+     * @param town The town the shop is in.
      */
-    public void buyItem(String item) {
-        int costOfItem = checkMarketPrice(item, true);
+    public void buyItem(Hunter customer, Item item, Town town) {
+        GameEventListener events = town.getGame().getEvents();
+        int costOfItem = getCostOfItem(item);
         if (customer.buyItem(item, costOfItem)) {
-            if (hunter.getHasSword()) {
-                if (count >= 1) {
-                    window.addTextToWindow("\nThe sword intimidates the shopkeeper and he gives you the item freely", Color.green);
+            if (customer.getHasSword()) {
+                if (town.getSwordPurchases() >= 1) {
+                    events.purchaseMade(item.getName(), true);
                 } else {
-                    count++;
-                    window.addTextToWindow("\nYe' got yerself a " + item + ". Come again soon.", Color.green);
+                    town.setSwordPurchases(town.getSwordPurchases() + 1);
+                    events.purchaseMade(item.getName(), false);
                 }
             } else {
-                window.addTextToWindow("\nYe' got yerself a " + item + ". Come again soon.", Color.green);
+                events.purchaseMade(item.getName(), false);
             }
         } else {
-            window.addTextToWindow("\nHmm, either you don't have enough gold or you've already got one of those!", Color.red);
+            events.purchaseRefused();
         }
     }
 
     /**
      * A pathway method that lets the Hunter sell an item.
      *
+     * @param customer The hunter selling.
      * @param item The item being sold.
+     * @param town The town the shop is in.
      */
-    public void sellItem(String item) {
-        int buyBackPrice = checkMarketPrice(item, false);
-        if (customer.sellItem(item, buyBackPrice)) {
-            window.addTextToWindow("\nPleasure doin' business with you.", Color.black);
-        } else {
-            window.addTextToWindow("\nStop stringin' me along!", Color.black);
-        }
+    public void sellItem(Hunter customer, Item item, Town town) {
+        town.getGame().getEvents().saleFinished(customer.sellItem(item, getBuyBackCost(item)));
     }
 
     /**
-     * Determines and returns the cost of buying or selling an item.
+     * Prices an item in this shop; an item is looked up by name once, when it's asked for, and priced by itself after that.
      *
-     * @param item The item in question.
-     * @param isBuying Whether the item is being bought or sold.
-     * @return The cost of buying or selling the item based on the isBuying parameter.
+     * @param item The item being checked for cost.
+     * @return The cost of the item.
      */
-    public int checkMarketPrice(String item, boolean isBuying) {
-        if (isBuying) {
-            return getCostOfItem(item);
-        } else {
-            return getBuyBackCost(item);
-        }
+    public int getCostOfItem(Item item) {
+        return price(item, priceScale);
     }
 
     /**
-     * Checks the item entered against the costs listed in the static variables.
-     *
-     * @param item The item being checked for cost.
-     * @return The cost of the item or 0 if the item is not found.
+     * @return Whether this shop sells the item (only samurai shops sell the sword).
      */
-    public int getCostOfItem(String item) {
-        if (item.equals("water")) {
-            return WATER_COST;
-        } else if (item.equals("rope")) {
-            return ROPE_COST;
-        } else if (item.equals("machete")) {
-            return MACHETE_COST;
-        } else if (item.equals("shovel")) {
-            return SHOVEL_COST;
-        } else if (item.equals("boots")) {
-            return BOOTS_COST;
-        } else if (item.equals("horse")) {
-            return HORSE_COST;
-        } else if (item.equals("boat")) {
-            return BOAT_COST;
-        } else if (item.equalsIgnoreCase("sword")) {
-            return SWORD_COST;
-        } else {
-            return 0;
-        }
-    }
-    private boolean validItem(String item) {
-        for (int i = 0; i < itemsList.length; i++) {
-            if (item.equalsIgnoreCase(itemsList[i])) {
-                return true;
-            }
-        }
-        return false;
+    public boolean sells(Item item) {
+        return item.isSoldIn(samuraiMode);
     }
 
     /**
@@ -217,8 +255,7 @@ public class Shop {
      * @param item The item being sold.
      * @return The sell price of the item.
      */
-    public int getBuyBackCost(String item) {
-        int cost = (int) (getCostOfItem(item) * markdown);
-        return cost;
+    public int getBuyBackCost(Item item) {
+        return (int) (getCostOfItem(item) * markdown);
     }
 }
\ No newline at end of file
@@ -0,0 +1,62 @@
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A SimulationPolicy plays the game in place of a person.<p>
+ * Each turn it looks at the game and returns the menu choice followed by the answers to any
+ * questions that choice will ask (for example {"b", "rope", "y"}).
+ */
+
+public interface SimulationPolicy {
+    /**
+     * Picks the next move.
+     *
+     * @param game The game being played.
+     * @return The menu choice first, then any follow-up answers. Should not be empty.
+     */
+    String[] nextTurn(TreasureHunter game);
+
+    /**
+     * A simple policy that plays the way most people do: search every town, buy whatever is needed to
+     * move on, and dig or brawl for gold when it runs short.
+     */
+    SimulationPolicy EXPLORER = new SimulationPolicy() {
+        // answers are shared by every game, so build each one once
+        private final Map<String, String[]> buyNeeded = new ConcurrentHashMap<>();
+        private final String[] hunt = {"h"};
+        private final String[] move = {"m"};
+        private final String[] dig = {"d"};
+        private final String[] trouble = {"l"};
+        private final String[] buyShovel = {"b", "shovel", "y"};
+        private final String[] buySword = {"b", "sword", "y"};
+
+        public String[] nextTurn(TreasureHunter game) {
+            Hunter hunter = game.getHunter();
+            Town town = game.getCurrentTown();
+            if (!hunter.getIsSearched()) {
+                return hunt;
+            }
+            Terrain terrain = town.getTerrain();
+            if (hunter.hasItemInKit(terrain.getNeededKitItem())) {
+                return move;
+            }
+            Shop shop = town.getShop();
+            if (game.getIsSamuraiMode() && !hunter.getHasSword()) {
+                return buySword; // the sword makes everything else free
+            }
+            String needed = terrain.getNeededItem();
+            if (hunter.getHasSword() || hunter.getGold() >= shop.getCostOfItem(terrain.getNeededKitItem())) {
+                return buyNeeded.computeIfAbsent(needed, item -> new String[]{"b", item, "y"});
+            }
+            if (!town.getDug()) {
+                if (hunter.hasItemInKit(ItemCatalog.SHOVEL)) {
+                    return dig;
+                }
+                if (hunter.getGold() >= shop.getCostOfItem(ItemCatalog.SHOVEL)) {
+                    return buyShovel;
+                }
+            }
+            return trouble;
+        }
+    };
+}
@@ -0,0 +1,214 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Keeps many game snapshots in one append-only, memory-mapped file.<p>
+ * Saving a game appends a record; an in-memory index points each key at its newest record, and is
+ * rebuilt by scanning the file when it is opened. Writes only go to the mapped memory, and commit()
+ * forces them to disk, so a server can save any number of games and pay for one fsync per batch.
+ * Every record carries a CRC32, so a record cut off by a crash is ignored (along with anything after it).<p>
+ * File layout: int magic "THSS", int version, then records of
+ * int bodyLength, int crc, short keyLength, key bytes (UTF-8), snapshot bytes.
+ * A record with no snapshot bytes means the key was removed.
+ */
+
+public class SnapshotStore implements Closeable {
+    private static final int MAGIC = 0x54485353; // "THSS"
+    private static final int VERSION = 1;
+    private static final int FILE_HEADER = 8;
+    private static final int RECORD_HEADER = 8;
+    private static final int INITIAL_SIZE = 1 << 20;
+
+    private final FileChannel channel;
+    private final Map<String, Integer> index; // key -> offset of its newest record
+    private MappedByteBuffer map;
+    private int end; // where the next record will go
+    private boolean dirty;
+
+    private SnapshotStore(FileChannel channel) {
+        this.channel = channel;
+        index = new HashMap<>();
+    }
+
+    /**
+     * Opens a store, creating the file if it doesn't exist.
+     *
+     * @param file The store's file.
+     * @return The open store.
+     * @throws IOException if the file can't be opened or isn't a snapshot store.
+     */
+    public static SnapshotStore open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        SnapshotStore store = new SnapshotStore(channel);
+        try {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException(file + " is too big for a snapshot store");
+            }
+            store.map = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(size, INITIAL_SIZE));
+            if (size == 0) {
+                store.map.putInt(0, MAGIC);
+                store.map.putInt(4, VERSION);
+                store.end = FILE_HEADER;
+                store.dirty = true;
+            } else if (store.map.getInt(0) != MAGIC || store.map.getInt(4) != VERSION) {
+                throw new IOException(file + " is not a snapshot store this version can read");
+            } else {
+                store.scan();
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return store;
+    }
+
+    /**
+     * Saves a snapshot under a key, replacing any older one. Not on disk until commit().
+     *
+     * @param key The name to save it under (for example a session code).
+     * @param snapshot The snapshot bytes, from GameSnapshot.save().
+     * @throws IOException if the file can't grow.
+     */
+    public synchronized void put(String key, byte[] snapshot) throws IOException {
+        if (snapshot.length == 0) {
+            throw new IllegalArgumentException("A snapshot can't be empty");
+        }
+        append(key, snapshot);
+    }
+
+    /**
+     * Forgets a key (for example when its game has finished). Not on disk until commit().
+     *
+     * @param key The key to remove.
+     * @throws IOException if the file can't grow.
+     */
+    public synchronized void remove(String key) throws IOException {
+        if (index.containsKey(key)) {
+            append(key, new byte[0]);
+        }
+    }
+
+    /**
+     * @param key The key a snapshot was saved under.
+     * @return A copy of the newest snapshot for the key, or null if there isn't one.
+     */
+    public synchronized byte[] get(String key) {
+        Integer offset = index.get(key);
+        if (offset == null) {
+            return null;
+        }
+        int bodyLength = map.getInt(offset);
+        int keyLength = map.getShort(offset + RECORD_HEADER) & 0xffff;
+        int snapshotStart = offset + RECORD_HEADER + 2 + keyLength;
+        byte[] snapshot = new byte[bodyLength - 2 - keyLength];
+        map.get(snapshotStart, snapshot);
+        return snapshot;
+    }
+
+    public synchronized int size() {
+        return index.size();
+    }
+
+    /**
+     * Writes every snapshot saved since the last commit to disk, with a single fsync.
+     */
+    public synchronized void commit() {
+        if (dirty) {
+            map.force();
+            dirty = false;
+        }
+    }
+
+    public synchronized void close() throws IOException {
+        commit();
+        channel.close();
+    }
+
+    private void append(String key, byte[] snapshot) throws IOException {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        if (keyBytes.length > 0xffff) {
+            throw new IllegalArgumentException("Key is too long");
+        }
+        int bodyLength = 2 + keyBytes.length + snapshot.length;
+        ensureRoom(RECORD_HEADER + bodyLength);
+
+        int body = end + RECORD_HEADER;
+        map.putShort(body, (short) keyBytes.length);
+        map.put(body + 2, keyBytes);
+        map.put(body + 2 + keyBytes.length, snapshot);
+        map.putInt(end + 4, checksum(body, bodyLength));
+        map.putInt(end, bodyLength); // written last, so a half-written record reads as the end of the file
+
+        if (snapshot.length == 0) {
+            index.remove(key);
+        } else {
+            index.put(key, end);
+        }
+        end = body + bodyLength;
+        dirty = true;
+    }
+
+    /**
+     * Makes the mapping bigger if the next record won't fit, doubling it each time.
+     */
+    private void ensureRoom(int bytes) throws IOException {
+        long needed = (long) end + bytes;
+        if (needed <= map.capacity()) {
+            return;
+        }
+        if (needed > Integer.MAX_VALUE) {
+            throw new IOException("Snapshot store is full");
+        }
+        long newSize = Math.min(Integer.MAX_VALUE, Math.max(needed, 2L * map.capacity()));
+        if (dirty) {
+            map.force(); // the old mapping is dropped, so don't leave its writes waiting
+        }
+        map = channel.map(FileChannel.MapMode.READ_WRITE, 0, newSize);
+    }
+
+    /**
+     * Rebuilds the index by reading every record, stopping at the first one that is empty or damaged.
+     */
+    private void scan() {
+        int position = FILE_HEADER;
+        while (position + RECORD_HEADER <= map.capacity()) {
+            int bodyLength = map.getInt(position);
+            int body = position + RECORD_HEADER;
+            if (bodyLength < 2 || (long) body + bodyLength > map.capacity()) {
+                break;
+            }
+            if (map.getInt(position + 4) != checksum(body, bodyLength)) {
+                break;
+            }
+            int keyLength = map.getShort(body) & 0xffff;
+            if (keyLength + 2 > bodyLength) {
+                break;
+            }
+            byte[] keyBytes = new byte[keyLength];
+            map.get(body + 2, keyBytes);
+            String key = new String(keyBytes, StandardCharsets.UTF_8);
+            if (bodyLength == 2 + keyLength) {
+                index.remove(key);
+            } else {
+                index.put(key, position);
+            }
+            position = body + bodyLength;
+        }
+        end = position;
+    }
+
+    private int checksum(int start, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(map.slice(start, length));
+        return (int) crc.getValue();
+    }
+}
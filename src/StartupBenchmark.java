@@ -0,0 +1,119 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Measures how long a headless game takes to start: each run launches a fresh JVM with
+ * "TreasureHunterRunner --headless --script -" and times it from launch until the name prompt
+ * shows up on its output. Scripted runs start a new JVM for every game, so this is the wait that adds up.<p>
+ * The game is launched from the class path this benchmark runs on. When that is the game's jar and
+ * the build's class-data sharing archive (treasure-hunter.jsa, see game/pom.xml) sits next to it,
+ * the runs are repeated with the archive, and again with it and only the quick JIT compiler.<p>
+ *
+ * Usage: java -cp game/target/treasure-hunter-1.0-SNAPSHOT.jar StartupBenchmark [runs] [--archive FILE]
+ */
+
+public class StartupBenchmark {
+    private static final String PROMPT = "What's your name, Hunter?";
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int runs = 20;
+        Path archive = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--archive") && i + 1 < args.length) {
+                archive = Path.of(args[++i]);
+            } else {
+                runs = Integer.parseInt(args[i]);
+            }
+        }
+        String classPath = System.getProperty("java.class.path");
+        if (archive == null && classPath.endsWith(".jar")) {
+            Path nextToJar = Path.of(classPath).toAbsolutePath().resolveSibling("treasure-hunter.jsa");
+            if (Files.exists(nextToJar)) {
+                archive = nextToJar;
+            }
+        }
+
+        StartupBenchmark benchmark = new StartupBenchmark(classPath);
+        benchmark.launch(List.of()); // warms up the disk cache, not timed
+        benchmark.report("plain", List.of(), runs);
+        if (archive == null) {
+            System.out.println("No class-data sharing archive; build one with mvn package and run from the jar");
+            return;
+        }
+        String useArchive = "-XX:SharedArchiveFile=" + archive;
+        benchmark.report("archive", List.of(useArchive), runs);
+        benchmark.report("archive, C1 only", List.of(useArchive, "-XX:TieredStopAtLevel=1"), runs);
+    }
+
+    private final String classPath;
+
+    public StartupBenchmark(String classPath) {
+        this.classPath = classPath;
+    }
+
+    /**
+     * Starts the game a number of times with the same JVM options and prints how long it took to start.
+     *
+     * @param name What to call these options.
+     * @param options The JVM options.
+     * @param runs How many times to start the game.
+     */
+    public void report(String name, List<String> options, int runs) throws IOException, InterruptedException {
+        long[] times = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            times[i] = launch(options);
+        }
+        Arrays.sort(times);
+        System.out.printf("%-18s first prompt p50 %.1f ms, p90 %.1f ms, min %.1f ms, max %.1f ms%n", name,
+                percentile(times, 0.50) / 1e6, percentile(times, 0.90) / 1e6, times[0] / 1e6, times[runs - 1] / 1e6);
+    }
+
+    /**
+     * Starts the game once and waits for its name prompt, then lets it quit.
+     *
+     * @return The nanoseconds from launching the JVM to the prompt.
+     * @throws IOException if the game can't be started or exits without asking for a name.
+     */
+    public long launch(List<String> options) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(options);
+        command.addAll(List.of("-cp", classPath, "TreasureHunterRunner", "--headless", "--script", "-"));
+        ProcessBuilder builder = new ProcessBuilder(command).redirectErrorStream(true);
+
+        long start = System.nanoTime();
+        Process game = builder.start();
+        long time = -1;
+        try (InputStream out = game.getInputStream()) {
+            StringBuilder seen = new StringBuilder();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = out.read(buffer)) >= 0) {
+                seen.append(new String(buffer, 0, read, StandardCharsets.UTF_8));
+                if (seen.indexOf(PROMPT) >= 0) {
+                    time = System.nanoTime() - start;
+                    break;
+                }
+            }
+            game.getOutputStream().close(); // no moves, so the game quits
+            out.transferTo(OutputStream.nullOutputStream());
+            if (time < 0) {
+                throw new IOException("The game exited without asking for a name:\n" + seen);
+            }
+        }
+        game.waitFor();
+        return time;
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+}
@@ -0,0 +1,484 @@
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Works out the best possible way to play a difficulty mode, and how often it wins.<p>
+ * The game is small enough to solve exactly as a Markov decision process. A state is the hunter's gold,
+ * kit and number of treasures, plus the town: its terrain, whether it is tough and whether it has been dug.
+ * Everything random follows the game's own rules and tables (the TerrainTable weights, the mode's
+ * toughness and shop, and the odds in Town), so the solver can't drift away from the game.
+ * Value iteration finds the move with the best chance of eventually winning from every state.<p>
+ * Hunting is free and can only help, so the best player always hunts as soon as they arrive in a town,
+ * and the states are all after the town has been searched. Treasures are never lost, so the states with
+ * two treasures are solved first, then one, then none. In each sweep the kits are taken from the fullest
+ * to the emptiest, so buying something always leads to a state that has already been updated. Kits with
+ * the same number of items don't lead to each other, so each of those groups is spread over a fork-join
+ * pool, and the answer doesn't depend on how the tasks were scheduled. Values are kept in flat double
+ * arrays and the policy in a byte array, with one entry per state.<p>
+ * A win one turn sooner is worth one part in ten million more, so the best moves never go round in circles;
+ * that is far too little to show in the chances. Gold above the cap is counted as the cap, so the
+ * chances are a (very slightly) low estimate.<p>
+ *
+ * Usage: java StrategySolver [goldCap] [gamesToSimulate]
+ */
+
+public class StrategySolver {
+    private static final String[] MODES = {"e", "n", "h", "s"};
+    private static final String[] MODE_NAMES = {"Easy", "Normal", "Hard", "Samurai"};
+    private static final int DEFAULT_GOLD_CAP = 100;
+    private static final Treasure[] TREASURES = Treasure.values();
+    private static final int TREASURES_TO_WIN = TREASURES.length - 1; // everything but dust
+    private static final double DISCOUNT = 1 - 1e-7;
+    private static final double TOLERANCE = 1e-9;
+    private static final int MAX_SWEEPS = 100_000;
+
+    // what the policy says to do; BUY + i buys the item with kit bit i, and sell + i sells it
+    private static final int MOVE = 0;
+    private static final int DIG = 1;
+    private static final int LOOK = 2;
+    private static final int BUY = 3;
+
+    // a town state is (terrain << 2) | these flags
+    private static final int DUG = 1;
+    private static final int TOUGH = 2;
+
+    private final int goldCap;
+    private final int golds;
+    private final int startGold;
+    private final double toughness;
+    private final boolean itemsBreak;
+    private final TerrainTable terrains;
+    private final Item[] items; // the items sold in this mode; item i is bit i of a kit
+    private final int[] prices;
+    private final int[] buyBackPrices;
+    private final int shovelBit;
+    private final int swordBit; // -1 outside samurai mode
+    private final int[] neededBit; // the kit bit that crosses each terrain
+    private final int kits;
+    private final int[][] kitsBySize; // the kits with the most items first
+    private final int towns;
+    private final int sell; // the first sell action
+    private final int actions;
+    private final int[] preference; // every action, the ones that make progress first
+
+    private final double[][] values; // [treasures][state]
+    private final byte[][] policy; // [treasures][state]
+    private final double[] moves; // the value of arriving in a new town, by kit and gold
+    private int sweeps;
+
+    /**
+     * Sets up the model for a mode. Call solve() to solve it.
+     *
+     * @param mode The mode letter typed at the start of the game ("e", "n", "h" or "s").
+     * @param goldCap The most gold the model keeps track of; must be at least the starting gold.
+     */
+    public StrategySolver(String mode, int goldCap) {
+        // the rules come from a real game, set up but never played
+        TreasureHunter game = new TreasureHunter(NullOutput.INSTANCE, new ScriptedInput(), 0);
+        game.setUp("solver", mode);
+        startGold = game.getHunter().getGold();
+        if (goldCap < startGold) {
+            throw new IllegalArgumentException("The gold cap must be at least the starting gold, " + startGold);
+        }
+        this.goldCap = goldCap;
+        golds = goldCap + 1;
+        toughness = game.getToughness();
+        itemsBreak = game.getCurrentMode() != game.getEasyMode(); // see Town.leaveTown
+        terrains = game.getTerrainTable();
+        Shop shop = Shop.forMode(game.getModeName());
+        boolean samuraiMode = game.getIsSamuraiMode();
+
+        int count = ItemCatalog.countSoldIn(samuraiMode);
+        items = new Item[count];
+        prices = new int[count];
+        buyBackPrices = new int[count];
+        int bit = 0;
+        for (int id = 0; id < ItemCatalog.size(); id++) {
+            Item item = ItemCatalog.byId(id);
+            if (item.isSoldIn(samuraiMode)) {
+                items[bit] = item;
+                prices[bit] = shop.getCostOfItem(item);
+                buyBackPrices[bit] = shop.getBuyBackCost(item);
+                bit++;
+            }
+        }
+        shovelBit = bitOf(ItemCatalog.SHOVEL);
+        swordBit = samuraiMode ? bitOf(ItemCatalog.SWORD) : -1;
+        neededBit = new int[terrains.size()];
+        for (int t = 0; t < neededBit.length; t++) {
+            neededBit[t] = bitOf(terrains.get(t).getNeededKitItem());
+        }
+
+        kits = 1 << count;
+        kitsBySize = new int[count + 1][];
+        for (int size = 0; size <= count; size++) {
+            int wanted = size;
+            kitsBySize[count - size] = IntStream.range(0, kits).filter(kit -> Integer.bitCount(kit) == wanted).toArray();
+        }
+        towns = terrains.size() << 2;
+        sell = BUY + count;
+        actions = sell + count;
+        preference = new int[actions];
+        preference[0] = MOVE;
+        for (int i = 0; i < count; i++) {
+            preference[1 + i] = BUY + i;
+            preference[3 + count + i] = sell + i;
+        }
+        preference[1 + count] = DIG;
+        preference[2 + count] = LOOK;
+        int states = towns * kits * golds;
+        values = new double[TREASURES_TO_WIN][states];
+        policy = new byte[TREASURES_TO_WIN][states];
+        moves = new double[kits * golds];
+    }
+
+    public static void main(String[] args) {
+        int goldCap = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_GOLD_CAP;
+        long games = args.length > 1 ? Long.parseLong(args[1]) : 100_000;
+
+        System.out.printf("%-8s %10s %7s %8s %8s %12s%n", "Mode", "States", "Sweeps", "Seconds", "Best %", "Simulated %");
+        for (int i = 0; i < MODES.length; i++) {
+            long start = System.nanoTime();
+            StrategySolver solver = new StrategySolver(MODES[i], goldCap);
+            solver.solve();
+            double seconds = (System.nanoTime() - start) / 1e9;
+            String simulated = "-";
+            if (games > 0) {
+                // play the policy in the real game, as a check on the model
+                BalanceSimulator simulator = new BalanceSimulator(solver.getPolicy(), 100_000);
+                simulated = String.format("%.2f", 100.0 * simulator.run(MODES[i], games, 42).winRate());
+            }
+            System.out.printf("%-8s %10d %7d %8.1f %8.2f %12s%n", MODE_NAMES[i], solver.getStateCount(),
+                    solver.getSweeps(), seconds, 100.0 * solver.getWinChance(), simulated);
+            System.out.println("  after searching a sleepy first town: " + solver.describeOpening());
+        }
+    }
+
+    /**
+     * Finds the best move from every state.
+     */
+    public void solve() {
+        for (int found = TREASURES_TO_WIN - 1; found >= 0; found--) {
+            double[] next = found + 1 < TREASURES_TO_WIN ? values[found + 1] : null;
+            iterate(found, next);
+            choosePolicy(found, next);
+        }
+    }
+
+    /**
+     * @return The chance of winning a new game with the best moves.
+     */
+    public double getWinChance() {
+        double[] next = values[1];
+        double chance = 0;
+        for (int t = 0; t < terrains.size(); t++) {
+            chance += terrains.getChance(t) * ((1 - toughness) * arrival(0, t << 2, 0, startGold, next)
+                    + toughness * arrival(0, t << 2 | TOUGH, 0, startGold, next));
+        }
+        return chance;
+    }
+
+    public int getStateCount() {
+        return TREASURES_TO_WIN * towns * kits * golds;
+    }
+
+    public int getSweeps() {
+        return sweeps;
+    }
+
+    /**
+     * @return A SimulationPolicy that plays the best moves, for BalanceSimulator.
+     */
+    public SimulationPolicy getPolicy() {
+        String[] hunt = {"h"};
+        String[][] answers = new String[actions][];
+        answers[MOVE] = new String[]{"m"};
+        answers[DIG] = new String[]{"d"};
+        answers[LOOK] = new String[]{"l"};
+        for (int bit = 0; bit < items.length; bit++) {
+            answers[BUY + bit] = new String[]{"b", items[bit].getName(), "y"};
+            answers[sell + bit] = new String[]{"s", items[bit].getName(), "y"};
+        }
+        return game -> {
+            Hunter hunter = game.getHunter();
+            if (!hunter.getIsSearched()) {
+                return hunt;
+            }
+            int found = 0;
+            for (Treasure treasure : TREASURES) {
+                if (hunter.hasItemInTreasure(treasure)) {
+                    found++;
+                }
+            }
+            int kit = 0;
+            for (int bit = 0; bit < items.length; bit++) {
+                if (hunter.hasItemInKit(items[bit])) {
+                    kit |= 1 << bit;
+                }
+            }
+            Town town = game.getCurrentTown();
+            int townState = terrainIndex(town.getTerrain()) << 2;
+            if (town.getToughTown()) {
+                townState |= TOUGH;
+            }
+            if (town.getDug()) {
+                townState |= DUG;
+            }
+            int gold = Math.min(goldCap, hunter.getGold());
+            return answers[policy[found][index(townState, kit, gold)]];
+        };
+    }
+
+    /**
+     * @return What the best player does in each kind of first town, once it has been searched.
+     */
+    public String describeOpening() {
+        StringBuilder out = new StringBuilder();
+        for (int t = 0; t < terrains.size(); t++) {
+            if (t > 0) {
+                out.append(", ");
+            }
+            int action = policy[0][index(t << 2, 0, startGold)];
+            out.append(terrains.get(t).getTerrainName()).append(' ').append(actionName(action));
+        }
+        return out.toString();
+    }
+
+    private String actionName(int action) {
+        switch (action) {
+            case MOVE:
+                return "move";
+            case DIG:
+                return "dig";
+            case LOOK:
+                return "look for trouble";
+            default:
+                if (action < sell) {
+                    return "buy " + items[action - BUY].getName();
+                }
+                return "sell " + items[action - sell].getName();
+        }
+    }
+
+    /**
+     * Sweeps one layer of states until the values stop changing.
+     *
+     * @param found How many treasures the hunter has in this layer.
+     * @param next The layer with one more treasure (already solved), or null if one more treasure wins.
+     */
+    private void iterate(int found, double[] next) {
+        // moving to a smaller kit reads what was worked out for it last sweep, so start from nothing
+        Arrays.fill(moves, 0);
+        for (int sweep = 0; sweep < MAX_SWEEPS; sweep++) {
+            double change = 0;
+            for (int[] group : kitsBySize) {
+                change = Math.max(change, IntStream.of(group).parallel()
+                        .mapToDouble(kit -> sweepKit(found, kit, next))
+                        .max().getAsDouble());
+            }
+            sweeps++;
+            if (change < TOLERANCE) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Updates every state with one kit, in place. Dug towns come first, since digging leads to them,
+     * and gold goes from high to low, since digging only adds gold.
+     *
+     * @return The biggest change to any state.
+     */
+    private double sweepKit(int found, int kit, double[] next) {
+        double[] v = values[found];
+        computeMoves(found, kit, next);
+        int[] choices = choicesFor(kit);
+        double change = 0;
+        for (int town = towns - 1; town >= 0; town--) {
+            for (int gold = goldCap; gold >= 0; gold--) {
+                int i = index(town, kit, gold);
+                double value = 0;
+                for (int action : choices) {
+                    value = Math.max(value, value(action, town, kit, gold, v));
+                }
+                change = Math.max(change, Math.abs(value - v[i]));
+                v[i] = value;
+            }
+        }
+        return change;
+    }
+
+    /**
+     * @return The moves worth looking at with a kit: buying only what's missing and selling only what's there.
+     */
+    private int[] choicesFor(int kit) {
+        int[] choices = new int[actions];
+        int count = 0;
+        for (int action : preference) {
+            boolean owned = action >= BUY && (kit & 1 << (action < sell ? action - BUY : action - sell)) != 0;
+            if (action < BUY || (action < sell ? !owned : owned)) {
+                choices[count++] = action;
+            }
+        }
+        return Arrays.copyOf(choices, count);
+    }
+
+    /**
+     * Picks the best move from every state of a solved layer. Among moves that are equally good, the one
+     * that comes first in preference wins.
+     */
+    private void choosePolicy(int found, double[] next) {
+        double[] v = values[found];
+        for (int kit = 0; kit < kits; kit++) {
+            computeMoves(found, kit, next);
+        }
+        for (int town = 0; town < towns; town++) {
+            for (int kit = 0; kit < kits; kit++) {
+                for (int gold = 0; gold <= goldCap; gold++) {
+                    int best = LOOK;
+                    double bestValue = -1;
+                    for (int action : preference) {
+                        double value = value(action, town, kit, gold, v);
+                        if (value > bestValue) {
+                            best = action;
+                            bestValue = value;
+                        }
+                    }
+                    policy[found][index(town, kit, gold)] = (byte) best;
+                }
+            }
+        }
+    }
+
+    /**
+     * Works out how good a move is.
+     *
+     * @param action The move.
+     * @param town The town's state.
+     * @param kit The hunter's kit.
+     * @param gold The hunter's gold.
+     * @param v The layer being solved.
+     * @return The chance of winning after making the move, or -1 if the move can't be made.
+     */
+    private double value(int action, int town, int kit, int gold, double[] v) {
+        boolean hasSword = swordBit >= 0 && (kit & 1 << swordBit) != 0;
+        switch (action) {
+            case MOVE: {
+                int needed = 1 << neededBit[town >> 2];
+                if ((kit & needed) == 0) {
+                    return -1;
+                }
+                double arrive = moves[kit * golds + gold];
+                if (itemsBreak) {
+                    arrive = (1 - Town.ITEM_BREAK_CHANCE) * arrive + Town.ITEM_BREAK_CHANCE * moves[(kit & ~needed) * golds + gold];
+                }
+                return DISCOUNT * arrive;
+            }
+            case DIG: {
+                if ((town & DUG) != 0 || (kit & 1 << shovelBit) == 0) {
+                    return -1;
+                }
+                int dug = index(town | DUG, kit, 0);
+                double found = sumAbove(v, dug, gold, Town.MOST_GOLD_DUG) / Town.MOST_GOLD_DUG;
+                return DISCOUNT * 0.5 * (v[dug + gold] + found); // half the time it's only dirt
+            }
+            case LOOK: {
+                double fight = Town.getNoTroubleChance((town & TOUGH) != 0);
+                double win = hasSword ? 1 : 1 - fight;
+                int here = index(town, kit, 0);
+                double brawl = win * sumAbove(v, here, gold, Town.MOST_GOLD_BRAWLED);
+                if (win < 1) {
+                    brawl += (1 - win) * sumBelow(v, here, gold, Town.MOST_GOLD_BRAWLED);
+                }
+                // finding no trouble changes nothing, so looking is the same as looking until there's a fight
+                return DISCOUNT * fight * (brawl / Town.MOST_GOLD_BRAWLED) / (1 - DISCOUNT * (1 - fight));
+            }
+            default: {
+                if (action < sell) {
+                    int bit = 1 << (action - BUY);
+                    int price = hasSword ? 0 : prices[action - BUY];
+                    if ((kit & bit) != 0 || gold < price || (price == 0 && !hasSword && action - BUY != swordBit)) {
+                        return -1; // see Hunter.buyItem
+                    }
+                    return DISCOUNT * v[index(town, kit | bit, gold - price)];
+                }
+                int bit = 1 << (action - sell);
+                int price = buyBackPrices[action - sell];
+                if ((kit & bit) == 0 || price <= 0) {
+                    return -1;
+                }
+                return DISCOUNT * v[index(town, kit & ~bit, Math.min(goldCap, gold + price))];
+            }
+        }
+    }
+
+    /**
+     * Works out what arriving in a new town is worth with one kit, for every amount of gold:
+     * the new town's terrain and toughness are random, and the hunter searches it straight away.
+     */
+    private void computeMoves(int found, int kit, double[] next) {
+        for (int gold = 0; gold <= goldCap; gold++) {
+            double sum = 0;
+            for (int t = 0; t < terrains.size(); t++) {
+                sum += terrains.getChance(t) * ((1 - toughness) * arrival(found, t << 2, kit, gold, next)
+                        + toughness * arrival(found, t << 2 | TOUGH, kit, gold, next));
+            }
+            moves[kit * golds + gold] = sum;
+        }
+    }
+
+    /**
+     * @return The chance of winning on arriving in a town, which the hunter searches straight away.
+     */
+    private double arrival(int found, int town, int kit, int gold, double[] next) {
+        int i = index(town, kit, gold);
+        double newTreasure = (double) (TREASURES_TO_WIN - found) / TREASURES.length;
+        double kept = next == null ? 1 : next[i];
+        return DISCOUNT * (newTreasure * kept + (1 - newTreasure) * values[found][i]);
+    }
+
+    /**
+     * @return The sum of the values of having 1 to most more gold, where row is the index of no gold.
+     */
+    private double sumAbove(double[] v, int row, int gold, int most) {
+        int top = Math.min(goldCap, gold + most);
+        double sum = (most - (top - gold)) * v[row + goldCap]; // any more counts as the cap
+        for (int i = row + gold + 1; i <= row + top; i++) {
+            sum += v[i];
+        }
+        return sum;
+    }
+
+    /**
+     * @return The sum of the values of having 1 to most less gold; any less than none is worth nothing.
+     */
+    private double sumBelow(double[] v, int row, int gold, int most) {
+        double sum = 0;
+        for (int i = row + Math.max(0, gold - most); i < row + gold; i++) {
+            sum += v[i];
+        }
+        return sum;
+    }
+
+    private int index(int town, int kit, int gold) {
+        return (town * kits + kit) * golds + gold;
+    }
+
+    private int bitOf(Item item) {
+        for (int bit = 0; bit < items.length; bit++) {
+            if (items[bit] == item) {
+                return bit;
+            }
+        }
+        throw new IllegalStateException(item.getName() + " isn't sold in this mode");
+    }
+
+    private int terrainIndex(Terrain terrain) {
+        for (int t = 0; t < terrains.size(); t++) {
+            if (terrains.get(t) == terrain) {
+                return t;
+            }
+        }
+        throw new IllegalStateException("Unknown terrain " + terrain.getTerrainName());
+    }
+}
@@ -0,0 +1,254 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Reads back a file written by SweepWriter and answers questions about it.<p>
+ * Only the point, outcome and turns columns are read, which sit next to each other in every block,
+ * so each block takes one read of less than half its bytes and nothing is kept but a few counts per point.
+ * Files of any size can be read this way.<p>
+ *
+ * Usage: java SweepReader FILE shows every point's results, and
+ * java SweepReader FILE PARAMETER PARAMETER shows the win rate for each pair of values of two parameters
+ * (toughness, markdown, gold or prices), over all the values of the others.
+ */
+
+public class SweepReader {
+    private static final String[] PARAMETERS = {"toughness", "markdown", "gold", "prices"};
+
+    // the columns of a tally
+    static final int GAMES = 0;
+    static final int WINS = 1;
+    static final int BROKE = 2;
+    static final int TURNS_TO_WIN = 3;
+
+    private final Path file;
+    private final String mode;
+    private final GameTuning[] points;
+    private final long dataStart;
+
+    private SweepReader(Path file, String mode, GameTuning[] points, long dataStart) {
+        this.file = file;
+        this.mode = mode;
+        this.points = points;
+        this.dataStart = dataStart;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1 && args.length != 3) {
+            System.out.println("Usage: java SweepReader FILE [PARAMETER PARAMETER]");
+            System.out.println("Parameters: toughness, markdown, gold, prices");
+            return;
+        }
+        SweepReader reader = open(Path.of(args[0]));
+        long start = System.nanoTime();
+        long[][] tally = reader.tally();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        if (args.length == 1) {
+            reader.printPoints(tally);
+        } else {
+            reader.printSurface(tally, parameter(args[1]), parameter(args[2]));
+        }
+        long games = 0;
+        for (long[] point : tally) {
+            games += point[GAMES];
+        }
+        System.out.printf("%d games in mode %s, read in %.2f s%n", games, reader.mode, seconds);
+    }
+
+    /**
+     * Opens a sweep file and reads its header.
+     *
+     * @param file The file.
+     * @return A reader for it.
+     * @throws IOException if the file can't be read or isn't a sweep file.
+     */
+    public static SweepReader open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer start = readFully(channel, 0, 10, file);
+            if (start.getInt() != SweepWriter.MAGIC || start.getInt() != SweepWriter.VERSION) {
+                throw new IOException(file + " is not a sweep file this version can read");
+            }
+            int modeLength = start.getShort() & 0xffff;
+            ByteBuffer rest = readFully(channel, 10, modeLength + 4, file);
+            byte[] modeBytes = new byte[modeLength];
+            rest.get(modeBytes);
+            int count = rest.getInt();
+            long pointsStart = 10 + modeLength + 4;
+            ByteBuffer table = readFully(channel, pointsStart, count * 28, file);
+            GameTuning[] points = new GameTuning[count];
+            for (int i = 0; i < count; i++) {
+                points[i] = new GameTuning(table.getDouble(), table.getDouble(), table.getInt(), table.getDouble());
+            }
+            return new SweepReader(file, new String(modeBytes, StandardCharsets.UTF_8), points, pointsStart + count * 28L);
+        }
+    }
+
+    public String getMode() {
+        return mode;
+    }
+
+    /**
+     * @return The tuning of each point in the sweep.
+     */
+    public GameTuning[] getPoints() {
+        return points.clone();
+    }
+
+    /**
+     * Counts how the games at each point ended.
+     *
+     * @return For each point: the number of GAMES, WINS, games that went BROKE, and the TURNS_TO_WIN added up.
+     * @throws IOException if the file can't be read.
+     */
+    public long[][] tally() throws IOException {
+        long[][] tally = new long[points.length][4];
+        ByteBuffer rowCount = ByteBuffer.allocate(4);
+        ByteBuffer columns = ByteBuffer.allocate(SweepWriter.MAX_BLOCK_ROWS * 7);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = dataStart;
+            while (position + 4 <= size) {
+                rowCount.clear();
+                read(channel, rowCount, position);
+                int rows = rowCount.getInt(0);
+                if (rows < 1 || rows > SweepWriter.MAX_BLOCK_ROWS || position + 4 + (long) rows * SweepWriter.ROW_BYTES > size) {
+                    break; // cut off, or not a block at all
+                }
+                // point, outcome and turns, one after the other
+                columns.clear().limit(rows * 7);
+                read(channel, columns, position + 4);
+                for (int row = 0; row < rows; row++) {
+                    int point = columns.getInt(row * 4);
+                    if (point < 0 || point >= points.length) {
+                        throw new IOException(file + " has a game at point " + point + " but only " + points.length + " points");
+                    }
+                    long[] counts = tally[point];
+                    counts[GAMES]++;
+                    byte outcome = columns.get(rows * 4 + row);
+                    if (outcome == SweepWriter.WON) {
+                        counts[WINS]++;
+                        counts[TURNS_TO_WIN] += columns.getShort(rows * 5 + row * 2);
+                    } else if (outcome == SweepWriter.BROKE) {
+                        counts[BROKE]++;
+                    }
+                }
+                position += 4 + (long) rows * SweepWriter.ROW_BYTES;
+            }
+        }
+        return tally;
+    }
+
+    /**
+     * @param tuning A point's tuning.
+     * @param parameter An index into PARAMETERS.
+     * @return The point's value of that parameter.
+     */
+    static double valueOf(GameTuning tuning, int parameter) {
+        switch (parameter) {
+            case 0:
+                return tuning.getToughness();
+            case 1:
+                return tuning.getMarkdown();
+            case 2:
+                return tuning.getStartingGold();
+            default:
+                return tuning.getPriceScale();
+        }
+    }
+
+    private void printPoints(long[][] tally) {
+        System.out.printf("%10s %9s %6s %7s %10s %8s %8s %10s%n", "Toughness", "Markdown", "Gold", "Prices",
+                "Games", "Win %", "Broke %", "Avg turns");
+        for (int i = 0; i < points.length; i++) {
+            long[] counts = tally[i];
+            System.out.printf("%10.2f %9.2f %6d %7.2f %10d %8.2f %8.2f %10.1f%n", points[i].getToughness(),
+                    points[i].getMarkdown(), points[i].getStartingGold(), points[i].getPriceScale(), counts[GAMES],
+                    percent(counts[WINS], counts[GAMES]), percent(counts[BROKE], counts[GAMES]),
+                    counts[WINS] == 0 ? 0 : (double) counts[TURNS_TO_WIN] / counts[WINS]);
+        }
+    }
+
+    /**
+     * Prints the win rate for every pair of values of two parameters, one row per value of the first.
+     */
+    private void printSurface(long[][] tally, int rowParameter, int columnParameter) {
+        List<Double> rowValues = distinctValues(rowParameter);
+        List<Double> columnValues = distinctValues(columnParameter);
+        long[][] games = new long[rowValues.size()][columnValues.size()];
+        long[][] wins = new long[rowValues.size()][columnValues.size()];
+        for (int i = 0; i < points.length; i++) {
+            int row = rowValues.indexOf(valueOf(points[i], rowParameter));
+            int column = columnValues.indexOf(valueOf(points[i], columnParameter));
+            games[row][column] += tally[i][GAMES];
+            wins[row][column] += tally[i][WINS];
+        }
+
+        System.out.println("Win % by " + PARAMETERS[rowParameter] + " (rows) and " + PARAMETERS[columnParameter] + " (columns)");
+        StringBuilder line = new StringBuilder(String.format("%10s", ""));
+        for (double value : columnValues) {
+            line.append(String.format(" %8s", format(value)));
+        }
+        System.out.println(line);
+        for (int row = 0; row < rowValues.size(); row++) {
+            line.setLength(0);
+            line.append(String.format("%10s", format(rowValues.get(row))));
+            for (int column = 0; column < columnValues.size(); column++) {
+                line.append(String.format(" %8.2f", percent(wins[row][column], games[row][column])));
+            }
+            System.out.println(line);
+        }
+    }
+
+    private List<Double> distinctValues(int parameter) {
+        TreeSet<Double> values = new TreeSet<>();
+        for (GameTuning point : points) {
+            values.add(valueOf(point, parameter));
+        }
+        return new ArrayList<>(values);
+    }
+
+    private static int parameter(String name) {
+        for (int i = 0; i < PARAMETERS.length; i++) {
+            if (PARAMETERS[i].equalsIgnoreCase(name)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown parameter " + name + "; try toughness, markdown, gold or prices");
+    }
+
+    private static String format(double value) {
+        if (value == Math.rint(value)) {
+            return String.valueOf((long) value);
+        }
+        return String.valueOf(value);
+    }
+
+    private static double percent(long part, long whole) {
+        return whole == 0 ? 0 : 100.0 * part / whole;
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length, Path file) throws IOException {
+        if (position + length > channel.size()) {
+            throw new IOException(file + " is not a sweep file this version can read");
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        read(channel, buffer, position);
+        buffer.flip();
+        return buffer;
+    }
+
+    private static void read(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of file");
+            }
+        }
+    }
+}
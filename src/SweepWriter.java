@@ -0,0 +1,181 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes the games a ParameterSweep plays to a columnar file, one row per game.<p>
+ * Rows are written in blocks, and inside a block each column is stored on its own as a run of primitive
+ * values, so SweepReader can read just the columns a question needs. Each thread fills a Block and hands
+ * it to write(), which appends it in one go; nothing else is kept, so a sweep can write far more games
+ * than would fit in memory. Blocks land in whatever order they finish in.<p>
+ * File layout: int magic "THSW", int version, the mode as a short length and UTF-8 bytes, int pointCount,
+ * then for each point double toughness, double markdown, int startingGold and double priceScale.
+ * Then blocks of int rows followed by the columns: int point, byte outcome, short turns, int gold
+ * (at the end of the game) and int game (its number, see ParameterSweep for the seed).
+ * A block cut off at the end of the file is ignored.
+ */
+
+public class SweepWriter implements Closeable {
+    static final int MAGIC = 0x54485357; // "THSW"
+    static final int VERSION = 1;
+    static final int MAX_BLOCK_ROWS = 65536;
+    static final int ROW_BYTES = 4 + 1 + 2 + 4 + 4;
+
+    // how a game ended, in the outcome column
+    static final byte WON = 0;
+    static final byte BROKE = 1;
+    static final byte STALEMATE = 2;
+
+    private final Path file;
+    private final FileChannel channel;
+    private long rows;
+
+    private SweepWriter(Path file, FileChannel channel) {
+        this.file = file;
+        this.channel = channel;
+    }
+
+    /**
+     * Creates a sweep file, replacing any file already there, and writes its header.
+     *
+     * @param file The file.
+     * @param mode The mode letter every game was played in.
+     * @param points The tuning of each point in the sweep; a row's point is an index into this.
+     * @return The open file.
+     * @throws IOException if the file can't be written.
+     */
+    public static SweepWriter create(Path file, String mode, GameTuning[] points) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        byte[] modeBytes = mode.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer header = ByteBuffer.allocate(14 + modeBytes.length + points.length * 28);
+        header.putInt(MAGIC);
+        header.putInt(VERSION);
+        header.putShort((short) modeBytes.length);
+        header.put(modeBytes);
+        header.putInt(points.length);
+        for (GameTuning point : points) {
+            header.putDouble(point.getToughness());
+            header.putDouble(point.getMarkdown());
+            header.putInt(point.getStartingGold());
+            header.putDouble(point.getPriceScale());
+        }
+        header.flip();
+        try {
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return new SweepWriter(file, channel);
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * @return How many rows have been written so far.
+     */
+    public synchronized long getRows() {
+        return rows;
+    }
+
+    /**
+     * Appends a block to the file. The block's columns are laid out by the calling thread, so only the
+     * write itself is done one block at a time.
+     *
+     * @param block The rows to write.
+     * @throws UncheckedIOException if writing fails.
+     */
+    public void write(Block block) {
+        ByteBuffer bytes = block.encode();
+        synchronized (this) {
+            try {
+                while (bytes.hasRemaining()) {
+                    channel.write(bytes);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not write to " + file, e);
+            }
+            rows += block.size;
+        }
+    }
+
+    public synchronized void close() throws IOException {
+        try {
+            channel.force(false);
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Rows waiting to be written, kept column by column in primitive arrays. One thread fills a block.
+     */
+    public static class Block {
+        private final int[] point;
+        private final byte[] outcome;
+        private final short[] turns;
+        private final int[] gold;
+        private final int[] game;
+        private final ByteBuffer bytes;
+        private int size;
+
+        /**
+         * @param capacity The most rows the block holds, up to MAX_BLOCK_ROWS.
+         */
+        public Block(int capacity) {
+            if (capacity < 1 || capacity > MAX_BLOCK_ROWS) {
+                throw new IllegalArgumentException("A block holds 1 to " + MAX_BLOCK_ROWS + " rows");
+            }
+            point = new int[capacity];
+            outcome = new byte[capacity];
+            turns = new short[capacity];
+            gold = new int[capacity];
+            game = new int[capacity];
+            bytes = ByteBuffer.allocate(4 + capacity * ROW_BYTES);
+        }
+
+        /**
+         * Adds one game.
+         *
+         * @param point The game's point in the sweep.
+         * @param game The game's number at that point.
+         * @param outcome WON, BROKE or STALEMATE.
+         * @param turns The turns the game took.
+         * @param gold The hunter's gold at the end.
+         */
+        public void add(int point, int game, byte outcome, int turns, int gold) {
+            this.point[size] = point;
+            this.outcome[size] = outcome;
+            this.turns[size] = (short) turns;
+            this.gold[size] = gold;
+            this.game[size] = game;
+            size++;
+        }
+
+        private ByteBuffer encode() {
+            bytes.clear();
+            bytes.putInt(size);
+            bytes.asIntBuffer().put(point, 0, size);
+            bytes.position(bytes.position() + 4 * size);
+            bytes.put(outcome, 0, size);
+            bytes.asShortBuffer().put(turns, 0, size);
+            bytes.position(bytes.position() + 2 * size);
+            bytes.asIntBuffer().put(gold, 0, size);
+            bytes.position(bytes.position() + 4 * size);
+            bytes.asIntBuffer().put(game, 0, size);
+            bytes.position(bytes.position() + 4 * size);
+            bytes.flip();
+            return bytes;
+        }
+    }
+}
@@ -1,12 +1,19 @@
 /**
  * The Terrain class is designed to represent the zones between the towns in the Treasure Hunter game.
+ * A Terrain never changes, so each kind is created once (see TerrainTable) and shared by every town.
  * This code has been adapted from Ivan Turner's original program -- thank you Mr. Turner!
  */
 
 public class Terrain {
     // instance variables
-    private String terrainName;
-    private String neededItem;
+    private final String terrainName;
+    private final String neededItem;
+    private final Item neededKitItem;
+    private final String infoText;
+    // the town's lines about this terrain, rendered once so moving to a new town doesn't build them again
+    private final String townInfoText;
+    private final String crossedText;
+    private final String crossedAndBrokeText;
 
     /**
      * Sets the class member variables
@@ -14,9 +21,14 @@ public class Terrain {
      * @param name The name of the zone.
      * @param item The item needed in order to cross the zone.
      */
-    public Terrain(String name, String item) {
+    public Terrain(String name, Item item) {
         terrainName = name;
-        neededItem = item.toLowerCase();
+        neededKitItem = item;
+        neededItem = item.getName();
+        infoText = "You are surrounded by " + terrainName + " which needs a(n) " + neededItem + " to cross.";
+        townInfoText = "This nice little town is surrounded by " + terrainName + ".";
+        crossedText = "You used your " + neededItem + " to cross the " + terrainName + ".";
+        crossedAndBrokeText = crossedText + "\nUnfortunately, you lost your " + neededItem;
     }
 
     // accessors
@@ -28,6 +40,10 @@ public class Terrain {
         return neededItem;
     }
 
+    public Item getNeededKitItem() {
+        return neededKitItem;
+    }
+
     /**
      * Guards against a hunter crossing the zone without the proper item.
      * Searches the hunter's inventory for the proper item and determines whether the hunter can cross.
@@ -36,7 +52,7 @@ public class Terrain {
      * @return true if the Hunter has the proper item.
      */
     public boolean canCrossTerrain(Hunter hunter) {
-        if (hunter.hasItemInKit(neededItem)) {
+        if (hunter.hasItemInKit(neededKitItem)) {
             return true;
         }
         return false;
@@ -46,6 +62,24 @@ public class Terrain {
      * @return A string representation of the terrain and item to cross it.
      */
     public String infoString() {
-        return "You are surrounded by " + terrainName + " which needs a(n) " + neededItem + " to cross.";
+        return infoText;
+    }
+
+    /**
+     * @return The status line for a town surrounded by this terrain.
+     */
+    public String townInfoString() {
+        return townInfoText;
+    }
+
+    /**
+     * @param itemBroke Whether the item used to cross broke.
+     * @return The news after crossing this terrain.
+     */
+    public String crossedMessage(boolean itemBroke) {
+        if (itemBroke) {
+            return crossedAndBrokeText;
+        }
+        return crossedText;
     }
 }
\ No newline at end of file
@@ -0,0 +1,174 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The terrains that can surround a town and how likely each one is, for one difficulty mode.<p>
+ * The weights come from the terrains.txt resource so they can be tuned without touching Town.
+ * Every terrain is created once and shared by all towns (Terrain can't change), and picking one
+ * takes a single random number and a walk along a cumulative weight array.
+ */
+
+public class TerrainTable {
+    private static final String RESOURCE = "/terrains.txt";
+    private static final String[] MODES = {"easy", "normal", "hard", "samurai"};
+    private static final Map<String, TerrainTable> BY_MODE = load();
+
+    private final Terrain[] terrains;
+    private final double[] cumulative; // cumulative[i] is the total weight of terrains 0 to i
+    private final double totalWeight;
+
+    private TerrainTable(Terrain[] terrains, double[] weights) {
+        this.terrains = terrains;
+        cumulative = new double[weights.length];
+        double total = 0;
+        for (int i = 0; i < weights.length; i++) {
+            total += weights[i];
+            cumulative[i] = total;
+        }
+        totalWeight = total;
+    }
+
+    /**
+     * @param mode "easy", "normal", "hard" or "samurai".
+     * @return The terrain table for that mode.
+     */
+    public static TerrainTable forMode(String mode) {
+        TerrainTable table = BY_MODE.get(mode);
+        if (table == null) {
+            throw new IllegalArgumentException("No terrain weights for mode " + mode);
+        }
+        return table;
+    }
+
+    /**
+     * Finds one of the shared terrains by name, for loading a saved town.
+     *
+     * @param name The terrain's name.
+     * @return The terrain, or null if this table doesn't have it.
+     */
+    public Terrain byName(String name) {
+        for (Terrain terrain : terrains) {
+            if (terrain.getTerrainName().equals(name)) {
+                return terrain;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param terrain One of this table's terrains.
+     * @return Its index, for get(), or -1 if it isn't in this table.
+     */
+    public int indexOf(Terrain terrain) {
+        for (int i = 0; i < terrains.length; i++) {
+            if (terrains[i] == terrain) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public int size() {
+        return terrains.length;
+    }
+
+    /**
+     * @param index From 0 to size() - 1.
+     * @return The terrain at that index.
+     */
+    public Terrain get(int index) {
+        return terrains[index];
+    }
+
+    /**
+     * @param index From 0 to size() - 1.
+     * @return The chance pick() chooses the terrain at that index.
+     */
+    public double getChance(int index) {
+        double below = index == 0 ? 0 : cumulative[index - 1];
+        return (cumulative[index] - below) / totalWeight;
+    }
+
+    /**
+     * Picks a terrain for a new town.
+     *
+     * @param rng The town's source of random numbers.
+     * @return One of the shared Terrain objects.
+     */
+    public Terrain pick(GameRandom rng) {
+        double rnd = rng.nextDouble() * totalWeight;
+        int last = terrains.length - 1;
+        for (int i = 0; i < last; i++) {
+            if (rnd < cumulative[i]) {
+                return terrains[i];
+            }
+        }
+        return terrains[last];
+    }
+
+    private static Map<String, TerrainTable> load() {
+        InputStream in = TerrainTable.class.getResourceAsStream(RESOURCE);
+        if (in == null) {
+            throw new IllegalStateException("Could not find the terrain table " + RESOURCE);
+        }
+        List<Terrain> terrains = new ArrayList<>();
+        List<double[]> weights = new ArrayList<>(); // one row per terrain, one column per mode
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split("\\s+");
+                if (fields.length != MODES.length + 1) {
+                    throw new IllegalStateException(RESOURCE + " line " + lineNumber + ": expected a terrain and " + MODES.length + " weights");
+                }
+                terrains.add(new Terrain(fields[0], crossingItem(fields[0])));
+                double[] row = new double[MODES.length];
+                for (int mode = 0; mode < MODES.length; mode++) {
+                    row[mode] = Double.parseDouble(fields[mode + 1]);
+                }
+                weights.add(row);
+            }
+        } catch (IOException | NumberFormatException e) {
+            throw new IllegalStateException("Could not read the terrain table " + RESOURCE, e);
+        }
+        if (terrains.isEmpty()) {
+            throw new IllegalStateException(RESOURCE + " has no terrains");
+        }
+
+        Terrain[] shared = terrains.toArray(new Terrain[0]);
+        Map<String, TerrainTable> tables = new HashMap<>();
+        for (int mode = 0; mode < MODES.length; mode++) {
+            double[] column = new double[shared.length];
+            for (int i = 0; i < shared.length; i++) {
+                column[i] = weights.get(i)[mode];
+            }
+            tables.put(MODES[mode], new TerrainTable(shared, column));
+        }
+        return tables;
+    }
+
+    /**
+     * Finds the catalog item that gets a hunter across a terrain.
+     */
+    private static Item crossingItem(String terrainName) {
+        for (int id = 0; id < ItemCatalog.size(); id++) {
+            Item item = ItemCatalog.byId(id);
+            if (terrainName.equalsIgnoreCase(item.getCrosses())) {
+                return item;
+            }
+        }
+        throw new IllegalStateException("No item in the item catalog crosses " + terrainName);
+    }
+}
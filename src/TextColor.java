@@ -0,0 +1,51 @@
+/**
+ * The color of a piece of the game's text, as red, green and blue from 0 to 255.<p>
+ * The game doesn't use java.awt.Color for this: touching that class loads the AWT native libraries,
+ * which takes longer than starting everything else in the game. Only OutputWindow, which needs Swing
+ * anyway, turns these into AWT colors. The constants have the same values as AWT's.
+ */
+
+public final class TextColor {
+    public static final TextColor BLACK = new TextColor(0, 0, 0);
+    public static final TextColor RED = new TextColor(255, 0, 0);
+    public static final TextColor GREEN = new TextColor(0, 255, 0);
+    public static final TextColor BLUE = new TextColor(0, 0, 255);
+    public static final TextColor CYAN = new TextColor(0, 255, 255);
+    public static final TextColor MAGENTA = new TextColor(255, 0, 255);
+    public static final TextColor ORANGE = new TextColor(255, 200, 0);
+    public static final TextColor GRAY = new TextColor(128, 128, 128);
+    public static final TextColor WHITE = new TextColor(255, 255, 255);
+
+    private final int rgb;
+
+    /**
+     * @param red From 0 to 255.
+     * @param green From 0 to 255.
+     * @param blue From 0 to 255.
+     */
+    public TextColor(int red, int green, int blue) {
+        if ((red | green | blue) < 0 || red > 255 || green > 255 || blue > 255) {
+            throw new IllegalArgumentException("Color parts go from 0 to 255");
+        }
+        rgb = red << 16 | green << 8 | blue;
+    }
+
+    /**
+     * @return The color as 0xRRGGBB, the way new java.awt.Color(int) takes it.
+     */
+    public int getRgb() {
+        return rgb;
+    }
+
+    public boolean equals(Object other) {
+        return other instanceof TextColor && ((TextColor) other).rgb == rgb;
+    }
+
+    public int hashCode() {
+        return rgb;
+    }
+
+    public String toString() {
+        return String.format("#%06x", rgb);
+    }
+}
@@ -0,0 +1,134 @@
+/**
+ * Turns a game's events into the text the player reads.<p>
+ * This is the only place the game's messages are written; Hunter, Town and Shop just publish events.
+ * The renderer looks at the game to fill in the details (the hunter's kit, the town's news), so the events
+ * stay small. A game only subscribes a renderer when its output goes somewhere, so simulations with a
+ * NullOutput never build any of these strings. Everything goes to the OutputSink, which batches it into frames.
+ */
+
+public class TextRenderer implements GameEventListener {
+    private static final Treasure[] TREASURES = Treasure.values();
+
+    private final TreasureHunter game;
+    private final OutputSink window;
+
+    /**
+     * @param game The game to describe.
+     * @param window Where the text goes.
+     */
+    public TextRenderer(TreasureHunter game, OutputSink window) {
+        this.game = game;
+        this.window = window;
+    }
+
+    public void treasureFound(int treasure) {
+        // this comes before the hunter picks the treasure up, so "has it already" means a duplicate
+        Treasure found = TREASURES[treasure];
+        if (!game.getHunter().hasItemInTreasure(found)) {
+            window.addTextToWindow("\nYou found a " + found.getName() + "!", TextColor.MAGENTA);
+        } else {
+            window.addTextToWindow("\nYou already have " + found.getName() + " in your collection so you don't collect it.", TextColor.RED);
+        }
+    }
+
+    public void townLeft(boolean crossed) {
+        if (crossed) {
+            // This town is going away so print its news ahead of time.
+            window.addTextToWindow("\n", TextColor.GREEN);
+            window.addTextToWindow(game.getCurrentTown().getLatestNews(), TextColor.GREEN);
+        }
+    }
+
+    public void brawled(int gold) {
+        if (gold == 0) {
+            window.addTextToWindow("\nYou couldn't find any trouble", TextColor.GRAY);
+            return;
+        }
+        Hunter hunter = game.getHunter();
+        window.addTextToWindow("\nYou want trouble, stranger! You got it!\nOof! Umph! Ow!\n", TextColor.RED);
+        if (gold > 0) {
+            if (hunter.getHasSword()) {
+                window.addTextToWindow("\nThe brawler, seeing your sword, realizes he picked a losing fight and gives you his gold", TextColor.GREEN);
+            } else {
+                window.addTextToWindow("\nOkay, stranger! You proved yer mettle. Here, take my gold.", TextColor.GREEN);
+            }
+            window.addTextToWindow("\nYou won the brawl and receive " + gold + " gold.", TextColor.GREEN);
+        } else {
+            window.addTextToWindow("\nThat'll teach you to go lookin' fer trouble in MY town! Now pay up!", TextColor.RED);
+            window.addTextToWindow("\nYou lost the brawl and pay " + -gold + " gold.", TextColor.RED);
+            if (hunter.isGoldNegative()) {
+                window.addTextToWindow("\n" + game.getCurrentTown().getLatestNews(), TextColor.RED);
+                window.addTextToWindow("\nGame Over!", TextColor.RED);
+            }
+        }
+    }
+
+    public void shopOpened(boolean buying) {
+        if (buying) {
+            window.addTextToWindow("\nWelcome to the shop! We have the finest wares in town.", TextColor.BLACK);
+            window.addTextToWindow("\nCurrently we have the following items: ", TextColor.BLACK);
+            window.addTextToWindow("\n", TextColor.BLACK);
+            window.addTextToWindow(game.getCurrentTown().getShop().inventory(), TextColor.BLACK);
+            window.addTextToWindow("\nWhat're you lookin' to buy?: ", TextColor.BLACK);
+        } else {
+            window.addTextToWindow("What're you lookin' to sell? ", TextColor.BLACK);
+            window.addTextToWindow("\nYou currently have the following items: " + game.getHunter().getInventory(), TextColor.BLACK);
+        }
+    }
+
+    public void priceQuoted(String item, int price, boolean buying) {
+        if (buying) {
+            window.addTextToWindow("\nIt'll cost you " + price + " gold. Buy it (y/n)?: ", TextColor.BLACK);
+        } else {
+            window.addTextToWindow("\nIt'll get you " + price + " gold. Sell it (y/n)?: ", TextColor.GREEN);
+        }
+    }
+
+    public void notStocked(boolean buying) {
+        if (buying) {
+            window.addTextToWindow("\nWe ain't got none of those.", TextColor.RED);
+        } else {
+            window.addTextToWindow("\nWe don't want none of those.", TextColor.RED);
+        }
+    }
+
+    public void purchaseMade(String item, boolean free) {
+        if (free) {
+            window.addTextToWindow("\nThe sword intimidates the shopkeeper and he gives you the item freely", TextColor.GREEN);
+        } else {
+            window.addTextToWindow("\nYe' got yerself a " + item + ". Come again soon.", TextColor.GREEN);
+        }
+    }
+
+    public void purchaseRefused() {
+        window.addTextToWindow("\nHmm, either you don't have enough gold or you've already got one of those!", TextColor.RED);
+    }
+
+    public void saleFinished(boolean sold) {
+        if (sold) {
+            window.addTextToWindow("\nPleasure doin' business with you.", TextColor.BLACK);
+        } else {
+            window.addTextToWindow("\nStop stringin' me along!", TextColor.BLACK);
+        }
+    }
+
+    public void alreadySearched() {
+        window.addTextToWindow("\nYou have already searched this town.", TextColor.RED);
+    }
+
+    public void terrainExplored() {
+        window.addTextToWindow("\n" + game.getCurrentTown().getTerrain().infoString(), TextColor.GREEN);
+    }
+
+    public void invalidChoice() {
+        window.addTextToWindow("\nYikes! That's an invalid option! Try again.", TextColor.RED);
+    }
+
+    public void gameWon() {
+        window.addTextToWindow("\nCongratulations, you have found the last of the three treasures, you win!", TextColor.GREEN);
+    }
+
+    public void gameQuit() {
+        window.addTextToWindow("\nFare thee well, " + game.getHunter().getHunterName() + "!", TextColor.RED);
+    }
+}
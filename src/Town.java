@@ -1,4 +1,6 @@
-import java.awt.*;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 
 /**
  * The Town Class is where it all happens.
@@ -7,6 +9,11 @@ import java.awt.*;
  */
 
 public class Town {
+    // the odds of the things a hunter can do in town (StrategySolver plays by these too)
+    static final double ITEM_BREAK_CHANCE = 0.5;
+    static final int MOST_GOLD_BRAWLED = 10;
+    static final int MOST_GOLD_DUG = 20;
+
     // instance variables
     private Hunter hunter;
     private Shop shop;
@@ -16,17 +23,64 @@ public class Town {
     private boolean dug;
     private TreasureHunter treasureHunter;
     private boolean hasLost;
-    private OutputWindow window;
+    private GameRandom rng;
+    private int swordPurchases; // what the sword has got out of the shop (see Shop.buyItem)
+    // the welcome news for each kind of town, built once for the hunter and reused by every town after
+    private Hunter welcomed;
+    private String roughWelcome;
+    private String sleepyWelcome;
 
     /**
      * The Town Constructor takes in a shop and the surrounding terrain, but leaves the hunter as null until one arrives.
      *
      * @param shop The town's shoppe.
      * @param toughness The surrounding terrain.
+     * @param rng This town's source of random numbers.
      */
-    public Town(Shop shop, double toughness, TreasureHunter th, OutputWindow window) {
-        this.window = window;
+    public Town(Shop shop, double toughness, TreasureHunter th, GameRandom rng) {
+        this.rng = rng;
         this.shop = shop;
+        treasureHunter = th;
+        settle(toughness);
+    }
+
+    /**
+     * Turns this town into one the hunter has never been to, so a game can move on without making a new Town.
+     *
+     * @param toughness The chance the new town is a tough one.
+     * @param world The game's world map.
+     * @param number The town's number on the road; it comes out as that number's random numbers make it.
+     */
+    public void reset(double toughness, WorldMap world, long number) {
+        world.seed(number, rng);
+        settle(toughness);
+    }
+
+    /**
+     * Turns this town back into one the hunter has left before (see WorldMap).
+     *
+     * @param terrain The terrain around it.
+     * @param toughTown Whether it's a tough town.
+     * @param dug Whether the hunter has dug for gold in it.
+     * @param seed Where its random numbers had got to.
+     * @param gamma The rest of its random numbers' state.
+     * @param swordPurchases What the sword got out of its shop.
+     */
+    void restore(Terrain terrain, boolean toughTown, boolean dug, long seed, long gamma, int swordPurchases) {
+        this.terrain = terrain;
+        this.toughTown = toughTown;
+        this.dug = dug;
+        rng = new GameRandom(seed, gamma);
+        this.swordPurchases = swordPurchases;
+        hunter = null;
+        printMessage = "";
+        hasLost = false;
+    }
+
+    /**
+     * Picks the terrain and toughness and empties the town out.
+     */
+    private void settle(double toughness) {
         this.terrain = getNewTerrain();
 
         // the hunter gets set using the hunterArrives method, which
@@ -35,11 +89,74 @@ public class Town {
         printMessage = "";
 
         // higher toughness = more likely to be a tough town
-        toughTown = (Math.random() < toughness);
+        toughTown = (rng.nextDouble() < toughness);
         dug = false;
+        hasLost = false;
+        swordPurchases = 0;
+    }
+
+    // used by readFrom to put a saved town back together
+    private Town(Shop shop, Terrain terrain, TreasureHunter th, GameRandom rng, Hunter hunter) {
+        this.rng = rng;
+        this.shop = shop;
+        this.terrain = terrain;
+        this.hunter = hunter;
         treasureHunter = th;
     }
 
+    /**
+     * Saves everything about the town for a snapshot (see GameSnapshot).
+     *
+     * @param out Where to write.
+     * @throws IOException if writing fails.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeUTF(terrain.getTerrainName());
+        int flags = 0;
+        if (toughTown) {
+            flags |= 1;
+        }
+        if (dug) {
+            flags |= 2;
+        }
+        if (hasLost) {
+            flags |= 4;
+        }
+        out.writeByte(flags);
+        out.writeUTF(printMessage);
+        out.writeLong(rng.getSeed());
+        out.writeLong(rng.getGamma());
+        out.writeInt(swordPurchases);
+    }
+
+    /**
+     * Loads a town saved by writeTo(), with the hunter already in it.
+     *
+     * @param in Where to read.
+     * @param shop The town's shop.
+     * @param th The game the town belongs to.
+     * @param hunter The hunter in the town.
+     * @return The town.
+     * @throws IOException if reading fails or the terrain is unknown.
+     */
+    public static Town readFrom(DataInput in, Shop shop, TreasureHunter th, Hunter hunter) throws IOException {
+        String terrainName = in.readUTF();
+        Terrain terrain = th.getTerrainTable().byName(terrainName);
+        if (terrain == null) {
+            throw new IOException("Unknown terrain " + terrainName);
+        }
+        int flags = in.readUnsignedByte();
+        String printMessage = in.readUTF();
+        GameRandom rng = new GameRandom(in.readLong(), in.readLong());
+        Town town = new Town(shop, terrain, th, rng, hunter);
+        town.toughTown = (flags & 1) != 0;
+        town.dug = (flags & 2) != 0;
+        town.hasLost = (flags & 4) != 0;
+        town.printMessage = printMessage;
+        town.swordPurchases = in.readInt();
+        return town;
+    }
+
     public Terrain getTerrain() {
         return terrain;
     }
@@ -52,6 +169,54 @@ public class Town {
         return hasLost;
     }
 
+    public boolean getDug() {
+        return dug;
+    }
+
+    public boolean getToughTown() {
+        return toughTown;
+    }
+
+    public Shop getShop() {
+        return shop;
+    }
+
+    /**
+     * @return Where this town's random numbers have got to (see GameEventListener.turnEnded).
+     */
+    long getRandomSeed() {
+        return rng.getSeed();
+    }
+
+    long getRandomGamma() {
+        return rng.getGamma();
+    }
+
+    TreasureHunter getGame() {
+        return treasureHunter;
+    }
+
+    int getSwordPurchases() {
+        return swordPurchases;
+    }
+
+    void setSwordPurchases(int swordPurchases) {
+        this.swordPurchases = swordPurchases;
+    }
+
+    // the rest of these are only used by JournalReplay, to put a town back the way the journal says it was
+    void setRandomSeed(long seed) {
+        rng = new GameRandom(seed, rng.getGamma());
+    }
+
+    void setDug(boolean dug) {
+        this.dug = dug;
+    }
+
+    void setHasLost(boolean hasLost) {
+        this.hasLost = hasLost;
+    }
+
     /**
      * Assigns an object to the Hunter in town.
      *
@@ -59,11 +224,16 @@ public class Town {
      */
     public void hunterArrives(Hunter hunter) {
         this.hunter = hunter;
-        printMessage = "Welcome to town, " + hunter.getHunterName() + ".";
+        if (hunter != welcomed) {
+            welcomed = hunter;
+            String greeting = "Welcome to town, " + hunter.getHunterName() + ".";
+            roughWelcome = greeting + "\nIt's pretty rough around here, so watch yourself.";
+            sleepyWelcome = greeting + "\nWe're just a sleepy little town with mild mannered folk.";
+        }
         if (toughTown) {
-            printMessage += "\nIt's pretty rough around here, so watch yourself.";
+            printMessage = roughWelcome;
         } else {
-            printMessage += "\nWe're just a sleepy little town with mild mannered folk.";
+            printMessage = sleepyWelcome;
         }
     }
 
@@ -75,17 +245,16 @@ public class Town {
     public boolean leaveTown() {
         boolean canLeaveTown = terrain.canCrossTerrain(hunter);
         if (canLeaveTown) {
-            String item = terrain.getNeededItem();
-            printMessage = "You used your " + item + " to cross the " + terrain.getTerrainName() + ".";
-            if (treasureHunter.getCurrentMode() != treasureHunter.getEasyMode()) {
-                if (checkItemBreak()) {
-                    hunter.removeItemFromKit(item);
-                    printMessage += "\nUnfortunately, you lost your " + item;
-                }
+            boolean itemBroke = rollItemBreak();
+            if (itemBroke) {
+                hunter.removeItemFromKit(terrain.getNeededKitItem());
             }
+            printMessage = terrain.crossedMessage(itemBroke);
+            treasureHunter.getEvents().townLeft(true);
             return true;
         } else {
             printMessage = "You can't leave town, " + hunter.getHunterName() + ". You don't have a " + terrain.getNeededItem() + ".";
+            treasureHunter.getEvents().townLeft(false);
             return false;
         }
     }
@@ -96,7 +265,16 @@ public class Town {
      * @param choice If the user wants to buy or sell items at the shop.
      */
     public void enterShop(String choice) {
-        printMessage = shop.enter(hunter, choice);
+        printMessage = shop.enter(hunter, choice, this);
+    }
+
+    /**
+     * Handles a Policy's visit to the shop, which needs no answers from the input.
+     *
+     * @param decision A BUY or SELL decision.
+     */
+    public void enterShop(Decision decision) {
+        printMessage = shop.enter(hunter, decision, this);
     }
 
     /**
@@ -106,42 +284,28 @@ public class Town {
      */
     public void huntForTreausre() {
         if (!hunter.getIsSearched()) {
-            hunter.addTreasure();
+            hunter.addTreasure(rng);
         } else {
-            window.addTextToWindow("\nYou have already searched this town.", Color.red);
+            treasureHunter.getEvents().alreadySearched();
         }
 
     }
     public void lookForTrouble() {
-        double noTroubleChance;
-        if (toughTown) {
-            noTroubleChance = 0.66;
-        } else {
-            noTroubleChance = 0.33;
-        }
-        if (Math.random() > noTroubleChance) {
-            window.addTextToWindow("\nYou couldn't find any trouble", Color.gray);
+        double noTroubleChance = getNoTroubleChance(toughTown);
+        if (rng.nextDouble() > noTroubleChance) {
+            treasureHunter.getEvents().brawled(0);
         } else {
-            window.addTextToWindow("\nYou want trouble, stranger! You got it!\nOof! Umph! Ow!\n", Color.red);
-            int goldDiff = (int) (Math.random() * 10) + 1;
-            if (Math.random() > noTroubleChance || hunter.getHasSword()) {
-                if (hunter.getHasSword()) {
-                    window.addTextToWindow("\nThe brawler, seeing your sword, realizes he picked a losing fight and gives you his gold", Color.green);
-                } else {
-                    window.addTextToWindow("\nOkay, stranger! You proved yer mettle. Here, take my gold.", Color.green);
-                }
-                window.addTextToWindow("\nYou won the brawl and receive " + goldDiff + " gold.", Color.green);
+            int goldDiff = rng.nextInt(MOST_GOLD_BRAWLED) + 1;
+            if (rng.nextDouble() > noTroubleChance || hunter.getHasSword()) {
                 printMessage = "You won a brawl";
                 hunter.changeGold(goldDiff);
+                treasureHunter.getEvents().brawled(goldDiff);
             } else {
-                window.addTextToWindow( "\nThat'll teach you to go lookin' fer trouble in MY town! Now pay up!", Color.red);
-                window.addTextToWindow("\nYou lost the brawl and pay " + goldDiff + " gold.", Color.red);
                 printMessage = "You lost a brawl";
                 hunter.changeGold(-goldDiff);
+                treasureHunter.getEvents().brawled(-goldDiff);
                 if (hunter.isGoldNegative()) {
-                    window.addTextToWindow("\n" + printMessage, Color.red);
                     hasLost = true;
-                    window.addTextToWindow("\nGame Over!", Color.red);
                 }
             }
         }
@@ -152,16 +316,18 @@ public class Town {
         if (dug) {
             printMessage = "You already dug for gold in this town.\n";
         } else {
-            if (hunter.hasItemInKit("shovel")) {
-                int chance = (int) (Math.random() * 2) + 1;
+            if (hunter.hasItemInKit(ItemCatalog.SHOVEL)) {
+                int chance = rng.nextInt(2) + 1;
                 if (chance == 1) {
-                    int amountReceived = (int) (Math.random() * 20) + 1;
+                    int amountReceived = rng.nextInt(MOST_GOLD_DUG) + 1;
                     hunter.changeGold(amountReceived);
                     printMessage = "You dug up " + amountReceived + " gold!\n";
                     dug = true;
+                    treasureHunter.getEvents().dugForGold(amountReceived);
                 } else {
                     printMessage = "You dug but only found dirt.\n";
                     dug = true;
+                    treasureHunter.getEvents().dugForGold(0);
                 }
             } else {
                 printMessage = "You can't dig for gold without a shovel.\n";
@@ -170,29 +336,27 @@ public class Town {
     }
 
     public String infoString() {
-        return "This nice little town is surrounded by " + terrain.getTerrainName() + ".";
+        return terrain.townInfoString();
     }
 
     /**
      * Determines the surrounding terrain for a town, and the item needed in order to cross that terrain.
      *
-     * @return A Terrain object.
-     */
-    private Terrain getNewTerrain() {
-        double rnd = Math.random();
-        if (rnd < .166) {
-            return new Terrain("Mountains", "Rope");
-        } else if (rnd < .333) {
-            return new Terrain("Ocean", "Boat");
-        } else if (rnd < .5) {
-            return new Terrain("Plains", "Horse");
-        } else if (rnd < .666) {
-            return new Terrain("Desert", "Water");
-        } else if (rnd < .833){
-            return new Terrain("Jungle", "Machete");
-        } else {
-            return new Terrain("Marsh", "Boots");
-        }
+     * @return One of the shared Terrain objects for the game's mode.
+     */
+    Terrain getNewTerrain() {
+        return treasureHunter.getTerrainTable().pick(rng);
+    }
+
+    /**
+     * Rolls for whether crossing the terrain broke the item it needs; items never break in easy mode.
+     * JournalReplay rolls too when the hunter leaves, since the journal only has where the town's random
+     * numbers were at the end of the turn before.
+     *
+     * @return true if the item broke.
+     */
+    boolean rollItemBreak() {
+        return treasureHunter.getCurrentMode() != treasureHunter.getEasyMode() && checkItemBreak();
     }
 
     /**
@@ -201,7 +365,21 @@ public class Town {
      * @return true if the item broke.
      */
     private boolean checkItemBreak() {
-        double rand = Math.random();
-        return (rand < 0.5);
+        double rand = rng.nextDouble();
+        return (rand < ITEM_BREAK_CHANCE);
+    }
+
+    /**
+     * Despite the name, a roll above this means no trouble, so it is the chance of finding a fight;
+     * it is also the chance of losing the fight (unless the hunter has the sword).
+     *
+     * @param toughTown Whether the town is a tough one.
+     * @return The chance.
+     */
+    static double getNoTroubleChance(boolean toughTown) {
+        if (toughTown) {
+            return 0.66;
+        }
+        return 0.33;
     }
 }
\ No newline at end of file
@@ -0,0 +1,181 @@
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.CRC32C;
+
+/**
+ * One recorded play session: the game's seed, every line the game read, and how the game stood at the end.<p>
+ * A game only depends on its seed and its input, so playing the lines again into a new game with the same
+ * seed has to end in exactly the same state; TraceReplay checks that it does. TraceRecorder makes traces,
+ * TraceWriter saves them and TraceReader loads them.
+ */
+
+public final class Trace {
+    private final long seed;
+    private final boolean skipsPauses;
+    private final String[] lines;
+    private final Ending ending;
+
+    /**
+     * @param seed The game's seed.
+     * @param skipsPauses Whether the input skipped the "Press enter to continue" pauses, which otherwise read a line each.
+     * @param lines Every line the game read, in order; after the last one, the input had ended.
+     * @param ending How the game stood when it was recorded.
+     */
+    public Trace(long seed, boolean skipsPauses, String[] lines, Ending ending) {
+        this.seed = seed;
+        this.skipsPauses = skipsPauses;
+        this.lines = lines;
+        this.ending = ending;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public boolean getSkipsPauses() {
+        return skipsPauses;
+    }
+
+    public String[] getLines() {
+        return lines;
+    }
+
+    public Ending getEnding() {
+        return ending;
+    }
+
+    /**
+     * @return A new input that gives out the recorded lines, then ends.
+     */
+    public InputSource input() {
+        return new InputSource() {
+            private int next;
+
+            public String nextLine() {
+                return next < lines.length ? lines[next++] : null;
+            }
+
+            public boolean skipsPauses() {
+                return skipsPauses;
+            }
+        };
+    }
+
+    /**
+     * Plays the trace again, from the start, in a new game.
+     *
+     * @param window Where the game's text goes.
+     * @return The game, played to where the input ended.
+     */
+    public TreasureHunter replay(OutputSink window) {
+        TreasureHunter game = new TreasureHunter(window, input(), seed);
+        game.play();
+        return game;
+    }
+
+    /**
+     * How a game stood when it ended: the hunter's gold, kit and treasures, where they were, the turns
+     * taken and whether they won or lost, and a checksum of the whole Hunter and Town as they save
+     * themselves (so a change to either's save format means recording the traces again).
+     */
+    public static final class Ending {
+        static final int WON = 1;
+        static final int LOST = 2;
+
+        private final int gold;
+        private final long kit;
+        private final int treasures;
+        private final long townNumber;
+        private final int turns;
+        private final int flags;
+        private final int checksum;
+
+        public Ending(int gold, long kit, int treasures, long townNumber, int turns, int flags, int checksum) {
+            this.gold = gold;
+            this.kit = kit;
+            this.treasures = treasures;
+            this.townNumber = townNumber;
+            this.turns = turns;
+            this.flags = flags;
+            this.checksum = checksum;
+        }
+
+        /**
+         * @param game A game that has started (its hunter has a name).
+         * @return How it stands now.
+         */
+        public static Ending of(TreasureHunter game) {
+            Hunter hunter = game.getHunter();
+            Town town = game.getCurrentTown();
+            int flags = 0;
+            if (hunter.getIsFoundTreasure()) {
+                flags |= WON;
+            }
+            if (town.getHasLost()) {
+                flags |= LOST;
+            }
+            CRC32C crc = new CRC32C();
+            try {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+                DataOutputStream out = new DataOutputStream(bytes);
+                hunter.writeTo(out);
+                town.writeTo(out);
+                out.flush();
+                crc.update(bytes.toByteArray());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e); // a byte array doesn't throw
+            }
+            return new Ending(hunter.getGold(), hunter.getKitMask(), hunter.getTreasureCount(), game.getTownNumber(),
+                    game.getTurns(), flags, (int) crc.getValue());
+        }
+
+        public int getGold() {
+            return gold;
+        }
+
+        public long getKit() {
+            return kit;
+        }
+
+        public int getTreasures() {
+            return treasures;
+        }
+
+        public long getTownNumber() {
+            return townNumber;
+        }
+
+        public int getTurns() {
+            return turns;
+        }
+
+        int getFlags() {
+            return flags;
+        }
+
+        int getChecksum() {
+            return checksum;
+        }
+
+        public boolean equals(Object other) {
+            if (!(other instanceof Ending)) {
+                return false;
+            }
+            Ending that = (Ending) other;
+            return gold == that.gold && kit == that.kit && treasures == that.treasures && townNumber == that.townNumber
+                    && turns == that.turns && flags == that.flags && checksum == that.checksum;
+        }
+
+        public int hashCode() {
+            return checksum;
+        }
+
+        public String toString() {
+            String outcome = (flags & WON) != 0 ? "won" : (flags & LOST) != 0 ? "lost" : "playing";
+            return outcome + ", " + gold + " gold, kit " + Long.toHexString(kit) + ", " + treasures + " treasures, town "
+                    + townNumber + ", " + turns + " turns, checksum " + Integer.toHexString(checksum);
+        }
+    }
+}
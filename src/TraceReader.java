@@ -0,0 +1,122 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads back the sessions in a trace file written by TraceWriter.<p>
+ * Reading stops at the first record that is cut off or damaged, which is where a crash would have left the file.
+ */
+
+public class TraceReader {
+    private static final int MIN_BODY = 8 + 1 + 4 + 8 + 1 + 8 + 4 + 1 + 4 + 4 + 4;
+
+    private TraceReader() {
+    }
+
+    /**
+     * @param file A trace file.
+     * @return Every whole session in it, in the order they were added.
+     * @throws IOException if the file can't be read or isn't a trace file.
+     */
+    public static List<Trace> readAll(Path file) throws IOException {
+        List<Trace> traces = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            checkHeader(map, file);
+            Inflater inflater = new Inflater();
+            try {
+                while (nextRecord(map, new CRC32())) {
+                    int bodyEnd = map.position() + TraceWriter.RECORD_HEADER + map.getInt(map.position());
+                    map.position(map.position() + TraceWriter.RECORD_HEADER);
+                    traces.add(decode(map.slice(map.position(), bodyEnd - map.position()), inflater));
+                    map.position(bodyEnd);
+                }
+            } finally {
+                inflater.end();
+            }
+        }
+        return traces;
+    }
+
+    /**
+     * @param channel An open trace file.
+     * @param file Its path, for the error message.
+     * @return The length of the file up to the end of its last whole record.
+     * @throws IOException if the file can't be read or isn't a trace file.
+     */
+    static long validLength(FileChannel channel, Path file) throws IOException {
+        MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        checkHeader(map, file);
+        CRC32 crc = new CRC32();
+        while (nextRecord(map, crc)) {
+            map.position(map.position() + TraceWriter.RECORD_HEADER + map.getInt(map.position()));
+        }
+        return map.position();
+    }
+
+    private static void checkHeader(ByteBuffer map, Path file) throws IOException {
+        if (map.remaining() < TraceWriter.FILE_HEADER || map.getInt() != TraceWriter.MAGIC) {
+            throw new IOException(file + " is not a trace file");
+        }
+        int version = map.getInt();
+        if (version != TraceWriter.VERSION) {
+            throw new IOException(file + " is trace version " + version + ", not " + TraceWriter.VERSION);
+        }
+    }
+
+    /**
+     * @return Whether a whole record with the right checksum starts at the buffer's position.
+     */
+    private static boolean nextRecord(ByteBuffer map, CRC32 crc) {
+        int start = map.position();
+        if (map.limit() - start < TraceWriter.RECORD_HEADER) {
+            return false;
+        }
+        int bodyLength = map.getInt(start);
+        if (bodyLength < MIN_BODY || bodyLength > map.limit() - start - TraceWriter.RECORD_HEADER) {
+            return false;
+        }
+        crc.reset();
+        crc.update(map.slice(start + TraceWriter.RECORD_HEADER, bodyLength));
+        return (int) crc.getValue() == map.getInt(start + 4);
+    }
+
+    private static Trace decode(ByteBuffer body, Inflater inflater) throws IOException {
+        long seed = body.getLong();
+        boolean skipsPauses = body.get() != 0;
+        Trace.Ending ending = new Trace.Ending(body.getInt(), body.getLong(), body.get(), body.getLong(),
+                body.getInt(), body.get(), body.getInt());
+        int lineCount = body.getInt();
+        byte[] text = new byte[body.getInt()];
+        inflater.reset();
+        inflater.setInput(body);
+        try {
+            int read = 0;
+            while (read < text.length && !inflater.finished()) {
+                read += inflater.inflate(text, read, text.length - read);
+                if (inflater.needsInput()) {
+                    break;
+                }
+            }
+            if (read != text.length) {
+                throw new IOException("A trace's lines are cut off");
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("A trace's lines are damaged", e);
+        }
+        String[] lines = lineCount == 0 ? new String[0] : new String(text, StandardCharsets.UTF_8).split("\n", -1);
+        if (lines.length != lineCount) {
+            throw new IOException("A trace has " + lines.length + " lines instead of " + lineCount);
+        }
+        return new Trace(seed, skipsPauses, lines, ending);
+    }
+}
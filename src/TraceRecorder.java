@@ -0,0 +1,39 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An InputSource that keeps a copy of every line another one gives the game, so the session can be saved
+ * as a Trace once the game is over.
+ */
+
+public class TraceRecorder implements InputSource {
+    private final InputSource in;
+    private final List<String> lines = new ArrayList<>();
+
+    public TraceRecorder(InputSource in) {
+        this.in = in;
+    }
+
+    public String nextLine() {
+        String line = in.nextLine();
+        if (line != null) {
+            lines.add(line);
+        }
+        return line;
+    }
+
+    public boolean skipsPauses() {
+        return in.skipsPauses();
+    }
+
+    /**
+     * @param game The game that read from this input, once it's over.
+     * @return The session as a trace, or null if the game never got as far as naming its hunter.
+     */
+    public Trace finish(TreasureHunter game) {
+        if (game.getHunter() == null || game.getCurrentTown() == null) {
+            return null;
+        }
+        return new Trace(game.getSeed(), skipsPauses(), lines.toArray(new String[0]), Trace.Ending.of(game));
+    }
+}
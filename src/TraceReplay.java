@@ -0,0 +1,192 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Plays recorded sessions (see Trace) again, headless, to check a change to the game and time it.<p>
+ * Every session is first played once to check that it still ends exactly as it did when it was recorded,
+ * then played again a number of times to measure it: the fastest time is kept, along with how many bytes
+ * it allocated on the replaying thread. Real sessions go through shops, fights and the road in the mix
+ * people play them, which is what no synthetic benchmark reproduces, so the corpus doubles as a correctness
+ * gate and a performance one. The games' text is thrown away unrendered, unless --render is given, which
+ * renders every frame as GameServer would before discarding it.<p>
+ * Record a corpus with --trace FILE on TreasureHunterRunner or GameServer (LoadTestClient against a
+ * tracing server makes thousands of sessions quickly). The exit status is 1 if any session ended differently.<p>
+ *
+ * Usage: java TraceReplay FILE... [--repeat N] [--csv FILE] [--render]
+ */
+
+public class TraceReplay {
+    private static final int SHOWN_MISMATCHES = 10;
+
+    public static void main(String[] args) throws IOException {
+        List<Path> files = new ArrayList<>();
+        int repeat = 5;
+        Path csv = null;
+        boolean render = false;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--repeat") && i + 1 < args.length) {
+                repeat = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--csv") && i + 1 < args.length) {
+                csv = Path.of(args[++i]);
+            } else if (args[i].equals("--render")) {
+                render = true;
+            } else {
+                files.add(Path.of(args[i]));
+            }
+        }
+        if (files.isEmpty()) {
+            System.out.println("Usage: java TraceReplay FILE... [--repeat N] [--csv FILE] [--render]");
+            return;
+        }
+        List<Trace> traces = new ArrayList<>();
+        for (Path file : files) {
+            traces.addAll(TraceReader.readAll(file));
+        }
+        TraceReplay replay = new TraceReplay(render ? new ProtocolOutput(OutputStream.nullOutputStream()) : NullOutput.INSTANCE);
+
+        int mismatches = 0;
+        for (int i = 0; i < traces.size(); i++) {
+            Trace trace = traces.get(i);
+            Trace.Ending ending = replay.check(trace);
+            if (ending != null) {
+                mismatches++;
+                if (mismatches <= SHOWN_MISMATCHES) {
+                    System.out.println("Session " + i + " (seed " + Long.toHexString(trace.getSeed()) + ") ended differently:");
+                    System.out.println("  recorded " + trace.getEnding());
+                    System.out.println("  replayed " + ending);
+                }
+            }
+        }
+
+        Result[] results = new Result[traces.size()];
+        for (int i = 0; i < traces.size(); i++) {
+            results[i] = replay.measure(traces.get(i), repeat);
+        }
+        replay.report(traces, results, mismatches);
+        if (csv != null) {
+            writeCsv(csv, traces, results);
+        }
+        if (mismatches > 0) {
+            System.exit(1);
+        }
+    }
+
+    private final OutputSink window;
+    private final com.sun.management.ThreadMXBean threads;
+
+    /**
+     * @param window Where replayed games' text goes; NullOutput skips building it at all.
+     */
+    public TraceReplay(OutputSink window) {
+        this.window = window;
+        threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    }
+
+    /**
+     * Plays a session again and compares how it ended.
+     *
+     * @param trace The session.
+     * @return How the replay ended if that's different from the recording, or null if it's the same.
+     */
+    public Trace.Ending check(Trace trace) {
+        TreasureHunter game = trace.replay(window);
+        if (game.getHunter() == null || game.getCurrentTown() == null) {
+            return new Trace.Ending(0, 0, 0, 0, 0, 0, 0); // it didn't even start
+        }
+        Trace.Ending ending = Trace.Ending.of(game);
+        return ending.equals(trace.getEnding()) ? null : ending;
+    }
+
+    /**
+     * Plays a session a number of times and keeps its best time.
+     *
+     * @param trace The session.
+     * @param repeat How many times to play it.
+     * @return The fastest time, and what that play allocated.
+     */
+    public Result measure(Trace trace, int repeat) {
+        Result best = null;
+        for (int i = 0; i < Math.max(repeat, 1); i++) {
+            long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            trace.replay(window);
+            long nanos = System.nanoTime() - start;
+            long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+            if (best == null || nanos < best.nanos) {
+                best = new Result(nanos, allocated);
+            }
+        }
+        return best;
+    }
+
+    private void report(List<Trace> traces, Result[] results, int mismatches) {
+        long turns = 0;
+        long nanos = 0;
+        long allocated = 0;
+        long[] times = new long[results.length];
+        for (int i = 0; i < results.length; i++) {
+            turns += traces.get(i).getEnding().getTurns();
+            nanos += results[i].nanos;
+            allocated += results[i].allocated;
+            times[i] = results[i].nanos;
+        }
+        Arrays.sort(times);
+        System.out.printf("%d sessions, %d ended differently%n", traces.size(), mismatches);
+        if (times.length == 0) {
+            return;
+        }
+        System.out.printf("%d turns in %.1f ms: %.0f turns/s, %.0f sessions/s, %.0f bytes allocated per turn%n",
+                turns, nanos / 1e6, turns / (nanos / 1e9), results.length / (nanos / 1e9),
+                turns == 0 ? 0.0 : (double) allocated / turns);
+        System.out.printf("per session: p50 %.1f us, p90 %.1f us, p99 %.1f us, max %.1f us%n",
+                percentile(times, 0.50) / 1e3, percentile(times, 0.90) / 1e3, percentile(times, 0.99) / 1e3,
+                times[times.length - 1] / 1e3);
+    }
+
+    private static void writeCsv(Path csv, List<Trace> traces, Result[] results) throws IOException {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(csv))) {
+            out.println("session,seed,lines,turns,nanos,turns_per_second,bytes_allocated,bytes_per_turn");
+            for (int i = 0; i < results.length; i++) {
+                Trace trace = traces.get(i);
+                int turns = trace.getEnding().getTurns();
+                Result result = results[i];
+                out.printf("%d,%s,%d,%d,%d,%.0f,%d,%.1f%n", i, Long.toHexString(trace.getSeed()), trace.getLines().length,
+                        turns, result.nanos, turns / (result.nanos / 1e9), result.allocated,
+                        turns == 0 ? 0.0 : (double) result.allocated / turns);
+            }
+        }
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    /**
+     * How long one play of a session took, and how many bytes it allocated.
+     */
+    public static final class Result {
+        private final long nanos;
+        private final long allocated;
+
+        Result(long nanos, long allocated) {
+            this.nanos = nanos;
+            this.allocated = allocated;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+
+        public long getAllocated() {
+            return allocated;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Appends recorded play sessions (see Trace) to a trace file, for any number of games at once.<p>
+ * A session's lines are mostly single letters, so they are joined with newlines and deflated; most
+ * sessions take between 80 and 150 bytes, about half of that the fixed fields. Each session is one record, written to the file
+ * as soon as it's added; only close() forces the file to disk, since a trace lost in a crash is
+ * just one less test. A record cut off by a crash is dropped when the file is next opened.<p>
+ * File layout: int magic "THTR", int version, then records of int bodyLength, int crc, then a body of
+ * long seed, byte flags (1 if pauses were skipped), the ending (int gold, long kit, byte treasures,
+ * long town number, int turns, byte won/lost flags, int checksum), int line count, int length of the
+ * joined lines in UTF-8, and the deflated lines. TraceReader reads the file back.
+ */
+
+public class TraceWriter implements Closeable {
+    static final int MAGIC = 0x54485452; // "THTR"
+    static final int VERSION = 1;
+    static final int FILE_HEADER = 8;
+    static final int RECORD_HEADER = 8;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final CRC32 crc = new CRC32();
+    private final Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+    private final byte[] deflated = new byte[4096];
+    private IOException failure; // the first write that failed; nothing is written after it
+
+    private TraceWriter(Path file, FileChannel channel) {
+        this.file = file;
+        this.channel = channel;
+    }
+
+    /**
+     * Opens a trace file to add to, creating it if it doesn't exist.
+     *
+     * @param file The trace file.
+     * @return The open file.
+     * @throws IOException if the file can't be opened or isn't a trace file.
+     */
+    public static TraceWriter open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (channel.size() == 0) {
+                ByteBuffer header = ByteBuffer.allocate(FILE_HEADER).putInt(MAGIC).putInt(VERSION).flip();
+                while (header.hasRemaining()) {
+                    channel.write(header);
+                }
+            } else {
+                // drop anything after the last whole record, so new records aren't hidden behind it
+                long end = TraceReader.validLength(channel, file);
+                channel.truncate(end);
+                channel.position(end);
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return new TraceWriter(file, channel);
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Adds a session to the file. A game shouldn't stop because its trace couldn't be written,
+     * so a failure is only reported by close().
+     *
+     * @param trace The session, or null (from TraceRecorder.finish()) to add nothing.
+     */
+    public synchronized void add(Trace trace) {
+        if (trace == null || failure != null) {
+            return;
+        }
+        try {
+            ByteBuffer record = ByteBuffer.wrap(encode(trace));
+            crc.reset();
+            crc.update(record.array(), RECORD_HEADER, record.capacity() - RECORD_HEADER);
+            record.putInt(0, record.capacity() - RECORD_HEADER);
+            record.putInt(4, (int) crc.getValue());
+            while (record.hasRemaining()) {
+                channel.write(record);
+            }
+        } catch (IOException e) {
+            failure = e;
+        }
+    }
+
+    /**
+     * @return The record for a trace, with room left at the start for its length and checksum.
+     */
+    private byte[] encode(Trace trace) throws IOException {
+        byte[] text = String.join("\n", trace.getLines()).getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + text.length / 4);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeLong(0); // the record header
+        out.writeLong(trace.getSeed());
+        out.writeByte(trace.getSkipsPauses() ? 1 : 0);
+        Trace.Ending ending = trace.getEnding();
+        out.writeInt(ending.getGold());
+        out.writeLong(ending.getKit());
+        out.writeByte(ending.getTreasures());
+        out.writeLong(ending.getTownNumber());
+        out.writeInt(ending.getTurns());
+        out.writeByte(ending.getFlags());
+        out.writeInt(ending.getChecksum());
+        out.writeInt(trace.getLines().length);
+        out.writeInt(text.length);
+        deflater.reset();
+        deflater.setInput(text);
+        deflater.finish();
+        while (!deflater.finished()) {
+            out.write(deflated, 0, deflater.deflate(deflated));
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    public synchronized void close() throws IOException {
+        try {
+            if (failure != null) {
+                throw failure;
+            }
+            channel.force(false);
+        } finally {
+            channel.close();
+            deflater.end();
+        }
+    }
+}
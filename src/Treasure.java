@@ -0,0 +1,21 @@
+/**
+ * The things a hunter can find when hunting for treasure in a town.
+ * Dust is worthless and never goes into the collection.
+ */
+
+public enum Treasure {
+    CROWN("Crown"),
+    TROPHY("Trophy"),
+    GEM("Gem"),
+    DUST("Dust");
+
+    private final String name;
+
+    Treasure(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+}
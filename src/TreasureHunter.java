@@ -1,19 +1,46 @@
-import java.awt.*;
-import java.sql.SQLOutput;
-import java.util.Scanner;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 
 /**
  * This class is responsible for controlling the Treasure Hunter game.<p>
  * It handles the display of the menu and the processing of the player's choices.<p>
- * It handles all the display based on the messages it receives from the Town object. <p>
+ * It draws the menu itself; everything else the player reads comes from a TextRenderer listening to the game's events. <p>
  *
  * This code has been adapted from Ivan Turner's original program -- thank you Mr. Turner!
  */
 
-public class TreasureHunter {
-    OutputWindow window = new OutputWindow(); // only want one OutputWindow object
-    // static variables
-    private static final Scanner SCANNER = new Scanner(System.in);
+public class TreasureHunter implements Closeable {
+    // the regions of the main menu's screen, top to bottom
+    private static final int NEWS = 0;
+    private static final int RULE = 1;
+    private static final int STATUS = 2;
+    private static final int TREASURES = 3;
+    private static final int TOWN = 4;
+    private static final int CHOICES = 5;
+    private static final String CHOICES_TEXT = "(B)uy something at the shop."
+            + "\n(S)ell something at the shop."
+            + "\n(E)xplore surrounding terrain."
+            + "\n(M)ove on to a different town."
+            + "\n(G)o back down the road."
+            + "\n(H)unt for treasure."
+            + "\n(L)ook for trouble!"
+            + "\n(D)ig for gold.";
+    private static final String CHOICES_END = "\nGive up the hunt and e(X)it."
+            + "\nWhat's your next move?: ";
+    // the game's own commands, shared by every game (see addCommand() for adding more)
+    private static final CommandTable COMMANDS = new CommandTable((game, decision) -> game.invalidChoice())
+            .with(Action.BUY, (game, decision) -> game.visitShop("b", decision))
+            .with(Action.SELL, (game, decision) -> game.visitShop("s", decision))
+            .with(Action.EXPLORE, (game, decision) -> game.events.terrainExplored())
+            .with(Action.MOVE, (game, decision) -> game.travel(game.townNumber + 1))
+            .with(Action.BACK, (game, decision) -> game.travel(game.townNumber - 1))
+            .with(Action.HUNT, (game, decision) -> game.hunt())
+            .with(Action.TROUBLE, (game, decision) -> game.lookForTrouble())
+            .with(Action.DIG, (game, decision) -> game.currentTown.digForGold())
+            .with(Action.QUIT, (game, decision) -> game.events.gameQuit());
+
     // instance variables
     private Town currentTown;
     private Hunter hunter;
@@ -22,11 +49,49 @@ public class TreasureHunter {
     private boolean easyMode;
     private boolean normalMode;
     private boolean currentMode;
+    private OutputSink window;
+    private InputSource input;
+    private long seed;
+    private GameRandom rng; // every random decision in a game comes from this one stream (see WorldMap)
+    private TerrainTable terrainTable;
+    private WorldMap world;
+    private long townNumber; // where currentTown is on the road
+    private int turns; // menu choices carried out so far
+    private GameTuning tuning = GameTuning.STANDARD;
+    private final GameEventBus events = new GameEventBus();
+    private Screen menu; // built the first time the menu is drawn, so simulated games never make one
+    private GameView view; // made the first time a Policy asks for it
+    private CommandTable commands = COMMANDS;
+    private String choicesText = CHOICES_TEXT; // the game's own choices and any added with addCommand()
+    // only set when GameMetrics are on; they are the same objects as window and input
+    private MeteredOutput meteredWindow;
+    private MeteredInput meteredInput;
 
     /**
-     * Constructs the Treasure Hunter game.
+     * Constructs the Treasure Hunter game.<p>
+     * Two games with the same seed and the same input play out exactly the same way. The game never
+     * reads System.in itself: whoever starts it (see TreasureHunterRunner) wraps standard input once.
+     *
+     * @param window Where the game's text goes.
+     * @param input Where the player's answers come from.
+     * @param seed The seed for all of the game's random decisions.
      */
-    public TreasureHunter() {
+    public TreasureHunter(OutputSink window, InputSource input, long seed) {
+        boolean watched = window != NullOutput.INSTANCE;
+        if (GameMetrics.ENABLED) {
+            meteredWindow = new MeteredOutput(window);
+            meteredInput = new MeteredInput(input);
+            window = meteredWindow;
+            input = meteredInput;
+        }
+        this.window = window;
+        this.input = input;
+        this.seed = seed;
+        rng = new GameRandom(seed);
+        if (watched) {
+            // nobody reads a NullOutput, so don't build the text at all
+            events.subscribe(new TextRenderer(this, window));
+        }
         // these will be initialized in the play method
         currentTown = null;
         hunter = null;
@@ -37,35 +102,184 @@ public class TreasureHunter {
         currentMode = false;
     }
 
+    public long getSeed() {
+        return seed;
+    }
+
+    public Hunter getHunter() {
+        return hunter;
+    }
+
+    public Town getCurrentTown() {
+        return currentTown;
+    }
+
+    public TerrainTable getTerrainTable() {
+        return terrainTable;
+    }
+
+    public WorldMap getWorld() {
+        return world;
+    }
+
+    /**
+     * @return How many menu choices the player has made so far.
+     */
+    public int getTurns() {
+        return turns;
+    }
+
+    // for JournalReplay, which rebuilds a game without making its choices
+    void setTurns(int turns) {
+        this.turns = turns;
+    }
+
+    /**
+     * @return What a Policy sees of this game; the same view every time, and it follows the game as it goes.
+     */
+    public GameView getView() {
+        if (view == null) {
+            view = new GameView(this);
+        }
+        return view;
+    }
+
+    /**
+     * @return Where the current town is on the road (see WorldMap).
+     */
+    public long getTownNumber() {
+        return townNumber;
+    }
+
+    /**
+     * @return "easy", "normal", "hard" or "samurai", the names used in the game's data files.
+     */
+    public String getModeName() {
+        if (samuraiMode) {
+            return "samurai";
+        } else if (hardMode) {
+            return "hard";
+        } else if (easyMode) {
+            return "easy";
+        }
+        return "normal";
+    }
+
+    /**
+     * Tells a listener (such as a JournalWriter) about everything that happens in this game from now on,
+     * alongside the game's own TextRenderer.
+     *
+     * @param listener The listener.
+     */
+    public void subscribe(GameEventListener listener) {
+        events.subscribe(listener);
+    }
+
+    GameEventListener getEvents() {
+        return events;
+    }
+
+    /**
+     * Plays this game with different numbers from its mode's (see GameTuning). Call it before the game starts.
+     *
+     * @param tuning The numbers to use.
+     */
+    public void setTuning(GameTuning tuning) {
+        this.tuning = tuning;
+    }
+
+    /**
+     * Puts a new choice on this game's menu.
+     *
+     * @param letter The letter to type for it, from a to z; the game's own choices already use b, d, e, g, h, l, m, s and x.
+     * @param menuLine The line to show on the menu, for example "(P)ray at the shrine."
+     * @param command What to do when it's chosen.
+     * @throws IllegalArgumentException if the letter isn't from a to z or is already taken.
+     */
+    public void addCommand(char letter, String menuLine, Command command) {
+        commands = commands.with(letter, command);
+        choicesText = choicesText + "\n" + menuLine;
+        if (menu != null) {
+            menu.setText(CHOICES, choicesText + CHOICES_END);
+        }
+    }
+
     public boolean getIsSamuraiMode() {
         return samuraiMode;
     }
 
+    /**
+     * @return true if the hunter has found the treasure or lost, or the game hasn't got as far as the first town.
+     */
+    public boolean isOver() {
+        return hunter == null || currentTown == null || hunter.getIsFoundTreasure() || currentTown.getHasLost();
+    }
+
+    /**
+     * Lets go of the file the game's world map spilled to, if it has one. Call it once the game is done with.
+     *
+     * @throws IOException if the file can't be closed.
+     */
+    public void close() throws IOException {
+        if (world != null) {
+            world.close();
+        }
+    }
+
     /**
      * Starts the game; this is the only public method
      */
     public void play() {
         welcomePlayer();
-        enterTown();
+        resume();
+    }
+
+    /**
+     * Carries on a game that has already started, for example one loaded from a snapshot.
+     */
+    public void resume() {
         showMenu();
+        window.flush(); // show the goodbye message, nothing will ask for input after this
     }
 
     /**
      * Creates a hunter object at the beginning of the game and populates the class member variable with it.
      */
     private void welcomePlayer() {
-        window.addTextToWindow("Welcome to TREASURE HUNTER!", Color.black);
-        window.addTextToWindow("\nGoing hunting for the big treasure, eh?", Color.cyan);
-        window.addTextToWindow("\nWhat's your name, Hunter?: ", Color.cyan);
-        String name = SCANNER.nextLine().toLowerCase();
+        window.addTextToWindow("Welcome to TREASURE HUNTER!", TextColor.BLACK);
+        window.addTextToWindow("\nGoing hunting for the big treasure, eh?", TextColor.CYAN);
+        window.addTextToWindow("\nWhat's your name, Hunter?: ", TextColor.CYAN);
+        String name = readLine().toLowerCase();
         Player player = new Player(name, window); // pass window to Player as parameter
 
         // set hunter instance variable
-        hunter = new Hunter(name, 20, window);
+        hunter = new Hunter(name, 20);
 
-        window.addTextToWindow("\nEasy Mode(e), Normal Mode(n), or Hard Mode(h): ", Color.cyan);
-        String hard = SCANNER.nextLine().toLowerCase();
+        window.addTextToWindow("\nEasy Mode(e), Normal Mode(n), or Hard Mode(h): ", TextColor.CYAN);
+        String hard = readLine().toLowerCase();
         window.clear();
+        startGame(name, hard);
+    }
+
+    /**
+     * Sets the difficulty and creates the hunter, then puts the hunter in the first town.
+     *
+     * @param name The hunter's name.
+     * @param hard The mode the player picked: "e", "n", "h", "s" (samurai) or "test".
+     */
+    void startGame(String name, String hard) {
+        setUp(name, hard);
+        events.gameStarted(name, hard, seed);
+        enterTown();
+    }
+
+    /**
+     * Sets the difficulty and creates the hunter, but doesn't make a town yet.
+     *
+     * @param name The hunter's name.
+     * @param hard The mode the player picked.
+     */
+    void setUp(String name, String hard) {
         if (hard.equals("h")) {
             hardMode = true;
             currentMode = hardMode;
@@ -77,49 +291,143 @@ public class TreasureHunter {
             currentMode = normalMode;
         }
         if (hard.equalsIgnoreCase("test")) {
-            hunter = new Hunter(name, 100, window);
+            hunter = new Hunter(name, 100);
         } else if (easyMode) {
-            hunter = new Hunter(name, 40, window);
+            hunter = new Hunter(name, 40);
         } else if (hard.equalsIgnoreCase("s")){
             samuraiMode = true;
-            hunter = new Hunter(name, 20, samuraiMode, window);
+            hunter = new Hunter(name, 20, samuraiMode);
         } else {
-            hunter = new Hunter(name, 20, window);
+            hunter = new Hunter(name, 20);
         }
+        if (tuning.getStartingGold() >= 0) {
+            hunter.setStartingGold(tuning.getStartingGold());
+        }
+        hunter.setEventListener(events);
+        terrainTable = TerrainTable.forMode(getModeName());
+        world = new WorldMap(rng, terrainTable);
     }
 
     /**
-     * Creates a new town and adds the Hunter to it.
+     * Moves the Hunter on to the next town down the road, or into the first town if the game is just starting.
      */
-    private void enterTown() {
-        double markdown = 0.5;
-        double toughness = 0.4;
-        if (hardMode) {
-            // in hard mode, you get less money back when you sell items
-            markdown = 0.25;
-
-            // and the town is "tougher"
-            toughness = 0.75;
-        } else if (easyMode) {
-            markdown = 1;
-            toughness = 0.1;
-        }
-
-        // note that we don't need to access the Shop object
-        // outside of this method, so it isn't necessary to store it as an instance
-        // variable; we can leave it as a local variable
-        Shop shop = new Shop(markdown, this, hunter, window);
+    void enterTown() {
+        enterTown(currentTown == null ? 0 : townNumber + 1);
+    }
 
+    /**
+     * Puts the Hunter in a town on the road: just as they left it if they've been there before,
+     * or as the world's seed makes it if they haven't.<p>
+     * A game is only ever in one town, so after the first one the same Town object is reset and reused,
+     * and the town being left is kept in the world map.
+     *
+     * @param number The town's number (see WorldMap).
+     */
+    void enterTown(long number) {
         // creating the new Town -- which we need to store as an instance
         // variable in this class, since we need to access the Town
         // object in other methods of this class
-        currentTown = new Town(shop, toughness, this, window);
+        // each town gets its own stream split off the game's, so a town's luck
+        // doesn't depend on how many random numbers the last town used
+        if (currentTown == null) {
+            GameRandom townRandom = new GameRandom(0);
+            world.seed(number, townRandom);
+            currentTown = new Town(Shop.forMode(getModeName(), tuning), getToughness(), this, townRandom);
+        } else {
+            world.leave(townNumber, currentTown, hunter.getIsSearched());
+            if (!world.restore(number, currentTown, hunter)) {
+                currentTown.reset(getToughness(), world, number);
+                hunter.setIsSearched(false);
+            }
+        }
+        townNumber = number;
 
         // calling the hunterArrives method, which takes the Hunter
         // as a parameter; note this also could have been done in the
         // constructor for Town, but this illustrates another way to associate
         // an object with an object of a different class
         currentTown.hunterArrives(hunter);
+        events.townEntered(number, currentTown.getTerrain().getTerrainName());
+    }
+
+    /**
+     * @return The chance that a new town is a tough one in this game's mode.
+     */
+    double getToughness() {
+        if (tuning.getToughness() >= 0) {
+            return tuning.getToughness();
+        }
+        if (hardMode) {
+            // the town is "tougher" in hard mode
+            return 0.75;
+        } else if (easyMode) {
+            return 0.1;
+        }
+        return 0.4;
+    }
+
+    /**
+     * Saves the whole game for a snapshot: the modes, the random number generator,
+     * the hunter, the current town, the towns left behind and the turns taken (see GameSnapshot for the file layout).
+     *
+     * @param out Where to write.
+     * @throws IOException if writing fails.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        int flags = 0;
+        if (samuraiMode) {
+            flags |= 1;
+        }
+        if (hardMode) {
+            flags |= 2;
+        }
+        if (easyMode) {
+            flags |= 4;
+        }
+        if (normalMode) {
+            flags |= 8;
+        }
+        if (currentMode) {
+            flags |= 16;
+        }
+        out.writeByte(flags);
+        out.writeLong(seed);
+        out.writeLong(rng.getSeed());
+        out.writeLong(rng.getGamma());
+        hunter.writeTo(out);
+        out.writeLong(townNumber);
+        currentTown.writeTo(out);
+        world.writeTo(out);
+        out.writeInt(turns);
+    }
+
+    /**
+     * Loads a game saved by writeTo(). Call resume() to carry on playing it.
+     *
+     * @param in Where to read.
+     * @param window Where the game's text goes from now on.
+     * @param input Where the player's answers come from from now on.
+     * @return The game.
+     * @throws IOException if reading fails.
+     */
+    public static TreasureHunter readFrom(DataInput in, OutputSink window, InputSource input) throws IOException {
+        int flags = in.readUnsignedByte();
+        TreasureHunter game = new TreasureHunter(window, input, in.readLong());
+        game.samuraiMode = (flags & 1) != 0;
+        game.hardMode = (flags & 2) != 0;
+        game.easyMode = (flags & 4) != 0;
+        game.normalMode = (flags & 8) != 0;
+        game.currentMode = (flags & 16) != 0;
+        game.rng = new GameRandom(in.readLong(), in.readLong());
+        game.terrainTable = TerrainTable.forMode(game.getModeName());
+        game.world = new WorldMap(game.rng, game.terrainTable);
+        game.hunter = Hunter.readFrom(in);
+        game.hunter.setEventListener(game.events);
+        game.townNumber = in.readLong();
+        game.currentTown = Town.readFrom(in, Shop.forMode(game.getModeName()), game, game.hunter);
+        game.world.readFrom(in);
+        game.turns = in.readInt();
+        return game;
     }
 
     /**
@@ -130,89 +438,157 @@ public class TreasureHunter {
     private void showMenu() {
         String choice = "";
         while (!choice.equals("x")) {
-            window.addTextToWindow(currentTown.getLatestNews(), Color.green);
-            window.addTextToWindow("\n***", Color.cyan);
-            window.addTextToWindow("\n" + hunter.infoString(), Color.blue);
-            window.addTextToWindow("\n" + hunter.infoTreasureList(), Color.magenta);
-            window.addTextToWindow("\n" + currentTown.infoString(), Color.green);
-            window.addTextToWindow("\n(B)uy something at the shop.", Color.black);
-            window.addTextToWindow("\n(S)ell something at the shop.", Color.black);
-            window.addTextToWindow("\n(E)xplore surrounding terrain.", Color.black);
-            window.addTextToWindow("\n(M)ove on to a different town.", Color.black);
-            window.addTextToWindow("\n(H)unt for treasure.", Color.black);
-            window.addTextToWindow("\n(L)ook for trouble!", Color.black);
-            window.addTextToWindow("\n(D)ig for gold.", Color.black);
-            window.addTextToWindow("\nGive up the hunt and e(X)it.", Color.black);
-            window.addTextToWindow("\nWhat's your next move?: ", Color.black);
-            choice = SCANNER.nextLine().toLowerCase();
+            drawMenu();
+            choice = readLine().toLowerCase();
             processChoice(choice);
             if (currentTown.getHasLost()) {
                 break;
             }
             if (hunter.getIsFoundTreasure()) {
-                window.addTextToWindow("\nCongratulations, you have found the last of the three treasures, you win!", Color.green);
+                events.gameWon();
                 break;
             }
-            window.clear();
+            // no clear() here: the next menu replaces whatever is on the screen
         }
     }
 
     /**
-     * Takes the choice received from the menu and calls the appropriate method to carry out the instructions.
+     * Shows the latest news, the hunter's status and the menu of choices.
+     */
+    void drawMenu() {
+        // the rule and the choices never change and the rest only change when something happens,
+        // so a sink that keeps the last screen has little or nothing to redraw
+        if (menu == null) {
+            menu = new Screen(TextColor.GREEN, TextColor.CYAN, TextColor.BLUE, TextColor.MAGENTA, TextColor.GREEN, TextColor.BLACK);
+            menu.setText(RULE, "***");
+            menu.setText(CHOICES, choicesText + CHOICES_END);
+        }
+        menu.setText(NEWS, currentTown.getLatestNews());
+        menu.setText(STATUS, hunter.infoString());
+        menu.setText(TREASURES, hunter.infoTreasureList());
+        menu.setText(TOWN, currentTown.infoString());
+        window.showScreen(menu);
+    }
+
+    /**
+     * Takes the choice received from the menu and carries it out with the game's Command for its letter
+     * (see CommandTable); anything else is an invalid choice.
      * @param choice The action to process.
      */
-    private void processChoice(String choice) {
-        if (choice.equals("b") || choice.equals("s")) {
+    void processChoice(String choice) {
+        processChoice(choice, null);
+    }
+
+    /**
+     * Carries out a Policy's decision, shop visit and all, exactly as if its answers had been typed,
+     * but without reading any input or parsing any text.
+     *
+     * @param decision The decision.
+     */
+    public void processChoice(Decision decision) {
+        processChoice(decision.getAction().getChoice(), decision);
+    }
+
+    private void processChoice(String choice, Decision decision) {
+        Command command = commands.get(choice);
+        if (!GameMetrics.ENABLED) {
+            carryOut(command, choice, decision);
+            return;
+        }
+        long start = System.nanoTime();
+        long renderBefore = meteredWindow.getNanos();
+        long waitBefore = meteredInput.getNanos();
+        carryOut(command, choice, decision);
+        long total = System.nanoTime() - start;
+        long render = meteredWindow.getNanos() - renderBefore;
+        long wait = meteredInput.getNanos() - waitBefore;
+        GameMetrics.recordTurn(choice, total - render - wait, render);
+    }
+
+    // decision is null for a choice that was typed
+    private void carryOut(Command command, String choice, Decision decision) {
+        turns++;
+        command.carryOut(this, decision);
+        events.turnEnded(choice, currentTown.getRandomSeed());
+    }
+
+    private void visitShop(String buyOrSell, Decision decision) {
+        window.clear();
+        if (decision == null) {
+            currentTown.enterShop(buyOrSell);
+        } else {
+            currentTown.enterShop(decision);
+        }
+        window.addTextToWindow("\nPress enter to continue", TextColor.BLACK);
+        pause();
+        window.clear();
+    }
+
+    /**
+     * Leaves for a town along the road, if the hunter can cross the terrain.
+     *
+     * @param number The town to go to.
+     */
+    private void travel(long number) {
+        if (currentTown.leaveTown()) {
+            enterTown(number);
+            window.addTextToWindow("\nPress enter to continue", TextColor.BLACK);
+            pause();
             window.clear();
-            currentTown.enterShop(choice);
-            window.addTextToWindow("\nPress enter to continue", Color.black);
-            SCANNER.nextLine();
+        }
+    }
+
+    private void hunt() {
+        currentTown.huntForTreausre();
+        if (!hunter.getIsFoundTreasure()) {
+            window.addTextToWindow("\nPress enter to continue", TextColor.BLACK);
+            pause();
             window.clear();
-        } else if (choice.equals("e")) {
-            window.addTextToWindow("\n"+ currentTown.getTerrain().infoString(), Color.green);
-//            window.addTextToWindow("\nPress enter to continue", Color.black);
-//            SCANNER.nextLine();
-//            window.clear();
-        } else if (choice.equals("m")) {
-            if (currentTown.leaveTown()) {
-                // This town is going away so print its news ahead of time.
-                window.addTextToWindow("\n"+ currentTown.getLatestNews(), Color.green);
-                enterTown();
-                window.addTextToWindow("\nPress enter to continue", Color.black);
-                SCANNER.nextLine();
-                window.clear();
-                hunter.setIsSearched(false);
-            }
-        } else if (choice.equals("h")) {
-            currentTown.huntForTreausre();
-            if (!hunter.getIsFoundTreasure()) {
-                window.addTextToWindow("\nPress enter to continue", Color.black);
-                SCANNER.nextLine();
-                window.clear();
-            }
-        } else if (choice.equals("l")) {
-            currentTown.lookForTrouble();
-            if (!hunter.isGoldNegative()) {
-                window.addTextToWindow("\nPress enter to continue", Color.black);
-                SCANNER.nextLine();
-                window.clear();
-            }
-            System.out.println("made back to treasurehunt");
-        } else if (choice.equals("x")) {
-            window.addTextToWindow("\nFare thee well, " + hunter.getHunterName() + "!", Color.red);
-        } else if (choice.equals("d")) {
-            currentTown.digForGold();
-//            window.addTextToWindow("\nPress enter to continue", Color.black);
-//            SCANNER.nextLine();
-//            window.clear();
-        } else {
-            window.addTextToWindow("\nYikes! That's an invalid option! Try again.", Color.red);
-            window.addTextToWindow("\nPress enter to continue", Color.black);
-            SCANNER.nextLine();
+        }
+    }
+
+    private void lookForTrouble() {
+        currentTown.lookForTrouble();
+        if (!hunter.isGoldNegative()) {
+            window.addTextToWindow("\nPress enter to continue", TextColor.BLACK);
+            pause();
             window.clear();
         }
     }
 
+    private void invalidChoice() {
+        events.invalidChoice();
+        window.addTextToWindow("\nPress enter to continue", TextColor.BLACK);
+        pause();
+        window.clear();
+    }
+
+    /**
+     * Shows everything waiting in the output and then waits for the player's next line.
+     * Once the input has run out the answer is always "x", which ends the game.
+     *
+     * @return The line the player typed.
+     */
+    String readLine() {
+        window.flush();
+        String line = input.nextLine();
+        if (line == null) {
+            return "x";
+        }
+        return line;
+    }
+
+    /**
+     * Shows everything waiting in the output and waits for the player to press enter.
+     * Scripted input skips the pause, and then there is nothing to show yet either.
+     */
+    private void pause() {
+        if (!input.skipsPauses()) {
+            window.flush();
+            input.nextLine();
+        }
+    }
+
     public boolean getCurrentMode() {
         return currentMode;
     }
@@ -1,6 +1,171 @@
+import java.awt.GraphicsEnvironment;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.SplittableRandom;
+
 public class TreasureHunterRunner {
-    public static void main(String[] args) {
-        TreasureHunter game = new TreasureHunter();
-        game.play();
+    private static final String DEFAULT_SAVE_FILE = "treasure-hunter.sav";
+
+    /**
+     * Starts a game.<p>
+     * Options: --headless to play in the terminal, --seed N to replay a game exactly,
+     * --script FILE to play the moves in a file ("-" reads them from standard input) without
+     * stopping at the "Press enter to continue" pauses, --journal FILE to journal the game's events
+     * (under its seed, see JournalReader), --leaderboard FILE to record how the game ended (see Leaderboard),
+     * --trace FILE to add the session to a trace file for TraceReplay, --resume FILE to carry on a game saved
+     * in a file, --save FILE to say where the game is saved when its window is closed (the file it was
+     * resumed from, or treasure-hunter.sav).<p>
+     * A headless game never loads AWT or Swing. For scripts that start many games, mvn package also
+     * builds a class-data sharing archive next to the jar; pass it with -XX:SharedArchiveFile
+     * (StartupBenchmark shows what it saves).
+     *
+     * @param args The command line options.
+     * @throws IOException if the game to resume can't be read, or the journal can't be opened or written.
+     */
+    public static void main(String[] args) throws IOException {
+        boolean headless = false;
+        Long seed = null;
+        String script = null;
+        String journalFile = null;
+        String leaderboardFile = null;
+        String traceFile = null;
+        String resumeFile = null;
+        String saveFile = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--headless")) {
+                headless = true;
+            } else if (args[i].equals("--seed") && i + 1 < args.length) {
+                seed = Long.parseLong(args[++i]);
+            } else if (args[i].equals("--script") && i + 1 < args.length) {
+                script = args[++i];
+            } else if (args[i].equals("--journal") && i + 1 < args.length) {
+                journalFile = args[++i];
+            } else if (args[i].equals("--leaderboard") && i + 1 < args.length) {
+                leaderboardFile = args[++i];
+            } else if (args[i].equals("--trace") && i + 1 < args.length) {
+                traceFile = args[++i];
+            } else if (args[i].equals("--resume") && i + 1 < args.length) {
+                resumeFile = args[++i];
+            } else if (args[i].equals("--save") && i + 1 < args.length) {
+                saveFile = args[++i];
+            }
+        }
+        if (saveFile == null) {
+            saveFile = resumeFile != null ? resumeFile : DEFAULT_SAVE_FILE;
+        }
+
+        CommandQueue input;
+        if (script == null) {
+            input = CommandQueue.reading(System.in, false);
+        } else if (script.equals("-")) {
+            input = CommandQueue.reading(System.in, true);
+        } else {
+            input = CommandQueue.fromScript(Path.of(script));
+        }
+
+        OutputSink window;
+        OutputWindow outputWindow = null;
+        if (headless || GraphicsEnvironment.isHeadless()) {
+            window = new ConsoleOutput(); // no display, so print to the terminal instead
+        } else {
+            outputWindow = openWindow(input, script == null);
+            window = outputWindow;
+        }
+        TreasureHunter game;
+        TraceRecorder recorder = null;
+        if (resumeFile != null) {
+            // a resumed game didn't start from its seed, so it can't be traced
+            game = GameSnapshot.load(Files.readAllBytes(Path.of(resumeFile)), window, input);
+            seed = game.getSeed();
+        } else {
+            if (seed == null) {
+                seed = new SplittableRandom().nextLong();
+            }
+            recorder = traceFile == null ? null : new TraceRecorder(input);
+            game = new TreasureHunter(window, recorder == null ? input : recorder, seed);
+        }
+        if (journalFile == null) {
+            playOrResume(game, resumeFile != null);
+        } else {
+            try (JournalWriter journal = JournalWriter.open(Path.of(journalFile))) {
+                game.subscribe(journal.session(seed));
+                playOrResume(game, resumeFile != null);
+            }
+        }
+        boolean saved = false;
+        if (game.isOver()) {
+            if (resumeFile != null) {
+                Files.deleteIfExists(Path.of(resumeFile)); // nothing left to resume
+            }
+        } else if (input.isClosed()) {
+            saveGame(game, Path.of(saveFile));
+            saved = true; // not finished, so it isn't ranked yet
+        }
+        if (recorder != null) {
+            try (TraceWriter traces = TraceWriter.open(Path.of(traceFile))) {
+                traces.add(recorder.finish(game));
+            }
+        }
+        if (leaderboardFile != null && !saved && game.getHunter() != null) {
+            try (Leaderboard leaderboard = Leaderboard.open(Path.of(leaderboardFile))) {
+                RunResult result = leaderboard.submit(RunResult.of(game));
+                int rank = leaderboard.rankOf(result);
+                if (rank > 0) {
+                    window.addTextToWindow("\nYou're number " + rank + " on the " + result.getMode() + " leaderboard!", TextColor.MAGENTA);
+                    window.flush();
+                }
+            }
+        }
+        game.close();
+        if (outputWindow != null) {
+            outputWindow.exitOnClose();
+        }
     }
-}
\ No newline at end of file
+
+    private static void playOrResume(TreasureHunter game, boolean resumed) {
+        if (resumed) {
+            game.resume();
+        } else {
+            game.play();
+        }
+    }
+
+    /**
+     * Saves an unfinished game to a file, for --resume. The snapshot is written next to the file and moved
+     * over it, so an old save is never left half overwritten.
+     *
+     * @param game The game, which has stopped.
+     * @param file Where to save it.
+     */
+    private static void saveGame(TreasureHunter game, Path file) {
+        try {
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.write(temp, GameSnapshot.save(game));
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            System.out.println("Saved the game to " + file + "; play it again with --resume " + file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not save the game to " + file, e);
+        }
+    }
+
+    /**
+     * Opens the Swing window. AWT and Swing are only loaded once this runs, so a headless game
+     * (which never calls it) starts without them.
+     *
+     * @param input Where the game reads its moves from.
+     * @param typing Whether the player can type moves into the window.
+     * @return The window.
+     */
+    private static OutputWindow openWindow(CommandQueue input, boolean typing) {
+        OutputWindow outputWindow = new OutputWindow();
+        if (typing) {
+            outputWindow.sendKeysTo(input); // the player can type in the window or the terminal
+        }
+        // closing the window ends the input, so the game finishes its turn on its own thread and is saved
+        outputWindow.onClose(input::close);
+        return outputWindow;
+    }
+}
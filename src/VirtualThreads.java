@@ -0,0 +1,30 @@
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Makes an executor that runs every task on its own virtual thread when the JVM has them (Java 21+),
+ * and on a cached pool of ordinary threads when it doesn't. The game is compiled for Java 17, so the
+ * Java 21 method is looked up by name.
+ */
+
+public class VirtualThreads {
+    private VirtualThreads() {
+    }
+
+    public static ExecutorService newExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    public static boolean available() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,299 @@
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The road a game's towns are on, and what the hunter left behind in each town they visited.<p>
+ * Towns are numbered along the road, which runs on forever both ways from town 0, where the game starts.
+ * Nothing is stored for a town until the hunter leaves it: town n is made from its own random numbers,
+ * split off the game's as if the game had split n times (see GameRandom.split(long, GameRandom)), so any
+ * town can be made at any time and a hunter who only ever moves on sees exactly the towns they always did.
+ * Every road out of a town crosses the terrain around it.<p>
+ * A town the hunter has left is kept as a small record: its terrain, whether it's tough, whether it has been
+ * dug and searched, where its random numbers got to, and what the sword has got out of its shop. The most
+ * recently visited towns' records stay in memory; older ones go to a file that is only made once there are
+ * more than that, so a game that visits millions of towns still runs in the same memory.<p>
+ * Spill file layout: a RECORD_BYTES slot per town, in the order 0, -1, 1, -2, 2 ..., each a byte of flags,
+ * byte terrain (its index in the mode's TerrainTable), long, long random state and int sword purchases.
+ * Slots for towns that were never spilled read as zeros. close() closes and deletes the spill file.
+ */
+
+public class WorldMap implements Closeable {
+    static final int RECORD_BYTES = 1 + 1 + 8 + 8 + 4;
+    static final int DEFAULT_CAPACITY = 1024;
+
+    // the flags byte of a record
+    private static final int VISITED = 1;
+    private static final int TOUGH = 2;
+    private static final int DUG = 4;
+    private static final int SEARCHED = 8;
+
+    private final GameRandom origin;
+    private final TerrainTable terrainTable;
+    private final LinkedHashMap<Long, Visit> recent;
+    private final ByteBuffer slot = ByteBuffer.allocate(RECORD_BYTES); // one record, being packed or unpacked
+    // every town the hunter has left is between these, so towns outside them need no looking up
+    private long lowest = Long.MAX_VALUE;
+    private long highest = Long.MIN_VALUE;
+    private FileChannel spill; // made when the first record is spilled
+    private long spilled;
+
+    /**
+     * @param origin The game's random numbers as they were when the game started; they aren't changed.
+     * @param terrainTable The terrains of the game's mode.
+     */
+    public WorldMap(GameRandom origin, TerrainTable terrainTable) {
+        this(origin, terrainTable, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param origin The game's random numbers as they were when the game started; they aren't changed.
+     * @param terrainTable The terrains of the game's mode.
+     * @param capacity How many towns' records to keep in memory before the least recently visited are spilled.
+     */
+    public WorldMap(GameRandom origin, TerrainTable terrainTable, int capacity) {
+        this.origin = origin;
+        this.terrainTable = terrainTable;
+        recent = new LinkedHashMap<>(16, 0.75f, true) {
+            protected boolean removeEldestEntry(Map.Entry<Long, Visit> eldest) {
+                if (size() <= capacity) {
+                    return false;
+                }
+                writeSlot(eldest.getKey(), eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Re-seeds a town's generator with the random numbers town number starts out with.
+     *
+     * @param number The town's number.
+     * @param into The generator to re-seed.
+     */
+    public void seed(long number, GameRandom into) {
+        origin.split(number, into);
+    }
+
+    /**
+     * @return How many records have been spilled to disk (a town spilled twice counts twice).
+     */
+    public long getSpilled() {
+        return spilled;
+    }
+
+    /**
+     * Remembers a town the hunter is leaving.
+     *
+     * @param number The town's number.
+     * @param town The town.
+     * @param searched Whether the hunter searched it for treasure.
+     */
+    public void leave(long number, Town town, boolean searched) {
+        int flags = VISITED;
+        if (town.getToughTown()) {
+            flags |= TOUGH;
+        }
+        if (town.getDug()) {
+            flags |= DUG;
+        }
+        if (searched) {
+            flags |= SEARCHED;
+        }
+        Visit visit = new Visit(flags, terrainTable.indexOf(town.getTerrain()), town.getRandomSeed(),
+                town.getRandomGamma(), town.getSwordPurchases());
+        remember(number, visit);
+    }
+
+    /**
+     * Puts a town back the way the hunter left it, if they have been there before.
+     *
+     * @param number The town's number.
+     * @param town The game's Town object, which is changed into that town.
+     * @param hunter The hunter, who is told whether they searched the town.
+     * @return false if the hunter has never left that town, and nothing was changed.
+     */
+    public boolean restore(long number, Town town, Hunter hunter) {
+        if (number < lowest || number > highest) {
+            return false; // further along the road than the hunter has been, the usual case
+        }
+        Visit visit = recent.get(number);
+        if (visit == null) {
+            visit = readSlot(number);
+            if (visit == null) {
+                return false;
+            }
+            recent.put(number, visit);
+        }
+        town.restore(terrainTable.get(visit.terrain), (visit.flags & TOUGH) != 0, (visit.flags & DUG) != 0,
+                visit.seed, visit.gamma, visit.swordPurchases);
+        hunter.setIsSearched((visit.flags & SEARCHED) != 0);
+        return true;
+    }
+
+    /**
+     * Saves every town record for a snapshot: each one is a true, the town's number and the record
+     * (laid out as in the spill file), and a false comes after the last.
+     *
+     * @param out Where to write.
+     * @throws IOException if writing fails.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        if (spill != null) {
+            // a record in memory is newer than its slot, so only write the slots that aren't
+            ByteBuffer block = ByteBuffer.allocate(RECORD_BYTES * 1024);
+            long size = spill.size();
+            for (long position = 0; position < size; position += block.capacity()) {
+                block.clear();
+                readFully(block, position);
+                for (int offset = 0; offset + RECORD_BYTES <= block.position(); offset += RECORD_BYTES) {
+                    long number = townAt((position + offset) / RECORD_BYTES);
+                    if ((block.get(offset) & VISITED) != 0 && !recent.containsKey(number)) {
+                        out.writeBoolean(true);
+                        out.writeLong(number);
+                        out.write(block.array(), offset, RECORD_BYTES);
+                    }
+                }
+            }
+        }
+        for (Map.Entry<Long, Visit> entry : recent.entrySet()) {
+            out.writeBoolean(true);
+            out.writeLong(entry.getKey());
+            out.write(pack(entry.getValue()).array());
+        }
+        out.writeBoolean(false);
+    }
+
+    /**
+     * Loads the town records saved by writeTo().
+     *
+     * @param in Where to read.
+     * @throws IOException if reading fails or a record has a terrain this mode doesn't have.
+     */
+    public void readFrom(DataInput in) throws IOException {
+        while (in.readBoolean()) {
+            long number = in.readLong();
+            slot.clear();
+            in.readFully(slot.array());
+            Visit visit = unpack(slot);
+            if (visit.terrain < 0 || visit.terrain >= terrainTable.size()) {
+                throw new IOException("Town " + number + " has an unknown terrain");
+            }
+            remember(number, visit);
+        }
+    }
+
+    /**
+     * Closes and deletes the spill file, if there is one. The map can't be used after this.
+     *
+     * @throws IOException if the file can't be closed.
+     */
+    public void close() throws IOException {
+        if (spill != null) {
+            spill.close();
+        }
+    }
+
+    private void remember(long number, Visit visit) {
+        lowest = Math.min(lowest, number);
+        highest = Math.max(highest, number);
+        recent.put(number, visit);
+    }
+
+    // town numbers go 0, -1, 1, -2, 2 ... along the file, so the slots used stay together around the start
+    private static long slotOf(long number) {
+        return number >= 0 ? 2 * number : -2 * number - 1;
+    }
+
+    private static long townAt(long slot) {
+        return (slot & 1) == 0 ? slot / 2 : -(slot + 1) / 2;
+    }
+
+    private ByteBuffer pack(Visit visit) {
+        slot.clear();
+        slot.put((byte) visit.flags);
+        slot.put((byte) visit.terrain);
+        slot.putLong(visit.seed);
+        slot.putLong(visit.gamma);
+        slot.putInt(visit.swordPurchases);
+        return slot.flip();
+    }
+
+    private static Visit unpack(ByteBuffer record) {
+        return new Visit(record.get(0), record.get(1), record.getLong(2), record.getLong(10), record.getInt(18));
+    }
+
+    private void writeSlot(long number, Visit visit) {
+        try {
+            if (spill == null) {
+                // deleted once it's closed (see close()), so nothing is left behind
+                Path file = Files.createTempFile("treasure-hunter-world", ".bin");
+                spill = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                        StandardOpenOption.DELETE_ON_CLOSE);
+            }
+            ByteBuffer bytes = pack(visit);
+            long position = slotOf(number) * RECORD_BYTES;
+            while (bytes.hasRemaining()) {
+                position += spill.write(bytes, position);
+            }
+            spilled++;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not spill the world map to disk", e);
+        }
+    }
+
+    private Visit readSlot(long number) {
+        long position = slotOf(number) * RECORD_BYTES;
+        try {
+            if (spill == null || position + RECORD_BYTES > spill.size()) {
+                return null;
+            }
+            slot.clear();
+            readFully(slot, position);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read the world map back from disk", e);
+        }
+        if ((slot.get(0) & VISITED) == 0) {
+            return null;
+        }
+        return unpack(slot);
+    }
+
+    // fills the buffer, or as much of it as the file has
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = spill.read(buffer, position + buffer.position());
+            if (read < 0) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * What the hunter left behind in one town.
+     */
+    private static final class Visit {
+        final int flags;
+        final int terrain;
+        final long seed;
+        final long gamma;
+        final int swordPurchases;
+
+        Visit(int flags, int terrain, long seed, long gamma, int swordPurchases) {
+            this.flags = flags;
+            this.terrain = terrain;
+            this.seed = seed;
+            this.gamma = gamma;
+            this.swordPurchases = swordPurchases;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that jumping along the splits with split(count, into) lands where splitting one at a time does.
+ */
+
+public class GameRandomTest {
+    private static final int AHEAD = 8; // how many real splits the jumping generator has made
+
+    @Test
+    public void splitCountMatchesSplittingThatManyTimes() {
+        for (long seed : new long[] {0, 1, -7, 0x5eed5eed5eedL, Long.MIN_VALUE}) {
+            // splits[i] is what the i-th real split() of a fresh generator makes
+            GameRandom walker = new GameRandom(seed);
+            GameRandom[] splits = new GameRandom[2 * AHEAD + 1];
+            for (int i = 0; i < splits.length; i++) {
+                splits[i] = walker.split();
+            }
+
+            // a generator AHEAD splits in can jump forwards and back to any of them
+            GameRandom jumper = new GameRandom(seed);
+            for (int i = 0; i < AHEAD; i++) {
+                jumper.split();
+            }
+            long jumperSeed = jumper.getSeed();
+            GameRandom into = new GameRandom(0);
+            for (int count = -AHEAD; count <= AHEAD; count++) {
+                jumper.split(count, into);
+                GameRandom expected = splits[AHEAD + count];
+                assertEquals(expected.getSeed(), into.getSeed(), "seed " + seed + ", count " + count);
+                assertEquals(expected.getGamma(), into.getGamma(), "seed " + seed + ", count " + count);
+            }
+            assertEquals(jumperSeed, jumper.getSeed(), "split(count, into) moved the generator it jumped from");
+        }
+    }
+
+    @Test
+    public void splitIntoMatchesSplit() {
+        GameRandom made = new GameRandom(42);
+        GameRandom reseeded = new GameRandom(42);
+        GameRandom into = new GameRandom(0);
+        for (int i = 0; i < 100; i++) {
+            GameRandom expected = made.split();
+            reseeded.split(into);
+            assertEquals(expected.getSeed(), into.getSeed());
+            assertEquals(expected.getGamma(), into.getGamma());
+            assertEquals(expected.nextLong(), into.nextLong());
+        }
+    }
+
+    @Test
+    public void largeJumpsMatchTheTownsAGameWouldMake() {
+        // the world map jumps straight to town n, however far along the road it is
+        GameRandom walker = new GameRandom(3);
+        GameRandom expected = null;
+        for (int i = 0; i <= 5000; i++) {
+            expected = walker.split();
+        }
+        GameRandom into = new GameRandom(0);
+        new GameRandom(3).split(5000, into);
+        assertEquals(expected.getSeed(), into.getSeed());
+        assertEquals(expected.getGamma(), into.getGamma());
+    }
+}
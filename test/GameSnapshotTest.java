@@ -0,0 +1,52 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that a game loaded from a snapshot is the game that was saved, and carries on exactly as it would have.
+ */
+
+public class GameSnapshotTest {
+    private static final int HALF = TestGames.TURNS.length / 2; // after the shopping, which needs the saved game's input
+
+    @Test
+    public void loadedGameCarriesOnLikeTheSavedOne() throws IOException {
+        for (String mode : new String[] {"e", "n", "h", "s"}) {
+            for (long seed = 1; seed <= 20; seed++) {
+                TreasureHunter saved = new TreasureHunter(NullOutput.INSTANCE, TestGames.typing(TestGames.SHOPPING), seed);
+                saved.startGame("tess", mode);
+                TestGames.takeTurns(saved, Arrays.copyOf(TestGames.TURNS, HALF));
+                byte[] snapshot = GameSnapshot.save(saved);
+
+                TreasureHunter loaded = GameSnapshot.load(snapshot, NullOutput.INSTANCE, TestGames.typing());
+                assertArrayEquals(snapshot, GameSnapshot.save(loaded), "mode " + mode + ", seed " + seed);
+
+                String[] rest = Arrays.copyOfRange(TestGames.TURNS, HALF, TestGames.TURNS.length);
+                TestGames.takeTurns(saved, rest);
+                TestGames.takeTurns(loaded, rest);
+                assertEquals(Trace.Ending.of(saved), Trace.Ending.of(loaded), "mode " + mode + ", seed " + seed);
+                assertArrayEquals(GameSnapshot.save(saved), GameSnapshot.save(loaded), "mode " + mode + ", seed " + seed);
+            }
+        }
+    }
+
+    @Test
+    public void rejectsOtherVersions() {
+        TreasureHunter game = new TreasureHunter(NullOutput.INSTANCE, TestGames.typing(), 5);
+        game.startGame("tess", "n");
+        byte[] snapshot = GameSnapshot.save(game);
+        snapshot[5]++; // the low byte of the version, after the magic number
+        assertThrows(IOException.class, () -> GameSnapshot.load(snapshot, NullOutput.INSTANCE, TestGames.typing()));
+    }
+
+    @Test
+    public void rejectsOtherFiles() {
+        byte[] notASnapshot = "not a saved game".getBytes();
+        assertThrows(IOException.class, () -> GameSnapshot.load(notASnapshot, NullOutput.INSTANCE, TestGames.typing()));
+    }
+}
@@ -0,0 +1,89 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HexFormat;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Checks that replaying a journal gets back the games that were journaled, including the towns left behind.
+ */
+
+public class JournalReplayTest {
+    @TempDir
+    Path folder;
+
+    @Test
+    public void recoversEachJournaledGame() throws IOException {
+        Path file = folder.resolve("games.journal");
+        String[] modes = {"e", "n", "h", "s"};
+        TreasureHunter[] games = new TreasureHunter[12];
+        try (JournalWriter journal = JournalWriter.open(file)) {
+            for (int session = 0; session < games.length; session++) {
+                games[session] = new TreasureHunter(NullOutput.INSTANCE, TestGames.typing(TestGames.SHOPPING), 100 + session);
+                games[session].subscribe(journal.session(session));
+                games[session].startGame("tess", modes[session % modes.length]);
+            }
+            // take the games' turns in step, so their records are mixed together in the file
+            for (String turn : TestGames.TURNS) {
+                for (TreasureHunter game : games) {
+                    TestGames.takeTurns(game, turn);
+                }
+            }
+            // while the journal is open, each game is read from between its first and last records
+            for (int session = 0; session < games.length; session++) {
+                assertEquals(state(games[session]), state(JournalReplay.recover(journal, session)), "session " + session);
+            }
+            assertNull(JournalReplay.recover(journal, games.length));
+        }
+
+        for (int session = 0; session < games.length; session++) {
+            TreasureHunter recovered = JournalReplay.recover(file, session);
+            assertEquals(state(games[session]), state(recovered), "session " + session);
+        }
+        assertNull(JournalReplay.recover(file, games.length));
+    }
+
+    @Test
+    public void reopenedJournalKeepsItsGames() throws IOException {
+        Path file = folder.resolve("games.journal");
+        TreasureHunter first = new TreasureHunter(NullOutput.INSTANCE, TestGames.typing(TestGames.SHOPPING), 1);
+        try (JournalWriter journal = JournalWriter.open(file)) {
+            first.subscribe(journal.session(1));
+            first.startGame("tess", "e");
+            TestGames.takeTurns(first, TestGames.TURNS);
+        }
+        TreasureHunter second = new TreasureHunter(NullOutput.INSTANCE, TestGames.typing(TestGames.SHOPPING), 2);
+        try (JournalWriter journal = JournalWriter.open(file)) {
+            second.subscribe(journal.session(2));
+            second.startGame("tess", "h");
+            TestGames.takeTurns(second, TestGames.TURNS);
+            assertEquals(state(first), state(JournalReplay.recover(journal, 1))); // found when the file was opened
+        }
+
+        assertEquals(state(first), state(JournalReplay.recover(file, 1)));
+        assertEquals(state(second), state(JournalReplay.recover(file, 2)));
+    }
+
+    /**
+     * @return Everything about the game that the journal keeps: all of it but the town's latest news,
+     *         which is only ever shown.
+     */
+    private static String state(TreasureHunter game) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            game.getHunter().writeTo(out);
+            game.getWorld().writeTo(out);
+        }
+        Town town = game.getCurrentTown();
+        return "town " + game.getTownNumber() + " by the " + town.getTerrain().getTerrainName()
+                + " tough=" + town.getToughTown() + " dug=" + town.getDug() + " lost=" + town.getHasLost()
+                + " random=" + town.getRandomSeed() + "/" + town.getRandomGamma() + " swords=" + town.getSwordPurchases()
+                + " turns=" + game.getTurns() + " hunter and world " + HexFormat.of().formatHex(bytes.toByteArray());
+    }
+}
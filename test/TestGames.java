@@ -0,0 +1,52 @@
+/**
+ * Games for the tests to play: fixed sets of typed lines, and a way to take menu turns without the menu.
+ */
+
+final class TestGames {
+    // answers for the shop visits at the start of TURNS: the kit for crossing most terrains, as far as the gold goes
+    static final String[] SHOPPING = {"horse", "y", "water", "y", "rope", "y", "machete", "y", "boots", "y"};
+    // some shopping, then a long walk up and down the road with something to do in most towns; after the
+    // shopping none of these ask a question
+    static final String[] TURNS = {"b", "b", "b", "b", "b", "e", "m", "d", "l", "m", "h", "m", "g", "g", "d",
+            "g", "g", "l", "g", "h", "m", "m", "m", "m", "d", "m", "h", "l", "m", "g", "g", "g", "g", "g", "g", "d",
+            "g", "l", "m", "h"};
+    // a whole game as typed, shop visits included
+    static final String[] SESSION = {"tess", "e", "b", "water", "y", "m", "d", "l", "b", "rope", "y", "m", "h",
+            "g", "s", "water", "y", "m", "m", "l", "d", "b", "shovel", "y", "d", "m", "h", "g", "g", "l", "m", "m"};
+
+    private TestGames() {
+    }
+
+    /**
+     * @param lines The lines to type.
+     * @return An input that types them, skipping the pauses, then ends.
+     */
+    static InputSource typing(String... lines) {
+        return new InputSource() {
+            private int next;
+
+            public String nextLine() {
+                return next < lines.length ? lines[next++] : null;
+            }
+
+            public boolean skipsPauses() {
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Carries out turns as the menu would, stopping early if the game is won or lost.
+     *
+     * @param game A started game.
+     * @param turns The menu choices.
+     */
+    static void takeTurns(TreasureHunter game, String... turns) {
+        for (String turn : turns) {
+            if (game.isOver()) {
+                return;
+            }
+            game.processChoice(turn);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Checks that recorded sessions read back from a trace file as they were written, and replay to the same ending.
+ */
+
+public class TraceReaderTest {
+    @TempDir
+    Path folder;
+
+    @Test
+    public void tracesRoundTripAndReplay() throws IOException {
+        Path file = folder.resolve("sessions.trace");
+        List<Trace> recorded = new ArrayList<>();
+        try (TraceWriter traces = TraceWriter.open(file)) {
+            for (long seed = 1; seed <= 25; seed++) {
+                TraceRecorder recorder = new TraceRecorder(TestGames.typing(TestGames.SESSION));
+                TreasureHunter game = new TreasureHunter(NullOutput.INSTANCE, recorder, seed);
+                game.play();
+                Trace trace = recorder.finish(game);
+                recorded.add(trace);
+                traces.add(trace);
+            }
+        }
+
+        List<Trace> read = TraceReader.readAll(file);
+        assertEquals(recorded.size(), read.size());
+        for (int i = 0; i < read.size(); i++) {
+            Trace expected = recorded.get(i);
+            Trace trace = read.get(i);
+            assertEquals(expected.getSeed(), trace.getSeed(), "trace " + i);
+            assertEquals(expected.getSkipsPauses(), trace.getSkipsPauses(), "trace " + i);
+            assertArrayEquals(expected.getLines(), trace.getLines(), "trace " + i);
+            assertEquals(expected.getEnding(), trace.getEnding(), "trace " + i);
+            assertEquals(trace.getEnding(), Trace.Ending.of(trace.replay(NullOutput.INSTANCE)), "trace " + i);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that a world map that only keeps two towns in memory spills the rest to disk and gets every
+ * one of them back, on both sides of town 0, and that a snapshot of it loads into the same towns.
+ */
+
+public class WorldMapTest {
+    private static final long SEED = 1234;
+    // visited in this order, so both halves of the spill file get used
+    private static final long[] TOWNS = {-3, 4, -1, 2, 0, -6, 5, 9};
+    // between the towns above but never visited, and beyond them
+    private static final long[] UNVISITED = {-5, -2, 1, 3, 8, -7, 10, Long.MAX_VALUE, Long.MIN_VALUE};
+
+    private TreasureHunter game;
+    private Town town;
+    private Hunter hunter;
+
+    @BeforeEach
+    public void startGame() {
+        game = new TreasureHunter(NullOutput.INSTANCE, () -> null, SEED);
+        game.startGame("tess", "e");
+        town = game.getCurrentTown();
+        hunter = game.getHunter();
+    }
+
+    @AfterEach
+    public void endGame() throws IOException {
+        game.close();
+    }
+
+    @Test
+    public void spillsAndRestoresTowns() throws IOException {
+        try (WorldMap world = new WorldMap(new GameRandom(SEED), game.getTerrainTable(), 2)) {
+            Map<Long, String> left = leaveTowns(world);
+            assertEquals(TOWNS.length - 2, world.getSpilled());
+
+            checkRestores(world, left);
+        }
+    }
+
+    @Test
+    public void revisitedTownsAreSpilledAgainAsTheyWereLastLeft() throws IOException {
+        try (WorldMap world = new WorldMap(new GameRandom(SEED), game.getTerrainTable(), 2)) {
+            Map<Long, String> left = leaveTowns(world);
+
+            // come back to a spilled town, dig it, and leave it for the disk again
+            assertTrue(world.restore(-3, town, hunter));
+            town.restore(town.getTerrain(), town.getToughTown(), true, town.getRandomSeed(), town.getRandomGamma(), 7);
+            world.leave(-3, town, false);
+            left.put(-3L, describe(town, false));
+            world.restore(4, town, hunter);
+            world.restore(-1, town, hunter);
+
+            checkRestores(world, left);
+        }
+    }
+
+    @Test
+    public void snapshotRoundTrip() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Map<Long, String> left;
+        try (WorldMap world = new WorldMap(new GameRandom(SEED), game.getTerrainTable(), 2);
+                DataOutputStream out = new DataOutputStream(bytes)) {
+            left = leaveTowns(world);
+            world.writeTo(out);
+        }
+        ByteArrayOutputStream again = new ByteArrayOutputStream();
+        try (WorldMap loaded = new WorldMap(new GameRandom(SEED), game.getTerrainTable(), 2);
+                DataOutputStream out = new DataOutputStream(again)) {
+            loaded.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+            assertEquals(TOWNS.length - 2, loaded.getSpilled());
+
+            checkRestores(loaded, left);
+            loaded.writeTo(out);
+        }
+
+        // and saving the loaded map again gives the same towns
+        try (WorldMap reloaded = new WorldMap(new GameRandom(SEED), game.getTerrainTable(), 2)) {
+            reloaded.readFrom(new DataInputStream(new ByteArrayInputStream(again.toByteArray())));
+            checkRestores(reloaded, left);
+        }
+    }
+
+    @Test
+    public void closedMapCantSpill() throws IOException {
+        WorldMap world = new WorldMap(new GameRandom(SEED), game.getTerrainTable(), 2);
+        leaveTowns(world);
+        world.close();
+        town.reset(0.5, world, 20);
+        assertThrows(UncheckedIOException.class, () -> world.leave(20, town, false));
+    }
+
+    /**
+     * Makes each of TOWNS, gives it its own dug flag, searched flag and sword purchases, and leaves it.
+     *
+     * @return Each town as it was left.
+     */
+    private Map<Long, String> leaveTowns(WorldMap world) {
+        Map<Long, String> left = new LinkedHashMap<>();
+        for (long number : TOWNS) {
+            town.reset(0.5, world, number);
+            boolean dug = number % 2 == 0;
+            boolean searched = number > 0;
+            town.restore(town.getTerrain(), town.getToughTown(), dug, town.getRandomSeed(), town.getRandomGamma(),
+                    (int) Math.abs(number));
+            world.leave(number, town, searched);
+            left.put(number, describe(town, searched));
+        }
+        return left;
+    }
+
+    private void checkRestores(WorldMap world, Map<Long, String> left) {
+        for (Map.Entry<Long, String> visit : left.entrySet()) {
+            town.reset(0.5, world, 1000); // somewhere else first, so nothing is left over from the last town
+            hunter.setIsSearched(false);
+            assertTrue(world.restore(visit.getKey(), town, hunter), "town " + visit.getKey());
+            assertEquals(visit.getValue(), describe(town, hunter.getIsSearched()), "town " + visit.getKey());
+        }
+        for (long number : UNVISITED) {
+            assertFalse(world.restore(number, town, hunter), "town " + number);
+        }
+    }
+
+    private static String describe(Town town, boolean searched) {
+        return town.getTerrain().getTerrainName() + " tough=" + town.getToughTown() + " dug=" + town.getDug()
+                + " searched=" + searched + " random=" + town.getRandomSeed() + "/" + town.getRandomGamma()
+                + " swords=" + town.getSwordPurchases();
+    }
+}